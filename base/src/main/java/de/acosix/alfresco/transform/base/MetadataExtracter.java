@@ -15,7 +15,9 @@
  */
 package de.acosix.alfresco.transform.base;
 
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -48,5 +50,20 @@ public interface MetadataExtracter
      */
     Collection<String> getSupportedSourceMimetypes();
 
-    // TODO flesh out
+    /**
+     * Extracts metadata properties from a content file.
+     *
+     * @param sourceFile
+     *            the path to the source file
+     * @param sourceMimetype
+     *            the mimetype of the source file
+     * @param timeout
+     *            the time allowed for the operation to complete in milliseconds
+     * @param options
+     *            the client-provided options for the extraction
+     * @return the extracted metadata properties, keyed by the fully qualified name of the Alfresco property in the form
+     *         <code>{namespaceUri}localName</code>, with values being either simple values ({@link String}, {@link Number},
+     *         {@link Boolean}) or {@link Collection collections} of such values for multi-valued properties
+     */
+    Map<String, Object> extractMetadata(Path sourceFile, String sourceMimetype, long timeout, Map<String, String> options);
 }
@@ -46,6 +46,18 @@ public interface Registry
      */
     void registerMetadataExtracter(MetadataExtracter metadataExtracter);
 
+    /**
+     * Retrieves a consistent view of this registry. Any handling of a single request that performs multiple lookups should use the same
+     * view for all of them, so that a configuration change applied concurrently does not mix old and new configuration within the same
+     * request.
+     *
+     * @return the current view of this registry
+     */
+    default Registry snapshot()
+    {
+        return this;
+    }
+
     /**
      * Looks up a particular registered transformer by name.
      *
@@ -79,6 +91,38 @@ public interface Registry
      */
     Optional<String> findTransformer(String sourceMimetype, long sourceSizeBytes, String targetMimetype, Map<String, String> options);
 
+    /**
+     * Checks whether a specific transformer supports a requested transformation, regardless of whether it would be the highest prioritised
+     * transformer for it.
+     *
+     * @param transformerName
+     *            the name of the transformer to check
+     * @param sourceMimetype
+     *            the mimetype from which a transformation is to take place
+     * @param sourceSizeBytes
+     *            the size of the source content in bytes
+     * @param targetMimetype
+     *            the mimetype to which a transformation is to take place
+     * @param options
+     *            the options provided for the transformation
+     * @return {@code true} if the transformer supports the transformation with the provided options, {@code false} otherwise
+     */
+    boolean supportsTransformation(String transformerName, String sourceMimetype, long sourceSizeBytes, String targetMimetype,
+            Map<String, String> options);
+
+    /**
+     * Finds the metadata extracter which supports extraction from a specific mimetype.
+     *
+     * @param sourceMimetype
+     *            the mimetype from which metadata is to be extracted
+     * @param sourceSizeBytes
+     *            the size of the source content in bytes
+     * @param options
+     *            the options provided for the extraction
+     * @return the name of the metadata extracter
+     */
+    Optional<String> findMetadataExtracter(String sourceMimetype, long sourceSizeBytes, Map<String, String> options);
+
     /**
      * Retrieves all supported root transform options keyed by the global definition name, which may be referenced by transformers and
      * extracters.
@@ -106,4 +150,13 @@ public interface Registry
      *             if an error occurs during writing of the JSON representation
      */
     void writeTransformConfigJSON(Writer writer) throws IOException;
+
+    /**
+     * Retrieves the internal transformer registrations / configuration in the same JSON representation as
+     * {@link #writeTransformConfigJSON(Writer) written}. The representation is rendered only once and cached until registrations change,
+     * in which case a new array instance is returned.
+     *
+     * @return the UTF-8 encoded JSON representation - callers must not modify the returned array
+     */
+    byte[] getTransformConfigJSON();
 }
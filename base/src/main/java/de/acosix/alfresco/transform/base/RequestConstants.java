@@ -47,6 +47,9 @@ public final class RequestConstants
 
     public static final String DIRECT_ACCESS_URL = "directAccessUrl";
 
+    // pseudo mimetype used in Alfresco's transform framework to pipe extraction through transformation focused API
+    public static final String METADATA_EXTRACT_MIMETYPE = "alfresco-metadata-extract";
+
     public static final Collection<String> NON_TRANSFORMATION_PARAMETER_NAMES = Collections.unmodifiableList(Arrays.asList(TIMEOUT,
             SOURCE_EXTENSION, TARGET_EXTENSION, SOURCE_MIMETYPE, TARGET_MIMETYPE, SOURCE_NODE_REF, "testDelay", "transformName"));
 
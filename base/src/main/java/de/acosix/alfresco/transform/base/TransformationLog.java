@@ -182,6 +182,14 @@ public interface TransformationLog
          * @return the original transformation options
          */
         Map<String, String> getOptions();
+
+        /**
+         * Retrieves the transformer-specific measurements recorded during the transformation, e.g. durations of individual processing
+         * steps.
+         *
+         * @return the measurements in the order they were recorded
+         */
+        Map<String, Long> getMetrics();
     }
 
     /**
@@ -251,5 +259,15 @@ public interface TransformationLog
          *            the size of the result file in bytes
          */
         void recordResultSize(long resultSize);
+
+        /**
+         * Records a transformer-specific measurement, replacing any previously recorded value of the same name.
+         *
+         * @param name
+         *            the name of the measurement
+         * @param value
+         *            the measured value
+         */
+        void recordMetric(String name, long value);
     }
 }
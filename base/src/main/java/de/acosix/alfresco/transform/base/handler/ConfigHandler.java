@@ -15,10 +15,18 @@
  */
 package de.acosix.alfresco.transform.base.handler;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.MimeTypes;
@@ -31,6 +39,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
+ * Instances of this class handle requests for the transformer configuration, which is regularly polled by ACS. The JSON representation
+ * is only rendered once per change of registrations, with a precompressed variant and strong entity tags, so that polls can be answered
+ * with a cached body or even a {@code 304 Not Modified} response.
+ *
  * @author Axel Faust
  */
 public class ConfigHandler extends AbstractHandler
@@ -38,6 +50,8 @@ public class ConfigHandler extends AbstractHandler
 
     private final Registry registry;
 
+    private volatile RenderedConfig renderedConfig;
+
     public ConfigHandler(final Registry registry)
     {
         super();
@@ -56,12 +70,31 @@ public class ConfigHandler extends AbstractHandler
         {
             if (baseRequest.getMethod().equals(HttpMethod.GET.name()))
             {
-                response.setStatus(HttpStatus.OK_200);
-                response.addHeader("Content-Type", MimeTypes.Type.APPLICATION_JSON_UTF_8.asString());
-                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-                try (final PrintWriter writer = response.getWriter())
+                final RenderedConfig renderedConfig = this.getRenderedConfig();
+                final boolean gzip = acceptsGzip(request.getHeader(HttpHeader.ACCEPT_ENCODING.asString()));
+                final String eTag = gzip ? renderedConfig.gzipETag : renderedConfig.eTag;
+
+                response.addHeader(HttpHeader.ETAG.asString(), eTag);
+                response.addHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+                if (matchesETag(request.getHeader(HttpHeader.IF_NONE_MATCH.asString()), eTag))
                 {
-                    this.registry.writeTransformConfigJSON(writer);
+                    response.setStatus(HttpStatus.NOT_MODIFIED_304);
+                    response.flushBuffer();
+                }
+                else
+                {
+                    final byte[] body = gzip ? renderedConfig.gzipBody : renderedConfig.body;
+                    response.setStatus(HttpStatus.OK_200);
+                    response.addHeader(HttpHeader.CONTENT_TYPE.asString(), MimeTypes.Type.APPLICATION_JSON_UTF_8.asString());
+                    if (gzip)
+                    {
+                        response.addHeader(HttpHeader.CONTENT_ENCODING.asString(), "gzip");
+                    }
+                    response.setContentLength(body.length);
+                    try (final OutputStream os = response.getOutputStream())
+                    {
+                        os.write(body);
+                    }
                 }
             }
             else
@@ -73,4 +106,100 @@ public class ConfigHandler extends AbstractHandler
         }
     }
 
+    private RenderedConfig getRenderedConfig()
+    {
+        final byte[] body = this.registry.getTransformConfigJSON();
+        RenderedConfig renderedConfig = this.renderedConfig;
+        // registry provides a new array instance on any change
+        if (renderedConfig == null || renderedConfig.body != body)
+        {
+            renderedConfig = new RenderedConfig(body);
+            this.renderedConfig = renderedConfig;
+        }
+        return renderedConfig;
+    }
+
+    private static boolean acceptsGzip(final String acceptEncoding)
+    {
+        boolean accepted = false;
+        if (acceptEncoding != null)
+        {
+            for (final String encoding : acceptEncoding.split(","))
+            {
+                final String[] fragments = encoding.split(";");
+                final String coding = fragments[0].trim().toLowerCase(Locale.ENGLISH);
+                if (coding.equals("gzip") || coding.equals("x-gzip"))
+                {
+                    accepted = fragments.length == 1 || !fragments[1].trim().replace(" ", "").matches("^q=0(\\.0{0,3})?$");
+                }
+            }
+        }
+        return accepted;
+    }
+
+    private static boolean matchesETag(final String ifNoneMatch, final String eTag)
+    {
+        boolean matches = false;
+        if (ifNoneMatch != null)
+        {
+            for (final String candidate : ifNoneMatch.split(","))
+            {
+                String tag = candidate.trim();
+                // If-None-Match uses weak comparison
+                if (tag.startsWith("W/"))
+                {
+                    tag = tag.substring(2);
+                }
+                matches = matches || tag.equals("*") || tag.equals(eTag);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Instances of this class hold the rendered representations of a specific state of the transformer configuration.
+     *
+     * @author Axel Faust
+     */
+    private static class RenderedConfig
+    {
+
+        private final byte[] body;
+
+        private final String eTag;
+
+        private final byte[] gzipBody;
+
+        private final String gzipETag;
+
+        private RenderedConfig(final byte[] body)
+        {
+            this.body = body;
+
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (final GZIPOutputStream gzos = new GZIPOutputStream(bos))
+            {
+                gzos.write(body);
+            }
+            catch (final IOException ioex)
+            {
+                // cannot really occur when writing to memory
+                throw new UncheckedIOException("Failed to compress transform config", ioex);
+            }
+            this.gzipBody = bos.toByteArray();
+
+            try
+            {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                final String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest(body));
+                // strong entity tags must differ between content codings
+                this.eTag = "\"" + hash + "\"";
+                this.gzipETag = "\"" + hash + "-gzip\"";
+            }
+            catch (final NoSuchAlgorithmException nsaex)
+            {
+                throw new IllegalStateException("SHA-256 is not supported by the JVM", nsaex);
+            }
+        }
+    }
 }
@@ -111,6 +111,7 @@ public class LogHandler extends AbstractHandler
         writer.append(cellIndent).append("<td>Source</td>\n");
         writer.append(cellIndent).append("<td>Target</td>\n");
         writer.append(cellIndent).append("<td>Options</td>\n");
+        writer.append(cellIndent).append("<td>Metrics</td>\n");
         writer.append(cellIndent).append("<td>Message</td>\n");
         writer.write("\t\t\t\t</tr>\n\t\t\t</thead>\n");
 
@@ -144,6 +145,7 @@ public class LogHandler extends AbstractHandler
         this.writeEntryTableRowCell(writer, this.getTypeAndSizeDisplayValue(entry.getSourceMimetype(), entry.getSourceSize()), cellIndent);
         this.writeEntryTableRowCell(writer, this.getTypeAndSizeDisplayValue(entry.getTargetMimetype(), entry.getResultSize()), cellIndent);
         this.writeEntryTableRowCell(writer, entry.getOptions().toString(), cellIndent);
+        this.writeEntryTableRowCell(writer, entry.getMetrics().isEmpty() ? null : entry.getMetrics().toString(), cellIndent);
         this.writeEntryTableRowCell(writer, entry.getStatusMessage(), cellIndent);
     }
 
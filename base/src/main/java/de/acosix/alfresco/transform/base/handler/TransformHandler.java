@@ -58,6 +58,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.MetadataExtracter;
 import de.acosix.alfresco.transform.base.Registry;
 import de.acosix.alfresco.transform.base.RequestConstants;
 import de.acosix.alfresco.transform.base.SharedFileAccessException;
@@ -553,7 +554,15 @@ public class TransformHandler extends ContextAwareHandler
     {
         final long sourceSize = Files.size(sourceFile);
 
-        final Optional<String> transformer = this.registry.findTransformer(sourceMimetype, sourceSize, targetMimetype, transformerOptions);
+        if (RequestConstants.METADATA_EXTRACT_MIMETYPE.equals(targetMimetype))
+        {
+            this.doExtractMetadata(logEntry, sourceFile, sourceMimetype, sourceSize, targetFile, timeout, transformerOptions);
+            return;
+        }
+
+        // all lookups of a request must use the same registry state, even if configuration is reloaded concurrently
+        final Registry registry = this.registry.snapshot();
+        final Optional<String> transformer = registry.findTransformer(sourceMimetype, sourceSize, targetMimetype, transformerOptions);
         if (transformer.isEmpty())
         {
             throw new StatusException(HttpStatus.BAD_REQUEST_400, "No transformers are able to handle the request");
@@ -563,11 +572,11 @@ public class TransformHandler extends ContextAwareHandler
         logEntry.recordSelectedTransformer(transformerName);
 
         final Map<String, String> effectiveTransformerOptions = new HashMap<>();
-        effectiveTransformerOptions.putAll(this.registry.getDefaultOptions(transformerName));
+        effectiveTransformerOptions.putAll(registry.getDefaultOptions(transformerName));
         transformerOptions.entrySet().stream().filter(e -> e.getValue() != null && !e.getValue().isBlank())
                 .forEach(e -> effectiveTransformerOptions.put(e.getKey(), e.getValue()));
 
-        final Transformer transformerInstance = this.registry.getTransformer(transformerName);
+        final Transformer transformerInstance = registry.getTransformer(transformerName);
 
         // this may be overridden within a transformer, e.g. if it has to do further request handling
         logEntry.markStartOfTransformation();
@@ -586,6 +595,41 @@ public class TransformHandler extends ContextAwareHandler
         }
     }
 
+    private void doExtractMetadata(final MutableEntry logEntry, final Path sourceFile, final String sourceMimetype, final long sourceSize,
+            final Path targetFile, final Long timeout, final Map<String, String> extracterOptions) throws IOException
+    {
+        final Registry registry = this.registry.snapshot();
+        final Optional<String> extracter = registry.findMetadataExtracter(sourceMimetype, sourceSize, extracterOptions);
+        if (extracter.isEmpty())
+        {
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, "No metadata extracters are able to handle the request");
+        }
+
+        final String extracterName = extracter.get();
+        logEntry.recordSelectedTransformer(extracterName);
+
+        final MetadataExtracter extracterInstance = registry.getMetadataExtractor(extracterName);
+
+        logEntry.markStartOfTransformation();
+
+        final Map<String, Object> metadata;
+        try
+        {
+            metadata = extracterInstance.extractMetadata(sourceFile, sourceMimetype,
+                    timeout != null ? timeout.longValue() : this.defaultTransformTimeout, extracterOptions);
+        }
+        finally
+        {
+            logEntry.markEndOfTransformation();
+        }
+
+        // Alfresco expects a JSON object of property values keyed by fully qualified property names as result
+        try (OutputStream os = Files.newOutputStream(targetFile))
+        {
+            this.jsonMapper.writeValue(os, metadata);
+        }
+    }
+
     private Part getPart(final HttpServletRequest request, final String partName, final boolean mandatory)
             throws IOException, ServletException
     {
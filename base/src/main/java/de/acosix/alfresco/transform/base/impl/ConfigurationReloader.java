@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+
+/**
+ * Instances of this class watch the configuration file of the transformer application for modifications, and trigger a
+ * {@link ReloadableRegistry#reload(Context) reload} of the registry whenever the file has changed. The file is checked for changes to its
+ * modification time and size in a fixed interval, as file system change notifications are not reliably available for files mounted
+ * into containers.
+ *
+ * @author Axel Faust
+ */
+public class ConfigurationReloader
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationReloader.class);
+
+    private final Path configFile;
+
+    private final Supplier<Context> contextFactory;
+
+    private final ReloadableRegistry registry;
+
+    private final ScheduledExecutorService scheduler;
+
+    private String lastSignature;
+
+    public ConfigurationReloader(final Context context, final Path configFile, final Supplier<Context> contextFactory,
+            final ReloadableRegistry registry)
+    {
+        this.configFile = configFile;
+        this.contextFactory = contextFactory;
+        this.registry = registry;
+        this.lastSignature = this.readSignature();
+
+        final long checkInterval = context.getLongProperty("application.configReload.checkInterval", 10000, 100, Long.MAX_VALUE);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "ConfigurationReloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::checkForChanges, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops watching the configuration file for changes.
+     */
+    public void shutdown()
+    {
+        this.scheduler.shutdownNow();
+    }
+
+    private void checkForChanges()
+    {
+        final String signature = this.readSignature();
+        if (!Objects.equals(signature, this.lastSignature))
+        {
+            this.lastSignature = signature;
+            LOGGER.info("Configuration file {} has changed - reloading configuration", this.configFile.toAbsolutePath());
+            try
+            {
+                this.registry.reload(this.contextFactory.get());
+                LOGGER.info("Reloaded configuration");
+            }
+            catch (final RuntimeException ex)
+            {
+                // must not escape, as it would cancel any further checks
+                LOGGER.error("Failed to reload configuration - previous configuration remains in effect", ex);
+            }
+        }
+    }
+
+    private String readSignature()
+    {
+        String signature = null;
+        if (Files.isRegularFile(this.configFile))
+        {
+            try
+            {
+                signature = Files.getLastModifiedTime(this.configFile).toMillis() + "/" + Files.size(this.configFile);
+            }
+            catch (final IOException ioex)
+            {
+                LOGGER.debug("Failed to check configuration file {} for changes", this.configFile, ioex);
+            }
+        }
+        return signature;
+    }
+}
@@ -24,15 +24,19 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
@@ -51,20 +55,38 @@ public class ContextImpl implements Context
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContextImpl.class);
 
+    private static final Pattern NUMERIC_VALUE = Pattern.compile("^-?\\d+$");
+
+    private static final Pattern ESCAPED_FRAGMENT_PREFIX = Pattern.compile("\\\\([\\\\]{2})*+$");
+
     protected final Map<String, String> properties;
 
+    // snapshot of all values with placeholders resolved and numeric / multi-valued values pre-parsed
+    protected final Map<String, String> resolvedProperties;
+
+    protected final Map<String, Long> numericProperties;
+
+    protected final Map<String, List<String>> multiValuedProperties;
+
+    // errors are only raised when unresolvable properties are actually used
+    protected final Map<String, String> unresolvableProperties;
+
     protected final Path tempDir;
 
     public ContextImpl()
     {
-        try
-        {
-            this.tempDir = Files.createTempDirectory("TransformerApplication");
-        }
-        catch (final IOException ioex)
-        {
-            throw new IllegalStateException("Failed to set up temporary directory", ioex);
-        }
+        this(createTempDirectory());
+    }
+
+    /**
+     * Creates a new context, reusing an existing temporary directory, e.g. when reloading the configuration at runtime.
+     *
+     * @param tempDir
+     *            the temporary directory to use
+     */
+    public ContextImpl(final Path tempDir)
+    {
+        this.tempDir = tempDir;
 
         final Properties tempProperties = new Properties();
 
@@ -105,6 +127,61 @@ public class ContextImpl implements Context
             mapified.put(propertyName, tempProperties.getProperty(propertyName));
         }
         this.properties = Collections.unmodifiableMap(mapified);
+
+        final Map<String, String> resolvedProperties = new HashMap<>();
+        final Map<String, Long> numericProperties = new HashMap<>();
+        final Map<String, List<String>> multiValuedProperties = new HashMap<>();
+        final Map<String, String> unresolvableProperties = new HashMap<>();
+        for (final Entry<String, String> property : this.properties.entrySet())
+        {
+            final String propertyName = property.getKey();
+            String value = property.getValue();
+            try
+            {
+                if (value.contains("${"))
+                {
+                    value = this.resolvePlaceholders(propertyName, value);
+                }
+                resolvedProperties.put(propertyName, value);
+
+                if (!value.isBlank())
+                {
+                    final List<String> values = new ArrayList<>(Arrays.asList(value.split(",")));
+                    values.removeIf(String::isBlank);
+                    multiValuedProperties.put(propertyName, Collections.unmodifiableList(values));
+                }
+
+                final String trimmedValue = value.trim();
+                if (NUMERIC_VALUE.matcher(trimmedValue).matches())
+                {
+                    numericProperties.put(propertyName, Long.valueOf(trimmedValue));
+                }
+            }
+            catch (final IllegalStateException isex)
+            {
+                unresolvableProperties.put(propertyName, isex.getMessage());
+            }
+            catch (final NumberFormatException nfex)
+            {
+                // out of range of long - treated as non-numeric
+            }
+        }
+        this.resolvedProperties = Collections.unmodifiableMap(resolvedProperties);
+        this.numericProperties = Collections.unmodifiableMap(numericProperties);
+        this.multiValuedProperties = Collections.unmodifiableMap(multiValuedProperties);
+        this.unresolvableProperties = Collections.unmodifiableMap(unresolvableProperties);
+    }
+
+    private static Path createTempDirectory()
+    {
+        try
+        {
+            return Files.createTempDirectory("TransformerApplication");
+        }
+        catch (final IOException ioex)
+        {
+            throw new IllegalStateException("Failed to set up temporary directory", ioex);
+        }
     }
 
     /**
@@ -263,14 +340,100 @@ public class ContextImpl implements Context
     @Override
     public String getStringProperty(final String propertyName)
     {
-        String property = this.properties.get(propertyName);
+        final String property = this.resolvedProperties.get(propertyName);
+        if (property == null && this.unresolvableProperties.containsKey(propertyName))
+        {
+            throw new IllegalStateException(this.unresolvableProperties.get(propertyName));
+        }
+        return property;
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getMultiValuedProperty(final String propertyName)
+    {
+        final String property = this.getStringProperty(propertyName);
+        final List<String> values = property != null ? this.multiValuedProperties.get(propertyName) : null;
+        // copy as callers of the default implementation may expect a mutable list
+        return values != null ? new ArrayList<>(values) : new ArrayList<>();
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIntegerProperty(final String propertyName, final int defaultValue, final int minValue, final int maxValue)
+    {
+        final Long value = this.getNumericProperty(propertyName, "integer", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return (int) this.checkRange(propertyName, value != null ? value : defaultValue, minValue, maxValue);
+    }
 
-        if (property != null && property.contains("${"))
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getIntegerProperty(final String propertyName, final int minValue, final int maxValue)
+    {
+        final Long value = this.getNumericProperty(propertyName, "integer", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return value != null ? Integer.valueOf((int) this.checkRange(propertyName, value, minValue, maxValue)) : null;
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongProperty(final String propertyName, final long defaultValue, final long minValue, final long maxValue)
+    {
+        final Long value = this.getNumericProperty(propertyName, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+        return this.checkRange(propertyName, value != null ? value : defaultValue, minValue, maxValue);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Long getLongProperty(final String propertyName, final long minValue, final long maxValue)
+    {
+        final Long value = this.getNumericProperty(propertyName, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+        return value != null ? Long.valueOf(this.checkRange(propertyName, value, minValue, maxValue)) : null;
+    }
+
+    protected Long getNumericProperty(final String propertyName, final String expectedType, final long typeMinValue,
+            final long typeMaxValue)
+    {
+        final String property = this.getStringProperty(propertyName);
+        Long value = null;
+        if (property != null && !property.isBlank())
         {
-            property = this.resolvePlaceholders(propertyName, property);
+            value = this.numericProperties.get(propertyName);
+            if (value == null || value < typeMinValue || value > typeMaxValue)
+            {
+                throw new IllegalStateException(
+                        "Property " + propertyName + " has not been set as a numeric value (" + expectedType + " expected)");
+            }
         }
+        return value;
+    }
 
-        return property;
+    protected long checkRange(final String propertyName, final long value, final long minValue, final long maxValue)
+    {
+        if (value < minValue)
+        {
+            throw new IllegalStateException("Value of integer property " + propertyName + " must not be lower than " + minValue);
+        }
+
+        if (value > maxValue)
+        {
+            throw new IllegalStateException("Value of integer property " + propertyName + " must not be larger than " + maxValue);
+        }
+        return value;
     }
 
     protected String resolvePlaceholders(final String propertyName, final String originalValue)
@@ -339,7 +502,7 @@ public class ContextImpl implements Context
             final int placeholderStart = value.indexOf(fragment, offset);
             if (placeholderStart != -1)
             {
-                if (placeholderStart != 0 && value.substring(startIdx, placeholderStart).matches("\\\\([\\\\]{2})*+$"))
+                if (placeholderStart != 0 && ESCAPED_FRAGMENT_PREFIX.matcher(value.substring(startIdx, placeholderStart)).matches())
                 {
                     // continue looking for valid start without escape
                     offset = placeholderStart + fragment.length();
@@ -16,6 +16,7 @@
 package de.acosix.alfresco.transform.base.impl;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import de.acosix.alfresco.transform.base.TransformationLog.Entry;
@@ -115,6 +116,19 @@ public class LocalMutableTransformationLogEntry extends LocalTransformationLogEn
         this.resultSize = resultSize;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordMetric(final String name, final long value)
+    {
+        if (this.metrics == null)
+        {
+            this.metrics = new LinkedHashMap<>();
+        }
+        this.metrics.put(name, value);
+    }
+
     protected Entry closeEntry()
     {
         final LocalTransformationLogEntry logEntry = new LocalTransformationLogEntry();
@@ -137,6 +151,7 @@ public class LocalMutableTransformationLogEntry extends LocalTransformationLogEn
                     - (logEntry.startTime + logEntry.requestHandlingDuration + logEntry.transformationDuration);
         }
         logEntry.options = this.options != null ? new HashMap<>(this.options) : null;
+        logEntry.metrics = this.metrics != null ? new LinkedHashMap<>(this.metrics) : null;
 
         return logEntry;
     }
@@ -17,6 +17,7 @@ package de.acosix.alfresco.transform.base.impl;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import de.acosix.alfresco.transform.base.TransformationLog.Entry;
@@ -58,6 +59,8 @@ public class LocalTransformationLogEntry implements Entry
 
     protected Map<String, String> options;
 
+    protected Map<String, Long> metrics;
+
     /**
      * {@inheritDoc}
      */
@@ -193,4 +196,13 @@ public class LocalTransformationLogEntry implements Entry
         return this.options != null ? new HashMap<>(this.options) : Collections.emptyMap();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getMetrics()
+    {
+        return this.metrics != null ? new LinkedHashMap<>(this.metrics) : Collections.emptyMap();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.Transformer;
+
+/**
+ * Instances of this class expose a registered transformer with its configuration state (transform options and supported transformations)
+ * re-read from a reloaded configuration, while delegating the actual transformations to the original transformer instance.
+ *
+ * @author Axel Faust
+ */
+class ReconfiguredTransformer extends AbstractTransformerConfigState implements Transformer
+{
+
+    private final Transformer delegate;
+
+    private final String configKeyPrefix;
+
+    ReconfiguredTransformer(final Transformer delegate, final String configKeyPrefix, final Context context)
+    {
+        super(delegate.getName(), context);
+        this.delegate = delegate;
+        this.configKeyPrefix = configKeyPrefix;
+        this.readConfig();
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void transform(final Path sourceFile, final String sourceMimetype, final Path targetFile, final String targetMimetype,
+            final long timeout, final Map<String, String> options)
+    {
+        this.delegate.transform(sourceFile, sourceMimetype, targetFile, targetMimetype, timeout, options);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getConfigKeyPrefix()
+    {
+        return this.configKeyPrefix;
+    }
+}
@@ -18,12 +18,20 @@ package de.acosix.alfresco.transform.base.impl;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,7 +40,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.Predicate;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.alfresco.transform.config.SupportedSourceAndTarget;
@@ -46,6 +54,7 @@ import org.slf4j.LoggerFactory;
 import de.acosix.alfresco.transform.base.Context;
 import de.acosix.alfresco.transform.base.MetadataExtracter;
 import de.acosix.alfresco.transform.base.Registry;
+import de.acosix.alfresco.transform.base.RequestConstants;
 import de.acosix.alfresco.transform.base.Transformer;
 import de.acosix.alfresco.transform.base.TransformerConfigState;
 import de.acosix.alfresco.transform.base.TransformerFailoverConfig;
@@ -60,10 +69,6 @@ public class RegistryImpl implements Registry
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RegistryImpl.class);
 
-    // pseudo mimetype used in Alfresco's transform framework to pipe extraction through transformation focused API
-    // awful design, but have to support it
-    private static final String ALFRESCO_METADATA_EXTRACT = "alfresco-metadata-extract";
-
     private final Context context;
 
     private final Map<String, Set<TransformOption>> rootTransformOptions = new HashMap<>();
@@ -76,12 +81,29 @@ public class RegistryImpl implements Registry
 
     private final Map<String, MetadataExtracter> registeredExtracters = new HashMap<>();
 
+    private final Map<String, Set<SupportedSourceAndTarget>> extractionsByExtracter = new HashMap<>();
+
+    private final Set<String> nonSelectorParameterNames;
+
+    private final int selectionCacheSize;
+
+    private final Map<String, Integer> optionBitIndices = new HashMap<>();
+
+    // immutable snapshot, rebuilt on registration, so that lookups do not need to deal with registration-time data structures
+    private volatile LookupIndex lookupIndex = new LookupIndex(Collections.emptyMap(), new PairCandidates[0][0], Collections.emptyMap(),
+            Collections.emptyMap());
+
+    // rendered lazily and reset on registration
+    private volatile byte[] transformConfigJSON;
+
     private final JsonMapper jsonMapper = JsonMapper.builder()
             .defaultPropertyInclusion(JsonInclude.Value.construct(JsonInclude.Include.NON_ABSENT, JsonInclude.Include.NON_ABSENT)).build();
 
     public RegistryImpl(final Context context)
     {
         this.context = context;
+        this.nonSelectorParameterNames = new HashSet<>(this.context.getMultiValuedProperty("application.nonSelectorParameterNames"));
+        this.selectionCacheSize = this.context.getIntegerProperty("application.transformerSelectionCacheSize", 1000, 0, Integer.MAX_VALUE);
         this.readTransformerOptionProfiles();
         this.readComplexTransformerConfig();
     }
@@ -108,6 +130,9 @@ public class RegistryImpl implements Registry
             this.transformationsBySourceTarget.computeIfAbsent(sourceTargetPair, k -> new TreeSet<>())
                     .add(new TransformerSupportedTransformation(transformer, transformation));
         });
+
+        this.rebuildLookupIndex();
+        this.transformConfigJSON = null;
     }
 
     /**
@@ -124,6 +149,10 @@ public class RegistryImpl implements Registry
         }
 
         this.registeredExtracters.put(metadataExtracter.getName(), metadataExtracter);
+        this.extractionsByExtracter.put(metadataExtracter.getName(), this.readExtractions(metadataExtracter));
+
+        this.rebuildLookupIndex();
+        this.transformConfigJSON = null;
     }
 
     /**
@@ -161,26 +190,47 @@ public class RegistryImpl implements Registry
     public Optional<String> findTransformer(final String sourceMimetype, final long sourceSizeBytes, final String targetMimetype,
             final Map<String, String> options)
     {
-        final Map<String, Boolean> transformerOptionCheckResult = new HashMap<>();
+        final LookupIndex lookupIndex = this.lookupIndex;
+        final Integer sourceId = lookupIndex.mimetypeIds.get(sourceMimetype);
+        final Integer targetId = lookupIndex.mimetypeIds.get(targetMimetype);
+        final PairCandidates pairCandidates = sourceId != null && targetId != null ? lookupIndex.candidates[sourceId][targetId] : null;
+        return this.select(lookupIndex, pairCandidates, sourceSizeBytes, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsTransformation(final String transformerName, final String sourceMimetype, final long sourceSizeBytes,
+            final String targetMimetype, final Map<String, String> options)
+    {
+        final LookupIndex lookupIndex = this.lookupIndex;
+        final Integer sourceId = lookupIndex.mimetypeIds.get(sourceMimetype);
+        final Integer targetId = lookupIndex.mimetypeIds.get(targetMimetype);
+        final PairCandidates pairCandidates = sourceId != null && targetId != null ? lookupIndex.candidates[sourceId][targetId] : null;
 
-        // transformations are inherently sorted by priority (only)
-        final Set<TransformerSupportedTransformation> transformations = this.transformationsBySourceTarget
-                .getOrDefault(new SourceTargetMimetypePair(sourceMimetype, targetMimetype), Collections.emptySet());
+        boolean supported = false;
+        if (pairCandidates != null)
+        {
+            final int wordCount = this.getOptionWordCount();
+            final long[] providedOptions = new long[wordCount];
+            final long[] providedSelectorOptions = new long[wordCount];
+            final boolean unknownSelectorOptionsProvided = this.collectProvidedOptions(options, providedOptions, providedSelectorOptions);
+            supported = pairCandidates.supports(transformerName, sourceSizeBytes, providedOptions, providedSelectorOptions,
+                    unknownSelectorOptionsProvided);
+        }
+        return supported;
+    }
 
-        return transformations.stream()
-                // filter by source size limits if present
-                .filter(transformation -> {
-                    final long maxSourceBytes = transformation.getSupportedTransformation().getMaxSourceSizeBytes();
-                    return maxSourceBytes < 0 || maxSourceBytes >= sourceSizeBytes;
-                })
-                // filter by option support
-                .filter(transformation -> {
-                    final Transformer transformer = transformation.getTransformer();
-                    final String transformerName = transformer.getName();
-                    final Boolean checkResult = transformerOptionCheckResult.computeIfAbsent(transformerName,
-                            t -> this.supportsOptions(transformer, options));
-                    return Boolean.TRUE.equals(checkResult);
-                }).findFirst().map(transformation -> transformation.getTransformer().getName());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<String> findMetadataExtracter(final String sourceMimetype, final long sourceSizeBytes,
+            final Map<String, String> options)
+    {
+        final LookupIndex lookupIndex = this.lookupIndex;
+        return this.select(lookupIndex, lookupIndex.extracterCandidates.get(sourceMimetype), sourceSizeBytes, options);
     }
 
     /**
@@ -199,23 +249,9 @@ public class RegistryImpl implements Registry
     @Override
     public Map<String, String> getDefaultOptions(final String transformerName)
     {
-        final Transformer transformer = this.getTransformer(transformerName);
-        final Collection<String> transformerOptionProfiles = transformer.getTransformOptions();
-        final Map<String, Boolean> transformOptions = new HashMap<>();
-        transformerOptionProfiles.forEach(profile -> this.rootTransformOptions.get(profile)
-                .forEach(option -> this.collectOptionFields(option, true, false, transformOptions, Collections.emptyMap())));
-
-        final Map<String, String> defaultOptions = new HashMap<>();
-        for (final String option : transformOptions.keySet())
-        {
-            final String value = this.getDefaultOption(transformerName, option);
-            if (value != null)
-            {
-                defaultOptions.put(option, value);
-            }
-        }
-
-        return defaultOptions;
+        // fails for unknown transformers
+        this.getTransformer(transformerName);
+        return this.lookupIndex.optionSchemas.get(transformerName).defaultOptions;
     }
 
     /**
@@ -242,11 +278,7 @@ public class RegistryImpl implements Registry
                         final MetadataExtracter extracter = this.registeredExtracters.get(name);
                         t.getTransformOptions().addAll(extracter.getTransformOptions());
 
-                        final Set<SupportedSourceAndTarget> supported = t.getSupportedSourceAndTargetList();
-                        for (final String sourceMimetype : extracter.getSupportedSourceMimetypes())
-                        {
-                            supported.add(this.toSourceAndTarget(sourceMimetype, ALFRESCO_METADATA_EXTRACT));
-                        }
+                        t.getSupportedSourceAndTargetList().addAll(this.extractionsByExtracter.get(name));
                     }
                     else if (transformerConfig instanceof TransformerPipelineConfig)
                     {
@@ -264,8 +296,7 @@ public class RegistryImpl implements Registry
             final String name = entry.getKey();
             final MetadataExtracter extracter = entry.getValue();
             final org.alfresco.transform.config.Transformer t = new org.alfresco.transform.config.Transformer(name,
-                    extracter.getTransformOptions(), extracter.getSupportedSourceMimetypes().stream()
-                            .map(mimetype -> this.toSourceAndTarget(mimetype, ALFRESCO_METADATA_EXTRACT)).collect(Collectors.toSet()));
+                    extracter.getTransformOptions(), new HashSet<>(this.extractionsByExtracter.get(name)));
             t.setCoreVersion(coreVersion);
             return t;
         }).collect(Collectors.toCollection(config::getTransformers));
@@ -273,6 +304,88 @@ public class RegistryImpl implements Registry
         this.jsonMapper.writeValue(writer, config);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getTransformConfigJSON()
+    {
+        byte[] transformConfigJSON = this.transformConfigJSON;
+        if (transformConfigJSON == null)
+        {
+            synchronized (this)
+            {
+                transformConfigJSON = this.transformConfigJSON;
+                if (transformConfigJSON == null)
+                {
+                    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    try (final Writer writer = new OutputStreamWriter(bos, StandardCharsets.UTF_8))
+                    {
+                        this.writeTransformConfigJSON(writer);
+                    }
+                    catch (final IOException ioex)
+                    {
+                        // cannot really occur when writing to memory
+                        throw new UncheckedIOException("Failed to render transform config", ioex);
+                    }
+                    transformConfigJSON = bos.toByteArray();
+                    this.transformConfigJSON = transformConfigJSON;
+                }
+            }
+        }
+        return transformConfigJSON;
+    }
+
+    private Optional<String> select(final LookupIndex lookupIndex, final PairCandidates pairCandidates, final long sourceSizeBytes,
+            final Map<String, String> options)
+    {
+        Optional<String> result = Optional.empty();
+        if (pairCandidates != null)
+        {
+            final int wordCount = this.getOptionWordCount();
+            final long[] providedOptions = new long[wordCount];
+            final long[] providedSelectorOptions = new long[wordCount];
+            final boolean unknownSelectorOptionsProvided = this.collectProvidedOptions(options, providedOptions, providedSelectorOptions);
+
+            // selection only depends on the key elements, so an exact result can be cached
+            final SelectionKey key = new SelectionKey(pairCandidates, pairCandidates.getSizeBucket(sourceSizeBytes), providedOptions,
+                    providedSelectorOptions, unknownSelectorOptionsProvided);
+            result = lookupIndex.selectionCache.get(key);
+            if (result == null)
+            {
+                result = pairCandidates.select(sourceSizeBytes, providedOptions, providedSelectorOptions, unknownSelectorOptionsProvided);
+                if (this.selectionCacheSize > 0)
+                {
+                    if (lookupIndex.selectionCache.size() >= this.selectionCacheSize)
+                    {
+                        // simple bound - traffic is expected to be dominated by a limited number of distinct requests
+                        lookupIndex.selectionCache.clear();
+                    }
+                    lookupIndex.selectionCache.put(key, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<SupportedSourceAndTarget> readExtractions(final MetadataExtracter metadataExtracter)
+    {
+        final String prefix = "metadataExtracter." + metadataExtracter.getName() + '.';
+        final int defaultPriority = this.context.getIntegerProperty(prefix + "default.priority", 50, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        final long defaultMaxSourceSize = this.context.getLongProperty(prefix + "default.maxSourceSizeBytes", -1, -1, Long.MAX_VALUE);
+
+        final Set<SupportedSourceAndTarget> extractions = new HashSet<>();
+        for (final String sourceMimetype : metadataExtracter.getSupportedSourceMimetypes())
+        {
+            final int priority = this.context.getIntegerProperty(prefix + sourceMimetype + ".priority", defaultPriority, Integer.MIN_VALUE,
+                    Integer.MAX_VALUE);
+            final long maxSourceSize = this.context.getLongProperty(prefix + sourceMimetype + ".maxSourceSizeBytes", defaultMaxSourceSize,
+                    -1, Long.MAX_VALUE);
+            extractions.add(this.toSourceAndTarget(sourceMimetype, RequestConstants.METADATA_EXTRACT_MIMETYPE, maxSourceSize, priority));
+        }
+        return extractions;
+    }
+
     private SupportedSourceAndTarget toSourceAndTarget(final String sourceMimetype, final String targetMimetype)
     {
         return this.toSourceAndTarget(sourceMimetype, targetMimetype, null, null);
@@ -304,71 +417,152 @@ public class RegistryImpl implements Registry
         return result;
     }
 
-    private boolean supportsOptions(final Transformer transformer, final Map<String, String> options)
+    private void rebuildLookupIndex()
     {
-        final Collection<String> transformerOptionProfiles = transformer.getTransformOptions();
-        final Map<String, Boolean> transformOptions = new HashMap<>();
-        transformerOptionProfiles.forEach(profile -> this.rootTransformOptions.get(profile)
-                .forEach(option -> this.collectOptionFields(option, true, false, transformOptions, options)));
+        final Map<String, OptionSchema> optionSchemas = new HashMap<>();
+        this.registeredTransformers.values().forEach(transformer -> optionSchemas.put(transformer.getName(),
+                this.compileOptionSchema(transformer.getName(), transformer.getTransformOptions())));
+
+        final Map<String, Integer> mimetypeIds = new HashMap<>();
+        this.transformationsBySourceTarget.keySet().forEach(pair -> {
+            mimetypeIds.putIfAbsent(pair.sourceMimetype, mimetypeIds.size());
+            mimetypeIds.putIfAbsent(pair.targetMimetype, mimetypeIds.size());
+        });
 
-        final List<String> nonSelectorParameterNames = this.context.getMultiValuedProperty("application.nonSelectorParameterNames");
+        final PairCandidates[][] candidates = new PairCandidates[mimetypeIds.size()][mimetypeIds.size()];
+        this.transformationsBySourceTarget.forEach((pair, transformations) -> {
+            final Candidate[] pairCandidates = transformations.stream().map(transformation -> {
+                final Transformer transformer = transformation.getTransformer();
+                return new Candidate(transformer.getName(), transformation.getSupportedTransformation().getMaxSourceSizeBytes(),
+                        optionSchemas.get(transformer.getName()));
+            }).toArray(Candidate[]::new);
+            candidates[mimetypeIds.get(pair.sourceMimetype)][mimetypeIds.get(pair.targetMimetype)] = new PairCandidates(pairCandidates);
+        });
+
+        // extracters are candidates for the metadata extraction pseudo-mimetype only, ordered by priority and name for stable selection
+        final Comparator<ExtracterCandidate> extracterOrder = Comparator.<ExtracterCandidate> comparingInt(c -> c.priority)
+                .thenComparing(c -> c.candidate.transformerName);
+        final Map<String, List<ExtracterCandidate>> extracterCandidatesBySource = new HashMap<>();
+        this.registeredExtracters.values().forEach(extracter -> {
+            final String name = extracter.getName();
+            final OptionSchema optionSchema = this.compileOptionSchema(name, extracter.getTransformOptions());
+            this.extractionsByExtracter.get(name).forEach(extraction -> {
+                final Candidate candidate = new Candidate(name, extraction.getMaxSourceSizeBytes(), optionSchema);
+                extracterCandidatesBySource.computeIfAbsent(extraction.getSourceMediaType(), k -> new ArrayList<>())
+                        .add(new ExtracterCandidate(candidate, extraction.getPriority()));
+            });
+        });
+        final Map<String, PairCandidates> extracterCandidates = new HashMap<>();
+        extracterCandidatesBySource.forEach((sourceMimetype, sourceCandidates) -> extracterCandidates.put(sourceMimetype,
+                new PairCandidates(sourceCandidates.stream().sorted(extracterOrder).map(c -> c.candidate).toArray(Candidate[]::new))));
+
+        this.lookupIndex = new LookupIndex(mimetypeIds, candidates, optionSchemas, extracterCandidates);
+    }
 
-        final String transformerName = transformer.getName();
-        final boolean allRequiredOptionsProvided = transformOptions.entrySet().stream().filter(Entry::getValue).map(Entry::getKey)
-                .allMatch(k -> (options.containsKey(k) && options.get(k) != null && !options.get(k).isBlank())
-                        || this.getDefaultOption(transformerName, k) != null);
-        final boolean containsOnlySupportedOptions = options.entrySet().stream()
-                .filter(e -> e.getValue() != null && !e.getValue().isBlank()).map(Entry::getKey)
-                .filter(Predicate.not(nonSelectorParameterNames::contains)).allMatch(transformOptions::containsKey);
+    private OptionSchema compileOptionSchema(final String name, final Collection<String> transformOptions)
+    {
+        final long[] supportedOptions = new long[this.getOptionWordCount()];
+        // later occurrences of an option override the requirement of earlier occurrences
+        final Map<String, OptionRequirement> requirementByOption = new LinkedHashMap<>();
+        transformOptions.forEach(profile -> this.rootTransformOptions.get(profile)
+                .forEach(option -> this.compileOptionFields(option, true, false, null, supportedOptions, requirementByOption)));
 
-        LOGGER.debug("Option support check result for transformer {}: allRequiredOptionsProvided={} containsOnlySupportedOptions={}",
-                transformerName, allRequiredOptionsProvided, containsOnlySupportedOptions);
+        final OptionRequirement[] requirements = requirementByOption.values().stream().filter(Objects::nonNull)
+                .toArray(OptionRequirement[]::new);
 
-        return allRequiredOptionsProvided && containsOnlySupportedOptions;
+        final Map<String, String> defaultOptions = new HashMap<>();
+        for (final String option : requirementByOption.keySet())
+        {
+            final String value = this.getDefaultOption(name, option);
+            if (value != null)
+            {
+                defaultOptions.put(option, value);
+            }
+        }
+
+        return new OptionSchema(name, supportedOptions, requirements, Collections.unmodifiableMap(defaultOptions));
     }
 
-    private void collectOptionFields(final TransformOption currentElement, final boolean isRoot, final boolean triggerRequirement,
-            final Map<String, Boolean> requiredFlagByOption, final Map<String, String> providedOptions)
+    private void compileOptionFields(final TransformOption currentElement, final boolean isRoot, final boolean unconditionallyTriggered,
+            final long[] triggeringOptions, final long[] supportedOptions, final Map<String, OptionRequirement> requirementByOption)
     {
         if (currentElement instanceof TransformOptionGroup)
         {
             // due to Alfresco's engine.json structure, root groups can never be trigger sub-elements' required state by being flagged
-            // required themselves
-            final boolean triggerSubElementRequirement = (!isRoot && currentElement.isRequired())
-                    || this.isOptionPresent(currentElement, providedOptions);
-            ((TransformOptionGroup) currentElement).getTransformOptions().stream().forEach(
-                    se -> this.collectOptionFields(se, false, triggerSubElementRequirement, requiredFlagByOption, providedOptions));
+            // required themselves - otherwise, sub-elements are required if the group is required or any of its elements is present
+            final boolean triggersSubElementRequirement = !isRoot && currentElement.isRequired();
+            final long[] subElementTriggeringOptions = new long[this.getOptionWordCount()];
+            this.collectOptionBits(currentElement, subElementTriggeringOptions);
+            ((TransformOptionGroup) currentElement).getTransformOptions().stream().forEach(se -> this.compileOptionFields(se, false,
+                    triggersSubElementRequirement, subElementTriggeringOptions, supportedOptions, requirementByOption));
         }
         else if (currentElement instanceof TransformOptionValue)
         {
-            requiredFlagByOption.put(((TransformOptionValue) currentElement).getName(), currentElement.isRequired() && triggerRequirement);
+            final String name = ((TransformOptionValue) currentElement).getName();
+            final int bit = this.optionBitIndices.get(name);
+            setBit(supportedOptions, bit);
+
+            // root level values are never required
+            final boolean mayBeRequired = currentElement.isRequired() && triggeringOptions != null;
+            requirementByOption.put(name,
+                    mayBeRequired ? new OptionRequirement(name, bit, unconditionallyTriggered, triggeringOptions) : null);
         }
     }
 
-    /**
-     * Checks whether a particular supported option (group) is present / provided via the client-provided option map.
-     *
-     * @param currentElement
-     *     the element to process
-     * @param providedOptions
-     *     the options provided by the client
-     * @return {@code true} if the element (or any of its sub-elements) is present, {@code false} otherwise
-     */
-    private boolean isOptionPresent(final TransformOption currentElement, final Map<String, String> providedOptions)
+    private void collectOptionBits(final TransformOption currentElement, final long[] optionBits)
     {
-        boolean present = false;
         if (currentElement instanceof TransformOptionGroup)
         {
-            present = ((TransformOptionGroup) currentElement).getTransformOptions().stream()
-                    .anyMatch(se -> this.isOptionPresent(se, providedOptions));
+            ((TransformOptionGroup) currentElement).getTransformOptions().forEach(se -> this.collectOptionBits(se, optionBits));
         }
         else if (currentElement instanceof TransformOptionValue)
         {
-            final String name = ((TransformOptionValue) currentElement).getName();
-            final String value = providedOptions.get(name);
-            present = value != null && !value.isBlank();
+            setBit(optionBits, this.optionBitIndices.get(((TransformOptionValue) currentElement).getName()));
+        }
+    }
+
+    private boolean collectProvidedOptions(final Map<String, String> options, final long[] providedOptions,
+            final long[] providedSelectorOptions)
+    {
+        boolean unknownSelectorOptionsProvided = false;
+        for (final Entry<String, String> option : options.entrySet())
+        {
+            final String value = option.getValue();
+            if (value != null && !value.isBlank())
+            {
+                final String name = option.getKey();
+                final boolean selector = !this.nonSelectorParameterNames.contains(name);
+                final Integer bit = this.optionBitIndices.get(name);
+                if (bit != null)
+                {
+                    setBit(providedOptions, bit);
+                    if (selector)
+                    {
+                        setBit(providedSelectorOptions, bit);
+                    }
+                }
+                else if (selector)
+                {
+                    unknownSelectorOptionsProvided = true;
+                }
+            }
         }
-        return present;
+        return unknownSelectorOptionsProvided;
+    }
+
+    private int getOptionWordCount()
+    {
+        return (this.optionBitIndices.size() + 63) / 64;
+    }
+
+    private static void setBit(final long[] words, final int bit)
+    {
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    private static boolean isBitSet(final long[] words, final int bit)
+    {
+        return (words[bit >>> 6] & (1L << bit)) != 0;
     }
 
     private String getDefaultOption(final String transformerName, final String optionName)
@@ -405,9 +599,22 @@ public class RegistryImpl implements Registry
                         "Transformer option root group " + group + " has not been configured as a proper group with constituent elements");
             }
             this.rootTransformOptions.put(group, ((TransformOptionGroup) element).getTransformOptions());
+            this.collectOptionBitIndices(element);
         });
     }
 
+    private void collectOptionBitIndices(final TransformOption currentElement)
+    {
+        if (currentElement instanceof TransformOptionGroup)
+        {
+            ((TransformOptionGroup) currentElement).getTransformOptions().forEach(this::collectOptionBitIndices);
+        }
+        else if (currentElement instanceof TransformOptionValue)
+        {
+            this.optionBitIndices.putIfAbsent(((TransformOptionValue) currentElement).getName(), this.optionBitIndices.size());
+        }
+    }
+
     private TransformOption readElement(final String elementName, final Collection<String> elementsOnPath)
     {
         final boolean required = this.context.getBooleanProperty("transformerOptions.element." + elementName + ".required", false);
@@ -556,4 +763,260 @@ public class RegistryImpl implements Registry
             return this.supportedTransformation;
         }
     }
+
+    private static class LookupIndex
+    {
+
+        private final Map<String, Integer> mimetypeIds;
+
+        private final PairCandidates[][] candidates;
+
+        private final Map<String, OptionSchema> optionSchemas;
+
+        private final Map<String, PairCandidates> extracterCandidates;
+
+        // bound to the index, so that any registration implicitly invalidates cached selections
+        private final Map<SelectionKey, Optional<String>> selectionCache = new ConcurrentHashMap<>();
+
+        private LookupIndex(final Map<String, Integer> mimetypeIds, final PairCandidates[][] candidates,
+                final Map<String, OptionSchema> optionSchemas, final Map<String, PairCandidates> extracterCandidates)
+        {
+            this.mimetypeIds = mimetypeIds;
+            this.candidates = candidates;
+            this.optionSchemas = optionSchemas;
+            this.extracterCandidates = extracterCandidates;
+        }
+    }
+
+    private static class PairCandidates
+    {
+
+        private final Candidate[] candidates;
+
+        private final long[] sizeLimits;
+
+        private PairCandidates(final Candidate[] candidates)
+        {
+            this.candidates = candidates;
+            this.sizeLimits = Arrays.stream(candidates).mapToLong(c -> c.maxSourceSizeBytes).filter(l -> l >= 0).sorted().distinct()
+                    .toArray();
+        }
+
+        private int getSizeBucket(final long sourceSizeBytes)
+        {
+            // all source sizes within the same bucket are accepted by the same candidates
+            int bucket = 0;
+            while (bucket < this.sizeLimits.length && this.sizeLimits[bucket] < sourceSizeBytes)
+            {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private Optional<String> select(final long sourceSizeBytes, final long[] providedOptions, final long[] providedSelectorOptions,
+                final boolean unknownSelectorOptionsProvided)
+        {
+            Optional<String> result = Optional.empty();
+            // candidates are inherently sorted by priority (only)
+            for (int idx = 0; idx < this.candidates.length && result.isEmpty(); idx++)
+            {
+                final Candidate candidate = this.candidates[idx];
+                if (candidate.accepts(sourceSizeBytes, providedOptions, providedSelectorOptions, unknownSelectorOptionsProvided))
+                {
+                    result = Optional.of(candidate.transformerName);
+                }
+            }
+            return result;
+        }
+
+        private boolean supports(final String transformerName, final long sourceSizeBytes, final long[] providedOptions,
+                final long[] providedSelectorOptions, final boolean unknownSelectorOptionsProvided)
+        {
+            boolean supported = false;
+            for (int idx = 0; idx < this.candidates.length && !supported; idx++)
+            {
+                final Candidate candidate = this.candidates[idx];
+                supported = candidate.transformerName.equals(transformerName)
+                        && candidate.accepts(sourceSizeBytes, providedOptions, providedSelectorOptions, unknownSelectorOptionsProvided);
+            }
+            return supported;
+        }
+    }
+
+    private static class SelectionKey
+    {
+
+        private final PairCandidates pairCandidates;
+
+        private final int sizeBucket;
+
+        private final long[] providedOptions;
+
+        private final long[] providedSelectorOptions;
+
+        private final boolean unknownSelectorOptionsProvided;
+
+        private final int hashCode;
+
+        private SelectionKey(final PairCandidates pairCandidates, final int sizeBucket, final long[] providedOptions,
+                final long[] providedSelectorOptions, final boolean unknownSelectorOptionsProvided)
+        {
+            this.pairCandidates = pairCandidates;
+            this.sizeBucket = sizeBucket;
+            this.providedOptions = providedOptions;
+            this.providedSelectorOptions = providedSelectorOptions;
+            this.unknownSelectorOptionsProvided = unknownSelectorOptionsProvided;
+
+            int hashCode = System.identityHashCode(pairCandidates);
+            hashCode = 31 * hashCode + sizeBucket;
+            hashCode = 31 * hashCode + Arrays.hashCode(providedOptions);
+            hashCode = 31 * hashCode + Arrays.hashCode(providedSelectorOptions);
+            hashCode = 31 * hashCode + (unknownSelectorOptionsProvided ? 1 : 0);
+            this.hashCode = hashCode;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof SelectionKey))
+            {
+                return false;
+            }
+            final SelectionKey other = (SelectionKey) obj;
+            // candidates are unique per source / target pair within an index
+            return this.pairCandidates == other.pairCandidates && this.sizeBucket == other.sizeBucket
+                    && this.unknownSelectorOptionsProvided == other.unknownSelectorOptionsProvided
+                    && Arrays.equals(this.providedOptions, other.providedOptions)
+                    && Arrays.equals(this.providedSelectorOptions, other.providedSelectorOptions);
+        }
+    }
+
+    private static class Candidate
+    {
+
+        private final String transformerName;
+
+        private final long maxSourceSizeBytes;
+
+        private final OptionSchema optionSchema;
+
+        private Candidate(final String transformerName, final long maxSourceSizeBytes, final OptionSchema optionSchema)
+        {
+            this.transformerName = transformerName;
+            this.maxSourceSizeBytes = maxSourceSizeBytes;
+            this.optionSchema = optionSchema;
+        }
+
+        private boolean accepts(final long sourceSizeBytes, final long[] providedOptions, final long[] providedSelectorOptions,
+                final boolean unknownSelectorOptionsProvided)
+        {
+            // filter by source size limits if present, and option support
+            return (this.maxSourceSizeBytes < 0 || this.maxSourceSizeBytes >= sourceSizeBytes)
+                    && this.optionSchema.supportsOptions(providedOptions, providedSelectorOptions, unknownSelectorOptionsProvided);
+        }
+    }
+
+    private static class ExtracterCandidate
+    {
+
+        private final Candidate candidate;
+
+        private final int priority;
+
+        private ExtracterCandidate(final Candidate candidate, final int priority)
+        {
+            this.candidate = candidate;
+            this.priority = priority;
+        }
+    }
+
+    private static class OptionSchema
+    {
+
+        private final String transformerName;
+
+        private final long[] supportedOptions;
+
+        private final OptionRequirement[] requirements;
+
+        private final Map<String, String> defaultOptions;
+
+        private OptionSchema(final String transformerName, final long[] supportedOptions, final OptionRequirement[] requirements,
+                final Map<String, String> defaultOptions)
+        {
+            this.transformerName = transformerName;
+            this.supportedOptions = supportedOptions;
+            this.requirements = requirements;
+            this.defaultOptions = defaultOptions;
+        }
+
+        private boolean supportsOptions(final long[] providedOptions, final long[] providedSelectorOptions,
+                final boolean unknownSelectorOptionsProvided)
+        {
+            boolean containsOnlySupportedOptions = !unknownSelectorOptionsProvided;
+            for (int idx = 0; idx < providedSelectorOptions.length && containsOnlySupportedOptions; idx++)
+            {
+                containsOnlySupportedOptions = (providedSelectorOptions[idx] & ~this.supportedOptions[idx]) == 0;
+            }
+
+            boolean allRequiredOptionsProvided = true;
+            for (int idx = 0; idx < this.requirements.length && allRequiredOptionsProvided; idx++)
+            {
+                final OptionRequirement requirement = this.requirements[idx];
+                allRequiredOptionsProvided = !requirement.isTriggered(providedOptions) || isBitSet(providedOptions, requirement.bit)
+                        || this.defaultOptions.containsKey(requirement.name);
+            }
+
+            LOGGER.debug("Option support check result for transformer {}: allRequiredOptionsProvided={} containsOnlySupportedOptions={}",
+                    this.transformerName, allRequiredOptionsProvided, containsOnlySupportedOptions);
+
+            return allRequiredOptionsProvided && containsOnlySupportedOptions;
+        }
+    }
+
+    private static class OptionRequirement
+    {
+
+        private final String name;
+
+        private final int bit;
+
+        private final boolean unconditional;
+
+        private final long[] triggeringOptions;
+
+        private OptionRequirement(final String name, final int bit, final boolean unconditional, final long[] triggeringOptions)
+        {
+            this.name = name;
+            this.bit = bit;
+            this.unconditional = unconditional;
+            this.triggeringOptions = triggeringOptions;
+        }
+
+        private boolean isTriggered(final long[] providedOptions)
+        {
+            boolean triggered = this.unconditional;
+            for (int idx = 0; idx < providedOptions.length && !triggered; idx++)
+            {
+                triggered = (providedOptions[idx] & this.triggeringOptions[idx]) != 0;
+            }
+            return triggered;
+        }
+    }
 }
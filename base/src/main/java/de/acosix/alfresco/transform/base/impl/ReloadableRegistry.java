@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.alfresco.transform.config.TransformOption;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.MetadataExtracter;
+import de.acosix.alfresco.transform.base.Registry;
+import de.acosix.alfresco.transform.base.Transformer;
+
+/**
+ * Instances of this class provide a registry which can be rebuilt from a reloaded configuration at runtime. Any reload creates a new,
+ * fully initialised registry snapshot, which is then atomically swapped in for subsequent lookups, while requests already in progress
+ * continue to use the {@link #snapshot() snapshot} they have already obtained. Transformer instances themselves are not recreated, so only
+ * configuration handled by the registry (transform options, supported transformations, priorities, size limits, default options, and
+ * pipeline / failover transformers) is affected by a reload.
+ *
+ * @author Axel Faust
+ */
+public class ReloadableRegistry implements Registry
+{
+
+    private final List<Transformer> transformers = new ArrayList<>();
+
+    private final List<MetadataExtracter> metadataExtracters = new ArrayList<>();
+
+    private Context context;
+
+    private volatile Registry delegate;
+
+    public ReloadableRegistry(final Context context)
+    {
+        this.context = context;
+        this.delegate = new RegistryImpl(context);
+    }
+
+    /**
+     * Rebuilds the registry from a reloaded configuration and swaps it in for subsequent lookups. If rebuilding fails, the previous
+     * registry remains in effect.
+     *
+     * @param context
+     *            the reloaded configuration
+     * @throws IllegalStateException
+     *             if the reloaded configuration is invalid
+     */
+    public synchronized void reload(final Context context)
+    {
+        final Registry registry = new RegistryImpl(context);
+        this.transformers.forEach(transformer -> registry.registerTransformer(reconfigure(transformer, context)));
+        this.metadataExtracters.forEach(registry::registerMetadataExtracter);
+
+        this.context = context;
+        this.delegate = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void registerTransformer(final Transformer transformer)
+    {
+        this.delegate.registerTransformer(reconfigure(transformer, this.context));
+        this.transformers.add(transformer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void registerMetadataExtracter(final MetadataExtracter metadataExtracter)
+    {
+        this.delegate.registerMetadataExtracter(metadataExtracter);
+        this.metadataExtracters.add(metadataExtracter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Registry snapshot()
+    {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Transformer getTransformer(final String name)
+    {
+        return this.delegate.getTransformer(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MetadataExtracter getMetadataExtractor(final String name)
+    {
+        return this.delegate.getMetadataExtractor(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<String> findTransformer(final String sourceMimetype, final long sourceSizeBytes, final String targetMimetype,
+            final Map<String, String> options)
+    {
+        return this.delegate.findTransformer(sourceMimetype, sourceSizeBytes, targetMimetype, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsTransformation(final String transformerName, final String sourceMimetype, final long sourceSizeBytes,
+            final String targetMimetype, final Map<String, String> options)
+    {
+        return this.delegate.supportsTransformation(transformerName, sourceMimetype, sourceSizeBytes, targetMimetype, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<String> findMetadataExtracter(final String sourceMimetype, final long sourceSizeBytes,
+            final Map<String, String> options)
+    {
+        return this.delegate.findMetadataExtracter(sourceMimetype, sourceSizeBytes, options);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Set<TransformOption>> getAllRootTransformOptions()
+    {
+        return this.delegate.getAllRootTransformOptions();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> getDefaultOptions(final String transformerName)
+    {
+        return this.delegate.getDefaultOptions(transformerName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTransformConfigJSON(final Writer writer) throws IOException
+    {
+        this.delegate.writeTransformConfigJSON(writer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getTransformConfigJSON()
+    {
+        return this.delegate.getTransformConfigJSON();
+    }
+
+    private static Transformer reconfigure(final Transformer transformer, final Context context)
+    {
+        Transformer result = transformer;
+        // only transformers based on the common configuration state can have their configuration re-read
+        if (transformer instanceof AbstractTransformerConfigState)
+        {
+            final AbstractTransformerConfigState configState = (AbstractTransformerConfigState) transformer;
+            if (configState.context != context)
+            {
+                result = new ReconfiguredTransformer(transformer, configState.getConfigKeyPrefix(), context);
+            }
+        }
+        return result;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package de.acosix.alfresco.transform.base.impl;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -29,6 +31,7 @@ import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.DefaultHandler;
 import org.eclipse.jetty.server.handler.HandlerList;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.ExecutorThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
@@ -80,7 +83,7 @@ public class TransformerApplication
     public TransformerApplication()
     {
         this.context = this.createContext();
-        this.registry = new RegistryImpl(this.context);
+        this.registry = this.createRegistry();
         this.transformationLog = this.createTransformationLog();
         this.sharedFileAccessor = this.createSharedFileAccessor();
 
@@ -92,6 +95,7 @@ public class TransformerApplication
     {
         final Server server = this.setupServer();
         this.setupTransformers();
+        this.setupConfigurationReload(server);
 
         try
         {
@@ -115,6 +119,59 @@ public class TransformerApplication
         return new ContextImpl();
     }
 
+    protected Context createReloadedContext()
+    {
+        final Context context;
+        if (this.context instanceof ContextImpl)
+        {
+            context = new ContextImpl(((ContextImpl) this.context).tempDir);
+        }
+        else
+        {
+            context = this.createContext();
+        }
+        return context;
+    }
+
+    protected Registry createRegistry()
+    {
+        final Registry registry;
+        if (this.context.getBooleanProperty("application.configReload.enabled", false))
+        {
+            registry = new ReloadableRegistry(this.context);
+        }
+        else
+        {
+            registry = new RegistryImpl(this.context);
+        }
+        return registry;
+    }
+
+    protected void setupConfigurationReload(final Server server)
+    {
+        if (this.registry instanceof ReloadableRegistry)
+        {
+            final Path configFile = Paths.get("transformer.properties");
+            LOGGER.info("Watching configuration file {} for changes", configFile.toAbsolutePath());
+            final ConfigurationReloader reloader = new ConfigurationReloader(this.context, configFile, this::createReloadedContext,
+                    (ReloadableRegistry) this.registry);
+
+            server.addEventListener(new LifeCycle.Listener()
+            {
+
+                /**
+                 *
+                 * {@inheritDoc}
+                 */
+                @Override
+                public void lifeCycleStopped(final LifeCycle event)
+                {
+                    reloader.shutdown();
+                }
+            });
+        }
+    }
+
     protected TransformationLog createTransformationLog()
     {
         return new LocalTransformationLog(this.context);
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.acosix.alfresco.transform.base.impl.ContextImpl;
+import de.acosix.alfresco.transform.base.impl.LocalTransformationLog;
+import de.acosix.alfresco.transform.base.impl.NoOpTransformer;
+import de.acosix.alfresco.transform.base.impl.RegistryImpl;
+
+/**
+ * Verifies the entity tag handling of {@link ConfigHandler}, using a server on the loopback interface and transformers defined in the
+ * test configuration.
+ *
+ * @author Axel Faust
+ */
+public class ConfigHandlerTest
+{
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ContextImpl context;
+
+    private RegistryImpl registry;
+
+    private Server server;
+
+    private URI configUri;
+
+    private HttpClient client;
+
+    /**
+     * Starts a server handling config requests for a registry with a single transformer.
+     *
+     * @throws Exception
+     *     if the server cannot be started
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        this.context = new ContextImpl(this.tempFolder.getRoot().toPath());
+        this.registry = new RegistryImpl(this.context);
+        this.registry.registerTransformer(new NoOpTransformer("Alpha", this.context, new LocalTransformationLog(this.context)));
+
+        this.server = new Server();
+        final ServerConnector connector = new ServerConnector(this.server);
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        this.server.addConnector(connector);
+        this.server.setHandler(new ConfigHandler(this.registry));
+        this.server.start();
+
+        this.configUri = URI.create("http://127.0.0.1:" + connector.getLocalPort() + "/transform/config");
+        this.client = HttpClient.newHttpClient();
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @throws Exception
+     *     if the server cannot be stopped
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        if (this.server != null)
+        {
+            this.server.stop();
+        }
+    }
+
+    /**
+     * Verifies that the config is provided with an entity tag and that polls with a matching tag are answered without a body.
+     *
+     * @throws Exception
+     *     if the test fails unexpectedly
+     */
+    @Test
+    public void matchingETagYieldsNotModified() throws Exception
+    {
+        final HttpResponse<byte[]> response = this.get(null, null);
+        Assert.assertEquals(HttpStatus.OK_200, response.statusCode());
+        Assert.assertArrayEquals(this.registry.getTransformConfigJSON(), response.body());
+        Assert.assertTrue(response.headers().firstValue(HttpHeader.CONTENT_ENCODING.asString()).isEmpty());
+        Assert.assertEquals(HttpHeader.ACCEPT_ENCODING.asString(), response.headers().firstValue(HttpHeader.VARY.asString()).orElse(null));
+
+        final String eTag = response.headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+        Assert.assertNotNull("Config should be provided with an entity tag", eTag);
+        Assert.assertTrue("Entity tag should be strong", eTag.startsWith("\"") && eTag.endsWith("\""));
+
+        for (final String ifNoneMatch : new String[] { eTag, "W/" + eTag, "\"other\", " + eTag, "\"other\",W/" + eTag, "*" })
+        {
+            final HttpResponse<byte[]> notModified = this.get(ifNoneMatch, null);
+            Assert.assertEquals(ifNoneMatch, HttpStatus.NOT_MODIFIED_304, notModified.statusCode());
+            Assert.assertEquals(ifNoneMatch, 0, notModified.body().length);
+            Assert.assertEquals(ifNoneMatch, eTag, notModified.headers().firstValue(HttpHeader.ETAG.asString()).orElse(null));
+        }
+
+        for (final String ifNoneMatch : new String[] { "\"other\"", eTag.substring(0, eTag.length() - 1) + "x\"", "W/\"other\"" })
+        {
+            final HttpResponse<byte[]> modified = this.get(ifNoneMatch, null);
+            Assert.assertEquals(ifNoneMatch, HttpStatus.OK_200, modified.statusCode());
+            Assert.assertArrayEquals(ifNoneMatch, this.registry.getTransformConfigJSON(), modified.body());
+        }
+    }
+
+    /**
+     * Verifies that the compressed variant of the config has its own entity tag, which does not match the uncompressed variant.
+     *
+     * @throws Exception
+     *     if the test fails unexpectedly
+     */
+    @Test
+    public void gzipVariantHasDistinctETag() throws Exception
+    {
+        final String eTag = this.get(null, null).headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+
+        final HttpResponse<byte[]> response = this.get(null, "deflate, gzip;q=0.5");
+        Assert.assertEquals(HttpStatus.OK_200, response.statusCode());
+        Assert.assertEquals("gzip", response.headers().firstValue(HttpHeader.CONTENT_ENCODING.asString()).orElse(null));
+        Assert.assertArrayEquals(this.registry.getTransformConfigJSON(), gunzip(response.body()));
+
+        final String gzipETag = response.headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+        Assert.assertNotNull("Compressed config should be provided with an entity tag", gzipETag);
+        Assert.assertNotEquals(eTag, gzipETag);
+
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED_304, this.get(gzipETag, "gzip").statusCode());
+        Assert.assertEquals(HttpStatus.OK_200, this.get(eTag, "gzip").statusCode());
+        Assert.assertEquals(HttpStatus.OK_200, this.get(gzipETag, null).statusCode());
+
+        // explicitly refused coding
+        final HttpResponse<byte[]> refused = this.get(eTag, "gzip;q=0");
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED_304, refused.statusCode());
+        Assert.assertTrue(refused.headers().firstValue(HttpHeader.CONTENT_ENCODING.asString()).isEmpty());
+    }
+
+    /**
+     * Verifies that a registration changes the entity tag, so that a previously provided config is no longer considered current.
+     *
+     * @throws Exception
+     *     if the test fails unexpectedly
+     */
+    @Test
+    public void registrationChangesETag() throws Exception
+    {
+        final String eTag = this.get(null, null).headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+        final String gzipETag = this.get(null, "gzip").headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED_304, this.get(eTag, null).statusCode());
+
+        this.registry.registerTransformer(new NoOpTransformer("Gamma", this.context, new LocalTransformationLog(this.context)));
+
+        final HttpResponse<byte[]> response = this.get(eTag, null);
+        Assert.assertEquals(HttpStatus.OK_200, response.statusCode());
+        Assert.assertArrayEquals(this.registry.getTransformConfigJSON(), response.body());
+
+        final String newETag = response.headers().firstValue(HttpHeader.ETAG.asString()).orElse(null);
+        Assert.assertNotEquals(eTag, newETag);
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED_304, this.get(newETag, null).statusCode());
+        Assert.assertEquals(HttpStatus.OK_200, this.get(gzipETag, "gzip").statusCode());
+    }
+
+    /**
+     * Verifies that only {@code GET} requests are supported.
+     *
+     * @throws Exception
+     *     if the test fails unexpectedly
+     */
+    @Test
+    public void nonGetRequestIsRejected() throws Exception
+    {
+        final HttpRequest request = HttpRequest.newBuilder(this.configUri).POST(BodyPublishers.noBody()).build();
+        final HttpResponse<byte[]> response = this.client.send(request, BodyHandlers.ofByteArray());
+        Assert.assertEquals(HttpStatus.METHOD_NOT_ALLOWED_405, response.statusCode());
+    }
+
+    private HttpResponse<byte[]> get(final String ifNoneMatch, final String acceptEncoding) throws IOException, InterruptedException
+    {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(this.configUri).GET();
+        if (ifNoneMatch != null)
+        {
+            builder.header(HttpHeader.IF_NONE_MATCH.asString(), ifNoneMatch);
+        }
+        if (acceptEncoding != null)
+        {
+            builder.header(HttpHeader.ACCEPT_ENCODING.asString(), acceptEncoding);
+        }
+        return this.client.send(builder.build(), BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(final byte[] body) throws IOException
+    {
+        try (final InputStream is = new GZIPInputStream(new ByteArrayInputStream(body)))
+        {
+            return is.readAllBytes();
+        }
+    }
+}
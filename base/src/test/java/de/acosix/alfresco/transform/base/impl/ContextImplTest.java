@@ -0,0 +1,281 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.acosix.alfresco.transform.base.Context;
+
+/**
+ * Verifies the configuration snapshot of {@link ContextImpl}, using the {@code test.context.*} properties of the test configuration.
+ *
+ * @author Axel Faust
+ */
+public class ContextImplTest
+{
+
+    private static final String PREFIX = "test.context.";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ContextImpl context;
+
+    /**
+     * Sets up a context from the test configuration.
+     */
+    @Before
+    public void setUp()
+    {
+        this.context = new ContextImpl(this.tempFolder.getRoot().toPath());
+    }
+
+    /**
+     * Verifies that blank values are treated like undefined values by all accessors with default values, and as empty by multi-valued
+     * access, while still being available as raw values.
+     */
+    @Test
+    public void blankValues()
+    {
+        for (final String name : Arrays.asList("blank", "whitespace", "blankPlaceholder", "undefined"))
+        {
+            final String propertyName = PREFIX + name;
+            Assert.assertEquals(propertyName, "default", this.context.getStringProperty(propertyName, "default"));
+            Assert.assertTrue(propertyName, this.context.getBooleanProperty(propertyName, true));
+            Assert.assertEquals(propertyName, 5, this.context.getIntegerProperty(propertyName, 5, 0, 10));
+            Assert.assertNull(propertyName, this.context.getIntegerProperty(propertyName, 0, 10));
+            Assert.assertEquals(propertyName, 7L, this.context.getLongProperty(propertyName, 7L, 0L, 10L));
+            Assert.assertNull(propertyName, this.context.getLongProperty(propertyName, 0L, 10L));
+            Assert.assertEquals(propertyName, Collections.emptyList(), this.context.getMultiValuedProperty(propertyName));
+        }
+
+        Assert.assertEquals("", this.context.getStringProperty(PREFIX + "blank"));
+        Assert.assertEquals("  ", this.context.getStringProperty(PREFIX + "whitespace"));
+        Assert.assertEquals("", this.context.getStringProperty(PREFIX + "blankPlaceholder"));
+        Assert.assertNull(this.context.getStringProperty(PREFIX + "undefined"));
+    }
+
+    /**
+     * Verifies the pre-parsed numeric values and the validation of numeric values and ranges on access.
+     */
+    @Test
+    public void numericValues()
+    {
+        Assert.assertEquals(42, this.context.getIntegerProperty(PREFIX + "integer", 0, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        Assert.assertEquals(Integer.valueOf(-7), this.context.getIntegerProperty(PREFIX + "negative", -10, 0));
+        Assert.assertEquals(9876543210L, this.context.getLongProperty(PREFIX + "long", 0, Long.MIN_VALUE, Long.MAX_VALUE));
+        Assert.assertEquals(Long.valueOf(42), this.context.getLongProperty(PREFIX + "numericPlaceholder", 0, 100));
+
+        assertFails(() -> this.context.getIntegerProperty(PREFIX + "long", 0, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertFails(() -> this.context.getLongProperty(PREFIX + "outOfRange", 0, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertFails(() -> this.context.getIntegerProperty(PREFIX + "nonNumeric", 0, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertFails(() -> this.context.getIntegerProperty(PREFIX + "string", 0, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertFails(() -> this.context.getIntegerProperty(PREFIX + "integer", 0, 41));
+        assertFails(() -> this.context.getIntegerProperty(PREFIX + "integer", 43, 50));
+        assertFails(() -> this.context.getLongProperty(PREFIX + "negative", 0, 0, 10));
+    }
+
+    /**
+     * Verifies the pre-split multi-valued values, and that callers cannot modify the snapshot via the returned lists.
+     */
+    @Test
+    public void multiValuedValues()
+    {
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), this.context.getMultiValuedProperty(PREFIX + "list"));
+        Assert.assertEquals(Arrays.asList("a", "b"), this.context.getMultiValuedProperty(PREFIX + "listWithBlanks"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), this.context.getMultiValuedProperty(PREFIX + "listPlaceholder"));
+        Assert.assertEquals(Collections.singletonList("value"), this.context.getMultiValuedProperty(PREFIX + "string"));
+
+        final List<String> values = this.context.getMultiValuedProperty(PREFIX + "list");
+        values.add("x");
+        values.remove("a");
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), this.context.getMultiValuedProperty(PREFIX + "list"));
+    }
+
+    /**
+     * Verifies that placeholders are resolved in the snapshot, and that unresolvable placeholders only fail on access.
+     */
+    @Test
+    public void placeholders()
+    {
+        Assert.assertEquals("value-suffix", this.context.getStringProperty(PREFIX + "placeholder"));
+        Assert.assertEquals("value", this.context.getStringProperty(PREFIX + "nestedPlaceholder"));
+
+        final String unresolvable = PREFIX + "unresolvable";
+        Assert.assertTrue(this.context.getPropertyNames().contains(unresolvable));
+        assertFails(() -> this.context.getStringProperty(unresolvable));
+        assertFails(() -> this.context.getStringProperty(unresolvable, "default"));
+        assertFails(() -> this.context.getIntegerProperty(unresolvable, 0, 0, 10));
+        assertFails(() -> this.context.getMultiValuedProperty(unresolvable));
+    }
+
+    /**
+     * Verifies that the pre-parsed accessors of the snapshot yield the same values as the default accessors of {@link Context}, which
+     * parse the resolved string value on every call, and reject the same values.
+     */
+    @Test
+    public void typedAccessorsMatchDefaultImplementation()
+    {
+        final Context reference = new StringPropertyContext(this.context);
+        for (final String propertyName : this.context.getPropertyNames())
+        {
+            if (propertyName.startsWith(PREFIX))
+            {
+                assertSameOutcome(propertyName, c -> c.getStringProperty(propertyName, "default"), reference);
+                assertSameOutcome(propertyName, c -> c.getBooleanProperty(propertyName, false), reference);
+                assertSameOutcome(propertyName, c -> c.getIntegerProperty(propertyName, -1, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                        reference);
+                assertSameOutcome(propertyName, c -> c.getIntegerProperty(propertyName, 0, 50), reference);
+                assertSameOutcome(propertyName, c -> c.getLongProperty(propertyName, -1, Long.MIN_VALUE, Long.MAX_VALUE), reference);
+                assertSameOutcome(propertyName, c -> c.getLongProperty(propertyName, -10, 10), reference);
+                assertSameOutcome(propertyName, c -> c.getMultiValuedProperty(propertyName), reference);
+            }
+        }
+    }
+
+    private void assertSameOutcome(final String propertyName, final Function<Context, Object> accessor, final Context reference)
+    {
+        Object expected;
+        try
+        {
+            expected = accessor.apply(reference);
+        }
+        catch (final RuntimeException e)
+        {
+            // default implementations fail with NumberFormatException for numeric values out of range
+            expected = RuntimeException.class;
+        }
+
+        Object actual;
+        try
+        {
+            actual = accessor.apply(this.context);
+        }
+        catch (final IllegalStateException e)
+        {
+            actual = RuntimeException.class;
+        }
+
+        Assert.assertEquals(propertyName, expected, actual);
+    }
+
+    private static void assertFails(final Runnable accessor)
+    {
+        try
+        {
+            accessor.run();
+            Assert.fail("Access should have failed");
+        }
+        catch (final IllegalStateException expected)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Instances of this class only expose the raw string values of another context, so that all typed accessors use the default
+     * implementations of {@link Context}.
+     *
+     * @author Axel Faust
+     */
+    private static class StringPropertyContext implements Context
+    {
+
+        private final Context delegate;
+
+        private StringPropertyContext(final Context delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Path createTempFile(final String prefix, final String suffix)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Path createTempFileSubDirectory(final String directoryName)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void discardTempFile(final Path tempFile)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<String> getPropertyNames()
+        {
+            return this.delegate.getPropertyNames();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getStringProperty(final String propertyName)
+        {
+            return this.delegate.getStringProperty(propertyName);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <T extends SslContextFactory> T getSslContextFactory(final String sslPropertyNameBase, final Supplier<T> factoryProvider)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <T extends SslContextFactory> T getSslContextFactoryIfEnabled(final String sslPropertyNameBase,
+                final Supplier<T> factoryProvider)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.TransformationLog;
+import de.acosix.alfresco.transform.base.TransformationLog.MutableEntry;
+
+/**
+ * Instances of this class represent transformers which are only configured via the {@code transformer.<name>.*} properties of the test
+ * configuration and are never expected to actually transform any content.
+ *
+ * @author Axel Faust
+ */
+public class NoOpTransformer extends AbstractTransformer
+{
+
+    public NoOpTransformer(final String name, final Context context, final TransformationLog transformationLog)
+    {
+        super(name, context, transformationLog);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTransform(final MutableEntry logEntry, final Path sourceFile, final String sourceMimetype, final Path targetFile,
+            final String targetMimetype, final long timeout, final Map<String, String> options)
+    {
+        throw new UnsupportedOperationException("Transformer " + this.name + " is only used for tests of its configuration");
+    }
+}
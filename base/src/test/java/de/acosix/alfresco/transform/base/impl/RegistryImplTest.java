@@ -0,0 +1,427 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.base.impl;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+
+import org.alfresco.transform.config.SupportedSourceAndTarget;
+import org.alfresco.transform.config.TransformOption;
+import org.alfresco.transform.config.TransformOptionGroup;
+import org.alfresco.transform.config.TransformOptionValue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.acosix.alfresco.transform.base.MetadataExtracter;
+import de.acosix.alfresco.transform.base.RequestConstants;
+import de.acosix.alfresco.transform.base.TransformationLog;
+import de.acosix.alfresco.transform.base.Transformer;
+
+/**
+ * Verifies the transformer lookups of {@link RegistryImpl} against a straightforward linear scan of all supported transformations,
+ * using the transformers defined in the test configuration.
+ *
+ * @author Axel Faust
+ */
+public class RegistryImplTest
+{
+
+    private static final String TEXT = "text/plain";
+
+    private static final String HTML = "text/html";
+
+    private static final String PDF = "application/pdf";
+
+    private static final String PNG = "image/png";
+
+    private static final String SELECTION_CACHE_SIZE = "application.transformerSelectionCacheSize";
+
+    private static final List<String> MIMETYPES = Arrays.asList(TEXT, HTML, PDF, PNG, RequestConstants.METADATA_EXTRACT_MIMETYPE,
+            "application/octet-stream");
+
+    // around the size limits configured for the test transformers
+    private static final long[] SOURCE_SIZES = { 0, 1, 999, 1000, 1001, 4999, 5000, 5001, Long.MAX_VALUE };
+
+    private static final List<Map<String, String>> OPTION_VARIANTS = Arrays.asList(options(), options("resolution", "150"),
+            options("startPage", "1"), options("endPage", "3"), options("startPage", "1", "endPage", "2"), options("quality", "low"),
+            options("quality", "low", "language", "de"), options("colorMode", "gray"), options("language", "de"),
+            options("resolution", "150", "quality", "low"), options("resolution", " ", "quality", "low"),
+            options("timeout", "1000", "sourceEncoding", "UTF-8"), options("foo", "bar"), options("foo", " "));
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ContextImpl context;
+
+    private RegistryImpl registry;
+
+    private List<Transformer> transformers;
+
+    /**
+     * Sets up a registry with the transformers defined in the test configuration.
+     */
+    @Before
+    public void setUp()
+    {
+        this.initRegistry();
+    }
+
+    /**
+     * Verifies that lookups select the same transformer as a linear scan in priority order for all combinations of mimetypes, source
+     * sizes around the configured limits, and option variants.
+     */
+    @Test
+    public void findTransformerMatchesLinearScan()
+    {
+        this.assertLookupsMatchLinearScan();
+    }
+
+    /**
+     * Verifies that selections cached for a request signature remain correct for repeated lookups and for different source sizes
+     * within the same size bucket.
+     */
+    @Test
+    public void cachedSelectionsMatchLinearScan()
+    {
+        // first pass populates the cache, second pass is answered from it
+        this.assertLookupsMatchLinearScan();
+        this.assertLookupsMatchLinearScan();
+
+        // sizes in the same bucket of the size limits of Beta (1000 < size <= 5000), queried in different order
+        final Map<String, String> options = options("quality", "low");
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 5000, PDF, options));
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 1001, PDF, options));
+        Assert.assertEquals(Optional.of("Gamma"), this.registry.findTransformer(TEXT, 5001, PDF, options));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 1000, PDF, options()));
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 1000, PDF, options));
+    }
+
+    /**
+     * Verifies that selections cached before a registration are not used afterwards.
+     */
+    @Test
+    public void registrationInvalidatesCachedSelections()
+    {
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PNG, options()));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PNG, options()));
+
+        final Transformer delta = new NoOpTransformer("Delta", this.context, new LocalTransformationLog(this.context));
+        this.transformers.add(delta);
+        this.registry.registerTransformer(delta);
+
+        Assert.assertEquals(Optional.of("Delta"), this.registry.findTransformer(TEXT, 10, PNG, options()));
+        this.assertLookupsMatchLinearScan();
+    }
+
+    /**
+     * Verifies that lookups remain correct if the selection cache is constantly exceeding its bound or disabled.
+     */
+    @Test
+    public void boundedOrDisabledCacheMatchesLinearScan()
+    {
+        for (final String cacheSize : Arrays.asList("2", "0"))
+        {
+            System.setProperty(SELECTION_CACHE_SIZE, cacheSize);
+            try
+            {
+                this.initRegistry();
+            }
+            finally
+            {
+                System.clearProperty(SELECTION_CACHE_SIZE);
+            }
+
+            this.assertLookupsMatchLinearScan();
+            this.assertLookupsMatchLinearScan();
+        }
+    }
+
+    /**
+     * Verifies specific selections, so that the comparison with the linear scan is known to cover priorities, size limits, required
+     * options, default options, non-selector options and the metadata extraction pseudo-mimetype.
+     */
+    @Test
+    public void findTransformerSelectsByPrioritySizeAndOptions()
+    {
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PDF, options()));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 1000, PDF, options()));
+        // Beta requires the quality option and has no default for it, Gamma does
+        Assert.assertEquals(Optional.of("Gamma"), this.registry.findTransformer(TEXT, 1001, PDF, options()));
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 1001, PDF, options("quality", "low")));
+        Assert.assertEquals(Optional.of("Gamma"), this.registry.findTransformer(TEXT, 5001, PDF, options("quality", "low")));
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 10, PDF, options("quality", "low")));
+
+        // endPage is required as soon as any option of its group is provided
+        Assert.assertEquals(Optional.empty(), this.registry.findTransformer(TEXT, 10, PDF, options("startPage", "1")));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PDF, options("startPage", "1", "endPage", "2")));
+
+        // non-selector and blank options are irrelevant, unknown options are not
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PDF, options("timeout", "1000")));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(TEXT, 10, PDF, options("foo", " ")));
+        Assert.assertEquals(Optional.empty(), this.registry.findTransformer(TEXT, 10, PDF, options("foo", "bar")));
+
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(HTML, 10, PDF, options()));
+        Assert.assertEquals(Optional.of("Gamma"), this.registry.findTransformer(HTML, 10, PDF, options("language", "de")));
+        Assert.assertEquals(Optional.of("Alpha"), this.registry.findTransformer(HTML, Long.MAX_VALUE, PNG, options()));
+
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 10, RequestConstants.METADATA_EXTRACT_MIMETYPE,
+                options("quality", "low")));
+        Assert.assertEquals(Optional.empty(), this.registry.findTransformer(TEXT, 5001, RequestConstants.METADATA_EXTRACT_MIMETYPE,
+                options("quality", "low")));
+        Assert.assertEquals(Optional.empty(), this.registry.findTransformer(HTML, 10, RequestConstants.METADATA_EXTRACT_MIMETYPE,
+                options("quality", "low")));
+
+        Assert.assertEquals(Optional.empty(), this.registry.findTransformer("application/octet-stream", 10, PDF, options()));
+    }
+
+    /**
+     * Verifies that metadata extracters are selected by priority, with the name breaking ties, and filtered by size limits and option
+     * support, without affecting transformer lookups for the metadata extraction pseudo-mimetype.
+     */
+    @Test
+    public void findMetadataExtracterSelectsByPrioritySizeAndOptions()
+    {
+        this.registry.registerMetadataExtracter(new TestExtracter("ExtractTwo", Collections.emptySet(), TEXT, HTML));
+        this.registry.registerMetadataExtracter(new TestExtracter("ExtractThree", Collections.singleton("otherOptions"), TEXT));
+        this.registry.registerMetadataExtracter(new TestExtracter("ExtractOne", Collections.emptySet(), TEXT));
+
+        Assert.assertEquals(Optional.of("ExtractOne"), this.registry.findMetadataExtracter(TEXT, 10, options()));
+        Assert.assertEquals(Optional.of("ExtractOne"), this.registry.findMetadataExtracter(TEXT, 100, options("timeout", "1000")));
+        // ExtractThree requires the quality option
+        Assert.assertEquals(Optional.of("ExtractTwo"), this.registry.findMetadataExtracter(TEXT, 101, options()));
+        Assert.assertEquals(Optional.of("ExtractThree"), this.registry.findMetadataExtracter(TEXT, 101, options("quality", "low")));
+        Assert.assertEquals(Optional.of("ExtractThree"), this.registry.findMetadataExtracter(TEXT, 10, options("quality", "low")));
+        Assert.assertEquals(Optional.empty(), this.registry.findMetadataExtracter(TEXT, 10, options("foo", "bar")));
+
+        Assert.assertEquals(Optional.of("ExtractTwo"), this.registry.findMetadataExtracter(HTML, Long.MAX_VALUE, options()));
+        Assert.assertEquals(Optional.empty(), this.registry.findMetadataExtracter("message/rfc822", 10, options()));
+
+        Assert.assertEquals(Optional.of("Beta"), this.registry.findTransformer(TEXT, 10, RequestConstants.METADATA_EXTRACT_MIMETYPE,
+                options("quality", "low")));
+        this.assertLookupsMatchLinearScan();
+    }
+
+    /**
+     * Verifies that default options are limited to the options supported by each transformer.
+     */
+    @Test
+    public void getDefaultOptions()
+    {
+        Assert.assertEquals(options("resolution", "300"), this.registry.getDefaultOptions("Alpha"));
+        Assert.assertEquals(options(), this.registry.getDefaultOptions("Beta"));
+        Assert.assertEquals(options("quality", "high"), this.registry.getDefaultOptions("Gamma"));
+    }
+
+    private void initRegistry()
+    {
+        this.context = new ContextImpl(this.tempFolder.getRoot().toPath());
+        this.registry = new RegistryImpl(this.context);
+
+        final TransformationLog transformationLog = new LocalTransformationLog(this.context);
+        this.transformers = new ArrayList<>();
+        for (final String name : Arrays.asList("Alpha", "Beta", "Gamma"))
+        {
+            final Transformer transformer = new NoOpTransformer(name, this.context, transformationLog);
+            this.transformers.add(transformer);
+            this.registry.registerTransformer(transformer);
+        }
+    }
+
+    private void assertLookupsMatchLinearScan()
+    {
+        for (final String sourceMimetype : MIMETYPES)
+        {
+            for (final String targetMimetype : MIMETYPES)
+            {
+                for (final long sourceSize : SOURCE_SIZES)
+                {
+                    for (final Map<String, String> options : OPTION_VARIANTS)
+                    {
+                        final String description = sourceMimetype + " -> " + targetMimetype + " (" + sourceSize + " bytes) with "
+                                + options;
+                        Assert.assertEquals(description, this.linearScan(sourceMimetype, sourceSize, targetMimetype, options),
+                                this.registry.findTransformer(sourceMimetype, sourceSize, targetMimetype, options));
+
+                        for (final Transformer transformer : this.transformers)
+                        {
+                            Assert.assertEquals(transformer.getName() + " supports " + description,
+                                    this.linearScanSupports(transformer, sourceMimetype, sourceSize, targetMimetype, options),
+                                    this.registry.supportsTransformation(transformer.getName(), sourceMimetype, sourceSize,
+                                            targetMimetype, options));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // reference implementation, equivalent to lookups before introduction of the lookup index
+    private Optional<String> linearScan(final String sourceMimetype, final long sourceSize, final String targetMimetype,
+            final Map<String, String> options)
+    {
+        return this.transformers.stream()
+                .flatMap(transformer -> transformer.getSupportedTransformations().stream()
+                        .filter(t -> t.getSourceMediaType().equals(sourceMimetype) && t.getTargetMediaType().equals(targetMimetype))
+                        .map(t -> new SimpleEntry<>(transformer, t)))
+                .sorted(Comparator.comparingInt((final Entry<Transformer, SupportedSourceAndTarget> e) -> e.getValue().getPriority()))
+                .filter(e -> e.getValue().getMaxSourceSizeBytes() < 0 || e.getValue().getMaxSourceSizeBytes() >= sourceSize)
+                .filter(e -> this.supportsOptions(e.getKey(), options)).findFirst().map(e -> e.getKey().getName());
+    }
+
+    private boolean linearScanSupports(final Transformer transformer, final String sourceMimetype, final long sourceSize,
+            final String targetMimetype, final Map<String, String> options)
+    {
+        return transformer.getSupportedTransformations().stream()
+                .filter(t -> t.getSourceMediaType().equals(sourceMimetype) && t.getTargetMediaType().equals(targetMimetype))
+                .anyMatch(t -> (t.getMaxSourceSizeBytes() < 0 || t.getMaxSourceSizeBytes() >= sourceSize)
+                        && this.supportsOptions(transformer, options));
+    }
+
+    private boolean supportsOptions(final Transformer transformer, final Map<String, String> options)
+    {
+        final Map<String, Set<TransformOption>> rootTransformOptions = this.registry.getAllRootTransformOptions();
+        final Map<String, Boolean> requiredFlagByOption = new HashMap<>();
+        transformer.getTransformOptions().forEach(profile -> rootTransformOptions.get(profile)
+                .forEach(option -> this.collectOptionFields(option, true, false, requiredFlagByOption, options)));
+
+        final List<String> nonSelectorParameterNames = this.context.getMultiValuedProperty("application.nonSelectorParameterNames");
+
+        final boolean allRequiredOptionsProvided = requiredFlagByOption.entrySet().stream().filter(Entry::getValue).map(Entry::getKey)
+                .allMatch(k -> isSet(options.get(k))
+                        || isSet(this.context.getStringProperty("transformerDefaultOptions." + transformer.getName() + "." + k)));
+        final boolean containsOnlySupportedOptions = options.entrySet().stream().filter(e -> isSet(e.getValue())).map(Entry::getKey)
+                .filter(k -> !nonSelectorParameterNames.contains(k)).allMatch(requiredFlagByOption::containsKey);
+        return allRequiredOptionsProvided && containsOnlySupportedOptions;
+    }
+
+    private void collectOptionFields(final TransformOption currentElement, final boolean isRoot, final boolean triggerRequirement,
+            final Map<String, Boolean> requiredFlagByOption, final Map<String, String> options)
+    {
+        if (currentElement instanceof TransformOptionGroup)
+        {
+            final boolean triggerSubElementRequirement = (!isRoot && currentElement.isRequired())
+                    || this.isOptionPresent(currentElement, options);
+            ((TransformOptionGroup) currentElement).getTransformOptions()
+                    .forEach(se -> this.collectOptionFields(se, false, triggerSubElementRequirement, requiredFlagByOption, options));
+        }
+        else if (currentElement instanceof TransformOptionValue)
+        {
+            requiredFlagByOption.put(((TransformOptionValue) currentElement).getName(), currentElement.isRequired() && triggerRequirement);
+        }
+    }
+
+    private boolean isOptionPresent(final TransformOption currentElement, final Map<String, String> options)
+    {
+        boolean present = false;
+        if (currentElement instanceof TransformOptionGroup)
+        {
+            present = ((TransformOptionGroup) currentElement).getTransformOptions().stream()
+                    .anyMatch(se -> this.isOptionPresent(se, options));
+        }
+        else if (currentElement instanceof TransformOptionValue)
+        {
+            present = isSet(options.get(((TransformOptionValue) currentElement).getName()));
+        }
+        return present;
+    }
+
+    private static boolean isSet(final String value)
+    {
+        return value != null && !value.isBlank();
+    }
+
+    private static Map<String, String> options(final String... keysAndValues)
+    {
+        final Map<String, String> options = new HashMap<>();
+        for (int idx = 0; idx + 1 < keysAndValues.length; idx += 2)
+        {
+            options.put(keysAndValues[idx], keysAndValues[idx + 1]);
+        }
+        return Collections.unmodifiableMap(options);
+    }
+
+    /**
+     *
+     * @author Axel Faust
+     */
+    private static class TestExtracter implements MetadataExtracter
+    {
+
+        private final String name;
+
+        private final Set<String> transformOptions;
+
+        private final List<String> sourceMimetypes;
+
+        private TestExtracter(final String name, final Set<String> transformOptions, final String... sourceMimetypes)
+        {
+            this.name = name;
+            this.transformOptions = transformOptions;
+            this.sourceMimetypes = Arrays.asList(sourceMimetypes);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getName()
+        {
+            return this.name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<String> getTransformOptions()
+        {
+            return this.transformOptions;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Collection<String> getSupportedSourceMimetypes()
+        {
+            return this.sourceMimetypes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Map<String, Object> extractMetadata(final Path sourceFile, final String sourceMimetype, final long timeout,
+                final Map<String, String> options)
+        {
+            throw new UnsupportedOperationException("Extracter " + this.name + " is only used for tests of its configuration");
+        }
+    }
+}
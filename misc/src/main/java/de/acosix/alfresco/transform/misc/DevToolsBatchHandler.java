@@ -0,0 +1,547 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.UrlEncoded;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.Registry;
+import de.acosix.alfresco.transform.base.RequestConstants;
+import de.acosix.alfresco.transform.base.SharedFileAccessException;
+import de.acosix.alfresco.transform.base.SharedFileAccessor;
+import de.acosix.alfresco.transform.base.StatusException;
+import de.acosix.alfresco.transform.base.TransformationLog;
+import de.acosix.alfresco.transform.base.TransformationLog.MutableEntry;
+import de.acosix.alfresco.transform.base.handler.ContextAwareHandler;
+import de.acosix.alfresco.transform.misc.DevToolsTransformer.BatchDocument;
+import de.acosix.alfresco.transform.misc.DevToolsTransformer.BatchTarget;
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+
+/**
+ * Handles batch transformation requests via the {@link DevToolsTransformer DevTools transformer}, allowing multiple documents to be
+ * transformed with a single request. Results are either streamed back as parts of a {@code multipart/mixed} response as soon as each
+ * document has been transformed, or stored in the shared file store with only the references being returned.
+ *
+ * @author Axel Faust
+ */
+public class DevToolsBatchHandler extends ContextAwareHandler
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DevToolsBatchHandler.class);
+
+    public static final String TARGET = "/transform/batch";
+
+    public static final String RESULT_MODE = "resultMode";
+
+    public static final String RESULT_MODE_MULTIPART = "multipart";
+
+    public static final String RESULT_MODE_SFS = "sfs";
+
+    public static final String TARGET_OPTION_PREFIX = "target.";
+
+    private static final String FILE_PART_NAME = "file";
+
+    private static final String CRLF = "\r\n";
+
+    private final Registry registry;
+
+    private final TransformationLog transformationLog;
+
+    private final SharedFileAccessor sharedFileAccessor;
+
+    private final DevToolsTransformer transformer;
+
+    private final long defaultTransformTimeout;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    // since we use raw handlers without a full servlet context, we need to set a multipart config on a request before handling multipart
+    // request messages
+    private final MultipartConfigElement multiPartConfig;
+
+    public DevToolsBatchHandler(final Context context, final Registry registry, final TransformationLog transformationLog,
+            final SharedFileAccessor sharedFileAccessor, final DevToolsTransformer transformer)
+    {
+        super(context);
+        this.registry = registry;
+        this.transformationLog = transformationLog;
+        this.sharedFileAccessor = sharedFileAccessor;
+        this.transformer = transformer;
+
+        this.defaultTransformTimeout = this.context.getLongProperty("application.default.transformTimeout",
+                RequestConstants.DEFAULT_TRANSFORM_TIMEOUT, 1, Long.MAX_VALUE);
+
+        final Path tmpDir = context.createTempFileSubDirectory("multipartBatchRequest");
+        final long maxFileSize = context.getLongProperty("application.multipartRequest.maxFileSize", -1, -1, Long.MAX_VALUE);
+        final long maxRequestSize = context.getLongProperty("devtools.batch.maxRequestSize", -1, -1, Long.MAX_VALUE);
+
+        this.multiPartConfig = new MultipartConfigElement(tmpDir.toString(), maxFileSize, maxRequestSize, 1024 * 100);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        if (target.equals(TARGET))
+        {
+            if (!baseRequest.getMethod().equals(HttpMethod.POST.name()))
+            {
+                throw new StatusException(HttpStatus.METHOD_NOT_ALLOWED_405, "Only POST requests supported on this endpoint");
+            }
+
+            final String contentType = baseRequest.getContentType();
+            final int semiColonIdx = contentType != null ? contentType.indexOf(';') : -1;
+            final String mimetypeOnly = semiColonIdx != -1 ? contentType.substring(0, semiColonIdx) : contentType;
+            if (!MimeTypes.Type.MULTIPART_FORM_DATA.is(mimetypeOnly))
+            {
+                LOGGER.debug("Rejecting batch transformation request with invalid request content type {}", contentType);
+                throw new StatusException(HttpStatus.BAD_REQUEST_400, "Only multipart/form-data requests supported on this endpoint");
+            }
+
+            final MutableEntry logEntry = this.transformationLog.startNewEntry();
+            baseRequest.setAttribute(Request.__MULTIPART_CONFIG_ELEMENT, this.multiPartConfig);
+            this.handleBatchRequest(request, response, logEntry);
+            this.transformationLog.closeCurrentEntry();
+
+            baseRequest.setHandled(true);
+        }
+    }
+
+    private void handleBatchRequest(final HttpServletRequest request, final HttpServletResponse response, final MutableEntry logEntry)
+            throws IOException, ServletException
+    {
+        final String sourceMimetype = this.getParameter(request, RequestConstants.SOURCE_MIMETYPE, false);
+        final List<String> targetMimetypes = this.getParameterValues(request, RequestConstants.TARGET_MIMETYPE);
+        final List<String> targetExtensions = this.getParameterValues(request, RequestConstants.TARGET_EXTENSION);
+        if (targetMimetypes.size() != targetExtensions.size())
+        {
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, "The number of target mimetypes and extensions must match");
+        }
+        final String timeout = this.getParameter(request, RequestConstants.TIMEOUT, false);
+        final long timeoutL;
+        try
+        {
+            timeoutL = timeout != null && !timeout.isBlank() ? Long.parseLong(timeout) : this.defaultTransformTimeout;
+        }
+        catch (final NumberFormatException nfex)
+        {
+            LOGGER.debug("Rejecting batch transformation request with non-numeric timeout {}", timeout);
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, "Non-numeric timeout parameter value " + timeout);
+        }
+        final String resultModeParam = this.getParameter(request, RESULT_MODE, false);
+        final String resultMode = resultModeParam != null && !resultModeParam.isBlank() ? resultModeParam : RESULT_MODE_MULTIPART;
+        if (!RESULT_MODE_MULTIPART.equals(resultMode) && !RESULT_MODE_SFS.equals(resultMode))
+        {
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, "Unsupported result mode " + resultMode);
+        }
+
+        final Map<String, String> transformationRequestParameters = this.getTransformationRequestParameters(request);
+
+        final List<Part> fileParts = new ArrayList<>();
+        for (final Part part : request.getParts())
+        {
+            if (FILE_PART_NAME.equals(part.getName()))
+            {
+                fileParts.add(part);
+            }
+        }
+        if (fileParts.isEmpty())
+        {
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, "At least one file part is required for a batch transformation request");
+        }
+
+        LOGGER.debug("Handling batch transformation request of {} documents to targets {} with result mode {} and request parameters {}",
+                fileParts.size(), targetMimetypes, resultMode, transformationRequestParameters);
+
+        final List<BatchDocument> documents = new ArrayList<>(fileParts.size());
+        final Map<BatchDocument, Integer> indices = new IdentityHashMap<>();
+        final List<String> sourceFileNames = new ArrayList<>(fileParts.size());
+        final List<List<String>> targetFileNames = new ArrayList<>(fileParts.size());
+        try
+        {
+            long totalSourceSize = 0;
+            for (final Part filePart : fileParts)
+            {
+                final String sourceFileName = this.getEffectiveSourceFileName(filePart, documents.size());
+                final String documentSourceMimetype = sourceMimetype != null && !sourceMimetype.isBlank() ? sourceMimetype
+                        : filePart.getContentType();
+                if (documentSourceMimetype == null || documentSourceMimetype.isBlank())
+                {
+                    throw new StatusException(HttpStatus.BAD_REQUEST_400, "Source mimetype could not be determined for " + sourceFileName);
+                }
+
+                final Path sourceFile = this.context.createTempFile("source_", "_" + sourceFileName);
+                try (InputStream is = filePart.getInputStream())
+                {
+                    Files.copy(is, sourceFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                totalSourceSize += Files.size(sourceFile);
+
+                final List<String> documentTargetFileNames = new ArrayList<>(targetExtensions.size());
+                final List<Path> targetFiles = new ArrayList<>(targetExtensions.size());
+                for (final String targetExtension : targetExtensions)
+                {
+                    final String targetFileName = this.getEffectiveTargetFileName(sourceFileName, targetExtension);
+                    documentTargetFileNames.add(targetFileName);
+                    targetFiles.add(this.context.createTempFile("target_", "_" + targetFileName));
+                }
+
+                final BatchDocument document = new BatchDocument(sourceFile, documentSourceMimetype, targetFiles);
+                indices.put(document, documents.size());
+                documents.add(document);
+                sourceFileNames.add(sourceFileName);
+                targetFileNames.add(documentTargetFileNames);
+            }
+
+            // documents may carry their own mimetypes if the request does not specify a common one
+            final String loggedSourceMimetypes = documents.stream().map(BatchDocument::getSourceMimetype).distinct()
+                    .collect(Collectors.joining(","));
+            logEntry.recordRequestValues(loggedSourceMimetypes, totalSourceSize, String.join(",", targetMimetypes),
+                    transformationRequestParameters);
+            logEntry.recordSelectedTransformer(this.transformer.getName());
+
+            // all lookups of a request must use the same registry state, even if configuration is reloaded concurrently
+            final Registry registry = this.registry.snapshot();
+            final Map<String, String> defaultOptions = registry.getDefaultOptions(this.transformer.getName());
+            final List<BatchTarget> targets = new ArrayList<>(targetMimetypes.size());
+            for (int targetIndex = 0; targetIndex < targetMimetypes.size(); targetIndex++)
+            {
+                final Map<String, String> effectiveTransformerOptions = new HashMap<>();
+                effectiveTransformerOptions.putAll(defaultOptions);
+                effectiveTransformerOptions.putAll(transformationRequestParameters);
+                effectiveTransformerOptions.putAll(this.getTargetTransformationRequestParameters(request, targetIndex));
+                targets.add(new BatchTarget(targetMimetypes.get(targetIndex), effectiveTransformerOptions));
+            }
+            this.validateTransformations(registry, documents, targets);
+
+            final AtomicLong totalResultSize = new AtomicLong(0);
+            if (RESULT_MODE_MULTIPART.equals(resultMode))
+            {
+                final String boundary = "batch_" + UUID.randomUUID().toString().replace("-", "");
+                response.setStatus(HttpStatus.OK_200);
+                response.setContentType("multipart/mixed; boundary=" + boundary);
+
+                final OutputStream os = response.getOutputStream();
+
+                logEntry.markStartOfTransformation();
+                try
+                {
+                    this.transformer.transformBatch(documents, targets, timeoutL, document -> {
+                        final int index = indices.get(document);
+                        // callback may be invoked concurrently by multiple batch workers
+                        synchronized (os)
+                        {
+                            for (int targetIndex = 0; targetIndex < targets.size(); targetIndex++)
+                            {
+                                totalResultSize.addAndGet(this.writeResultPart(os, boundary, index, targetIndex, document,
+                                        targetMimetypes.get(targetIndex), targetFileNames.get(index).get(targetIndex)));
+                            }
+                        }
+                        // no longer needed - free up space as early as possible in large batches
+                        this.context.discardTempFile(document.getSourceFile());
+                        document.getTargetFiles().forEach(this.context::discardTempFile);
+                    });
+                }
+                finally
+                {
+                    logEntry.markEndOfTransformation();
+                }
+
+                os.write(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII));
+                os.close();
+            }
+            else
+            {
+                // one result per document and target, ordered by document first
+                final ArrayNode results = this.jsonMapper.createArrayNode();
+                documents.forEach(d -> targets.forEach(t -> results.addObject()));
+
+                logEntry.markStartOfTransformation();
+                try
+                {
+                    this.transformer.transformBatch(documents, targets, timeoutL, document -> {
+                        final int index = indices.get(document);
+                        for (int targetIndex = 0; targetIndex < targets.size(); targetIndex++)
+                        {
+                            final ObjectNode result = this.storeResult(document, targetIndex, targetMimetypes.get(targetIndex),
+                                    sourceFileNames.get(index), totalResultSize);
+                            // array node is not thread-safe
+                            synchronized (results)
+                            {
+                                results.set(index * targets.size() + targetIndex, result);
+                            }
+                        }
+                    });
+                }
+                finally
+                {
+                    logEntry.markEndOfTransformation();
+                }
+
+                response.setStatus(HttpStatus.OK_200);
+                response.setContentType(MimeTypes.Type.APPLICATION_JSON_UTF_8.asString());
+                try (OutputStream os = response.getOutputStream())
+                {
+                    this.jsonMapper.writeValue(os, results);
+                }
+            }
+
+            logEntry.recordResultSize(totalResultSize.get());
+            logEntry.setStatus(HttpStatus.OK_200);
+        }
+        finally
+        {
+            documents.forEach(d -> {
+                this.context.discardTempFile(d.getSourceFile());
+                d.getTargetFiles().forEach(this.context::discardTempFile);
+            });
+        }
+    }
+
+    private long writeResultPart(final OutputStream os, final String boundary, final int index, final int targetIndex,
+            final BatchDocument document, final String targetMimetype, final String targetFileName)
+    {
+        try
+        {
+            final StatusException failure = document.getFailure();
+            final Path targetFile = document.getTargetFiles().get(targetIndex);
+
+            final StringBuilder headers = new StringBuilder(256);
+            headers.append("--").append(boundary).append(CRLF);
+            headers.append("X-Batch-Index: ").append(index).append(CRLF);
+            headers.append("X-Target-Index: ").append(targetIndex).append(CRLF);
+            headers.append("X-Transform-Status: ").append(failure != null ? failure.getStatus() : HttpStatus.OK_200).append(CRLF);
+
+            long resultSize = 0;
+            if (failure == null)
+            {
+                resultSize = Files.size(targetFile);
+                headers.append("Content-Type: ").append(targetMimetype).append(CRLF);
+                headers.append("Content-Disposition: attachment; filename*= UTF-8''")
+                        .append(UrlEncoded.encodeString(targetFileName, StandardCharsets.UTF_8)).append(CRLF);
+                headers.append("Content-Length: ").append(resultSize).append(CRLF);
+                headers.append(CRLF);
+                os.write(headers.toString().getBytes(StandardCharsets.UTF_8));
+                Files.copy(targetFile, os);
+            }
+            else
+            {
+                final byte[] message = String.valueOf(failure.getMessage()).getBytes(StandardCharsets.UTF_8);
+                headers.append("Content-Type: text/plain; charset=UTF-8").append(CRLF);
+                headers.append("Content-Length: ").append(message.length).append(CRLF);
+                headers.append(CRLF);
+                os.write(headers.toString().getBytes(StandardCharsets.UTF_8));
+                os.write(message);
+            }
+            os.write(CRLF.getBytes(StandardCharsets.US_ASCII));
+            // push each part to the client as soon as it is available
+            os.flush();
+
+            return resultSize;
+        }
+        catch (final IOException ioex)
+        {
+            // client most likely disconnected - nothing more we can do for this part
+            LOGGER.warn("Failed to write result part {} / {} of batch transformation", index, targetIndex, ioex);
+            return 0;
+        }
+    }
+
+    private ObjectNode storeResult(final BatchDocument document, final int targetIndex, final String targetMimetype,
+            final String sourceFileName, final AtomicLong totalResultSize)
+    {
+        final ObjectNode result = this.jsonMapper.createObjectNode();
+        result.put("sourceFileName", sourceFileName);
+        result.put("targetIndex", targetIndex);
+
+        StatusException failure = document.getFailure();
+        if (failure == null)
+        {
+            try
+            {
+                final Path targetFile = document.getTargetFiles().get(targetIndex);
+                final long resultSize = Files.size(targetFile);
+                final String targetReference = this.sharedFileAccessor.saveFile(targetFile, targetMimetype);
+                totalResultSize.addAndGet(resultSize);
+
+                result.put("status", HttpStatus.CREATED_201);
+                result.put("targetReference", targetReference);
+            }
+            catch (final SharedFileAccessException | IOException ex)
+            {
+                failure = new StatusException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to store target file", ex);
+            }
+        }
+
+        if (failure != null)
+        {
+            result.put("status", failure.getStatus());
+            result.put("errorDetails", failure.getMessage());
+        }
+
+        return result;
+    }
+
+    private String getParameter(final HttpServletRequest request, final String name, final boolean mandatory)
+    {
+        final String parameterValue = request.getParameter(name);
+
+        if ((parameterValue == null || parameterValue.isBlank()) && mandatory)
+        {
+            LOGGER.debug("Rejecting batch transformation request with missing parameter {}", name);
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, name + " is a required request parameter");
+        }
+
+        return parameterValue;
+    }
+
+    private List<String> getParameterValues(final HttpServletRequest request, final String name)
+    {
+        final String[] parameterValues = request.getParameterValues(name);
+        final List<String> values = new ArrayList<>();
+        if (parameterValues != null)
+        {
+            for (final String parameterValue : parameterValues)
+            {
+                if (parameterValue == null || parameterValue.isBlank())
+                {
+                    throw new StatusException(HttpStatus.BAD_REQUEST_400, name + " request parameter values cannot be empty");
+                }
+                values.add(parameterValue);
+            }
+        }
+
+        if (values.isEmpty())
+        {
+            LOGGER.debug("Rejecting batch transformation request with missing parameter {}", name);
+            throw new StatusException(HttpStatus.BAD_REQUEST_400, name + " is a required request parameter");
+        }
+
+        return values;
+    }
+
+    private Map<String, String> getTransformationRequestParameters(final HttpServletRequest request)
+    {
+        final Map<String, String> parameters = new HashMap<>();
+        final Enumeration<String> parameterNames = request.getParameterNames();
+        parameterNames.asIterator().forEachRemaining(name -> {
+            final String parameterValue = request.getParameter(name);
+
+            // non-selector parameters are retained - registry ignores them for validation, and transformers may still use them
+            if (!RESULT_MODE.equals(name) && !name.startsWith(TARGET_OPTION_PREFIX)
+                    && !RequestConstants.NON_TRANSFORMATION_PARAMETER_NAMES.contains(name) && parameterValue != null
+                    && !parameterValue.isBlank())
+            {
+                parameters.put(name, parameterValue);
+            }
+        });
+
+        return parameters;
+    }
+
+    private void validateTransformations(final Registry registry, final List<BatchDocument> documents, final List<BatchTarget> targets)
+            throws IOException
+    {
+        final String transformerName = this.transformer.getName();
+        for (final BatchDocument document : documents)
+        {
+            final long sourceSize = Files.size(document.getSourceFile());
+            for (final BatchTarget target : targets)
+            {
+                if (!registry.supportsTransformation(transformerName, document.getSourceMimetype(), sourceSize,
+                        target.getTargetMimetype(), target.getOptions()))
+                {
+                    LOGGER.debug("Rejecting batch transformation request with unsupported transformation from {} to {} with options {}",
+                            document.getSourceMimetype(), target.getTargetMimetype(), target.getOptions());
+                    throw new StatusException(HttpStatus.BAD_REQUEST_400, "Transformer " + transformerName
+                            + " is not able to handle the transformation from " + document.getSourceMimetype() + " to "
+                            + target.getTargetMimetype() + " with the provided options");
+                }
+            }
+        }
+    }
+
+    private Map<String, String> getTargetTransformationRequestParameters(final HttpServletRequest request, final int targetIndex)
+    {
+        final String prefix = TARGET_OPTION_PREFIX + targetIndex + '.';
+        final Map<String, String> parameters = new HashMap<>();
+        final Enumeration<String> parameterNames = request.getParameterNames();
+        parameterNames.asIterator().forEachRemaining(name -> {
+            final String parameterValue = request.getParameter(name);
+
+            if (name.startsWith(prefix) && name.length() > prefix.length() && parameterValue != null && !parameterValue.isBlank())
+            {
+                parameters.put(name.substring(prefix.length()), parameterValue);
+            }
+        });
+
+        return parameters;
+    }
+
+    private String getEffectiveSourceFileName(final Part filePart, final int index)
+    {
+        String sourceFileName = filePart.getSubmittedFileName();
+        if (sourceFileName == null || sourceFileName.isBlank())
+        {
+            sourceFileName = "document_" + index;
+        }
+        final int lastSlashIdx = sourceFileName.lastIndexOf('/');
+        sourceFileName = lastSlashIdx != -1 ? sourceFileName.substring(lastSlashIdx + 1) : sourceFileName;
+        return sourceFileName;
+    }
+
+    private String getEffectiveTargetFileName(final String sourceFileName, final String targetExtension)
+    {
+        final int lastDotIdx = sourceFileName.lastIndexOf('.');
+        final String targetFileName = (lastDotIdx != -1 ? sourceFileName.substring(0, lastDotIdx) : sourceFileName) + '.' + targetExtension;
+        return targetFileName;
+    }
+}
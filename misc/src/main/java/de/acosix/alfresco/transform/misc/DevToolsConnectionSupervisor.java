@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.TransformationException;
+import de.acosix.alfresco.transform.misc.cdt.DevToolsWebSocketClient;
+
+/**
+ * Instances of this class supervise the connection of a DevTools web socket client, reconnecting in the background with exponential
+ * backoff whenever the connection is lost (e.g. due to a restart of the remote Chrome / Chromium instance). Request threads never attempt
+ * to reconnect themselves, but are only parked for a limited time waiting for a reconnect in progress, and fail fast otherwise.
+ *
+ * @author Axel Faust
+ */
+public class DevToolsConnectionSupervisor
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DevToolsConnectionSupervisor.class);
+
+    private final DevToolsWebSocketClient client;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final long maxWait;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicReference<CompletableFuture<Void>> reconnection = new AtomicReference<>();
+
+    public DevToolsConnectionSupervisor(final Context context, final DevToolsWebSocketClient client)
+    {
+        Objects.requireNonNull(client, "A web DevTools Protocol web socket client is required");
+        this.client = client;
+
+        this.initialBackoff = context.getLongProperty("devtools.reconnect.initialBackoff", 500, 1, Long.MAX_VALUE);
+        this.maxBackoff = context.getLongProperty("devtools.reconnect.maxBackoff", 30000, this.initialBackoff, Long.MAX_VALUE);
+        this.maxWait = context.getLongProperty("devtools.reconnect.maxWait", 5000, 0, Long.MAX_VALUE);
+        final long checkInterval = context.getLongProperty("devtools.reconnect.checkInterval", 10000, 100, Long.MAX_VALUE);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "DevToolsConnectionSupervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // react to connection loss immediately, with periodic check only as a safety net
+        this.client.registerConnectionListener(remote -> this.triggerReconnect());
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            if (!this.client.isConnected())
+            {
+                this.triggerReconnect();
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ensures the supervised client is connected, waiting for a bounded time if a reconnect is currently in progress.
+     *
+     * @param deadline
+     *     the deadline (in epoch milliseconds) of the operation requiring the connection
+     * @throws TransformationException
+     *     if the client is not connected and no reconnect succeeded in time
+     */
+    public void awaitConnected(final long deadline)
+    {
+        if (this.client.isConnected())
+        {
+            return;
+        }
+
+        final CompletableFuture<Void> reconnection = this.triggerReconnect();
+        final long wait = Math.min(this.maxWait, deadline - System.currentTimeMillis());
+        if (wait > 0)
+        {
+            try
+            {
+                reconnection.get(wait, TimeUnit.MILLISECONDS);
+            }
+            catch (final InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+                throw new TransformationException(503, "Interrupted waiting for reconnect to DevTools debugger", iex);
+            }
+            catch (final ExecutionException | TimeoutException ex)
+            {
+                LOGGER.debug("Reconnect to DevTools debugger not completed within {} ms", wait);
+            }
+        }
+
+        if (!this.client.isConnected())
+        {
+            throw new TransformationException(503, "Connection to DevTools debugger currently not available - reconnect in progress");
+        }
+    }
+
+    private CompletableFuture<Void> triggerReconnect()
+    {
+        CompletableFuture<Void> reconnection = this.reconnection.get();
+        while (reconnection == null || reconnection.isDone())
+        {
+            final CompletableFuture<Void> newReconnection = new CompletableFuture<>();
+            if (this.reconnection.compareAndSet(reconnection, newReconnection))
+            {
+                LOGGER.info("Connection to DevTools debugger lost - starting background reconnect");
+                this.scheduler.execute(() -> this.attemptReconnect(newReconnection, this.initialBackoff));
+                reconnection = newReconnection;
+            }
+            else
+            {
+                reconnection = this.reconnection.get();
+            }
+        }
+        return reconnection;
+    }
+
+    private void attemptReconnect(final CompletableFuture<Void> reconnection, final long backoff)
+    {
+        if (!this.client.isConnected())
+        {
+            try
+            {
+                this.client.reconnect();
+            }
+            catch (final RuntimeException ex)
+            {
+                LOGGER.debug("Failed to reconnect to DevTools debugger", ex);
+            }
+        }
+
+        if (this.client.isConnected())
+        {
+            reconnection.complete(null);
+        }
+        else
+        {
+            LOGGER.warn("Failed to reconnect to DevTools debugger - retrying in {} ms", backoff);
+            final long nextBackoff = Math.min(backoff * 2, this.maxBackoff);
+            this.scheduler.schedule(() -> this.attemptReconnect(reconnection, nextBackoff), backoff, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.misc.cdt.ContinueRequestParameters;
+import de.acosix.alfresco.transform.misc.cdt.DevToolsWebSocketClient;
+import de.acosix.alfresco.transform.misc.cdt.FailRequestParameters;
+import de.acosix.alfresco.transform.misc.cdt.FailRequestParameters.ErrorReason;
+import de.acosix.alfresco.transform.misc.cdt.FetchEnableParameters;
+import de.acosix.alfresco.transform.misc.cdt.FulfillRequestParameters;
+
+/**
+ * Instances of this class intercept the sub-resource requests of pages rendered via the DevTools Protocol, in order to block requests
+ * that would otherwise needlessly delay rendering (e.g. tracking pixels / remote images of mails in network-restricted environments), or
+ * to serve whitelisted resources from the local file system.
+ *
+ * @author Axel Faust
+ */
+public class DevToolsRequestInterceptor
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DevToolsRequestInterceptor.class);
+
+    // responses to paused requests are not awaited by any caller, so failures are only logged
+    private static final long RESPONSE_TIMEOUT = 10000;
+
+    private final Executor executor;
+
+    private final List<Pattern> blockedUrlPatterns;
+
+    private final Set<String> blockedResourceTypes;
+
+    private final List<Pattern> allowedUrlPatterns;
+
+    private final List<LocalResourceMapping> localResourceMappings;
+
+    public DevToolsRequestInterceptor(final Context context, final Executor executor)
+    {
+        this.executor = executor;
+
+        this.blockedUrlPatterns = compilePatterns(context, "devtools.fetch.blockedUrlPatterns");
+        this.allowedUrlPatterns = compilePatterns(context, "devtools.fetch.allowedUrlPatterns");
+        this.blockedResourceTypes = Collections.unmodifiableSet(context.getMultiValuedProperty("devtools.fetch.blockedResourceTypes")
+                .stream().map(String::trim).map(t -> t.toLowerCase(Locale.ENGLISH)).collect(Collectors.toSet()));
+
+        final List<LocalResourceMapping> localResourceMappings = new ArrayList<>();
+        for (final String name : context.getMultiValuedProperty("devtools.fetch.localResources"))
+        {
+            final String urlPrefix = context.getStringProperty("devtools.fetch.localResource." + name.trim() + ".urlPrefix");
+            final String path = context.getStringProperty("devtools.fetch.localResource." + name.trim() + ".path");
+            if (urlPrefix == null || urlPrefix.isBlank() || path == null || path.isBlank())
+            {
+                throw new IllegalStateException("Both URL prefix and path must be configured for local resource " + name.trim());
+            }
+            localResourceMappings.add(new LocalResourceMapping(urlPrefix.trim(), Paths.get(path.trim()).toAbsolutePath().normalize()));
+        }
+        this.localResourceMappings = Collections.unmodifiableList(localResourceMappings);
+    }
+
+    /**
+     * Checks whether any interception rules have been configured.
+     *
+     * @return {@code true} if requests need to be intercepted, {@code false} otherwise
+     */
+    public boolean isEnabled()
+    {
+        return !this.blockedUrlPatterns.isEmpty() || !this.blockedResourceTypes.isEmpty() || !this.allowedUrlPatterns.isEmpty()
+                || !this.localResourceMappings.isEmpty();
+    }
+
+    /**
+     * Enables interception of requests within a specific session.
+     *
+     * @param client
+     *     the client to use for handling intercepted requests
+     * @param sessionId
+     *     the ID of the session in which to intercept requests
+     * @param timeout
+     *     the maximum time in milliseconds to wait for interception to be enabled
+     * @return the future to be completed once interception has been enabled
+     */
+    public CompletableFuture<Void> enable(final DevToolsWebSocketClient client, final String sessionId, final long timeout)
+    {
+        client.registerListener(sessionId, (domain, command, eventSessionId, payload) -> {
+            if ("Fetch".equals(domain) && "requestPaused".equals(command))
+            {
+                this.handleRequestPaused(client, sessionId, payload);
+            }
+            // remains active until session is discarded
+            return true;
+        });
+
+        final FetchEnableParameters fetchEnableRq = new FetchEnableParameters();
+        fetchEnableRq.addUrlPattern("*");
+        return client.sendAsync(sessionId, fetchEnableRq, timeout);
+    }
+
+    private void handleRequestPaused(final DevToolsWebSocketClient client, final String sessionId, final JsonNode payload)
+    {
+        final String requestId = payload.path("requestId").asText();
+        final String url = payload.path("request").path("url").asText();
+        final String resourceType = payload.path("resourceType").asText();
+
+        final LocalResourceMapping localResourceMapping = this.localResourceMappings.stream().filter(m -> url.startsWith(m.urlPrefix))
+                .findFirst().orElse(null);
+
+        if (localResourceMapping != null)
+        {
+            // file access must not block the web socket reader thread on which this is called
+            this.executor.execute(() -> this.fulfillFromLocalResource(client, sessionId, requestId, url, localResourceMapping));
+        }
+        else if (this.isBlocked(url, resourceType))
+        {
+            LOGGER.debug("Blocking request {} for {} of type {} in session {}", requestId, url, resourceType, sessionId);
+            final FailRequestParameters failRq = new FailRequestParameters();
+            failRq.setRequestId(requestId);
+            failRq.setErrorReason(ErrorReason.BlockedByClient);
+            this.handleResponseFailure(client.sendAsync(sessionId, failRq, RESPONSE_TIMEOUT), requestId, sessionId);
+        }
+        else
+        {
+            LOGGER.trace("Continuing request {} for {} of type {} in session {}", requestId, url, resourceType, sessionId);
+            final ContinueRequestParameters continueRq = new ContinueRequestParameters();
+            continueRq.setRequestId(requestId);
+            this.handleResponseFailure(client.sendAsync(sessionId, continueRq, RESPONSE_TIMEOUT), requestId, sessionId);
+        }
+    }
+
+    private boolean isBlocked(final String url, final String resourceType)
+    {
+        boolean blocked = this.blockedResourceTypes.contains(resourceType.toLowerCase(Locale.ENGLISH));
+        blocked = blocked || this.blockedUrlPatterns.stream().anyMatch(p -> p.matcher(url).matches());
+        // whitelist only applies to actual network requests
+        if (!blocked && !this.allowedUrlPatterns.isEmpty())
+        {
+            final String lowerCaseUrl = url.toLowerCase(Locale.ENGLISH);
+            if (lowerCaseUrl.startsWith("http:") || lowerCaseUrl.startsWith("https:") || lowerCaseUrl.startsWith("ws:")
+                    || lowerCaseUrl.startsWith("wss:"))
+            {
+                blocked = this.allowedUrlPatterns.stream().noneMatch(p -> p.matcher(url).matches());
+            }
+        }
+        return blocked;
+    }
+
+    private void fulfillFromLocalResource(final DevToolsWebSocketClient client, final String sessionId, final String requestId,
+            final String url, final LocalResourceMapping localResourceMapping)
+    {
+        String relativePath = url.substring(localResourceMapping.urlPrefix.length());
+        final int queryOrFragmentIdx = relativePath.indexOf('?') != -1 ? relativePath.indexOf('?') : relativePath.indexOf('#');
+        relativePath = queryOrFragmentIdx != -1 ? relativePath.substring(0, queryOrFragmentIdx) : relativePath;
+
+        final Path file = localResourceMapping.path.resolve(relativePath).normalize();
+
+        final FulfillRequestParameters fulfillRq = new FulfillRequestParameters();
+        fulfillRq.setRequestId(requestId);
+        // never allow access outside of the mapped directory
+        if (file.startsWith(localResourceMapping.path) && Files.isRegularFile(file))
+        {
+            try
+            {
+                final byte[] content = Files.readAllBytes(file);
+                final String contentType = Files.probeContentType(file);
+                if (contentType != null)
+                {
+                    fulfillRq.addResponseHeader("Content-Type", contentType);
+                }
+                fulfillRq.addResponseHeader("Content-Length", String.valueOf(content.length));
+                fulfillRq.setBody(Base64.getEncoder().encodeToString(content));
+                LOGGER.debug("Serving request {} for {} in session {} from local file {}", requestId, url, sessionId, file);
+            }
+            catch (final IOException ioex)
+            {
+                LOGGER.warn("Failed to read local file {} to serve request for {}", file, url, ioex);
+                fulfillRq.setResponseCode(500);
+            }
+        }
+        else
+        {
+            LOGGER.debug("Local file {} to serve request {} for {} in session {} does not exist", file, requestId, url, sessionId);
+            fulfillRq.setResponseCode(404);
+        }
+
+        this.handleResponseFailure(client.sendAsync(sessionId, fulfillRq, RESPONSE_TIMEOUT), requestId, sessionId);
+    }
+
+    private void handleResponseFailure(final CompletableFuture<Void> response, final String requestId, final String sessionId)
+    {
+        response.whenComplete((r, t) -> {
+            if (t != null)
+            {
+                // page may already have been closed
+                LOGGER.debug("Failed to handle intercepted request {} in session {}", requestId, sessionId, t);
+            }
+        });
+    }
+
+    private static List<Pattern> compilePatterns(final Context context, final String propertyName)
+    {
+        final List<Pattern> patterns = new ArrayList<>();
+        for (final String pattern : new HashSet<>(context.getMultiValuedProperty(propertyName)))
+        {
+            try
+            {
+                patterns.add(Pattern.compile(pattern.trim()));
+            }
+            catch (final PatternSyntaxException psex)
+            {
+                throw new IllegalStateException("Invalid URL pattern " + pattern + " in " + propertyName, psex);
+            }
+        }
+        return Collections.unmodifiableList(patterns);
+    }
+
+    private static class LocalResourceMapping
+    {
+
+        private final String urlPrefix;
+
+        private final Path path;
+
+        private LocalResourceMapping(final String urlPrefix, final Path path)
+        {
+            this.urlPrefix = urlPrefix;
+            this.path = path;
+        }
+    }
+}
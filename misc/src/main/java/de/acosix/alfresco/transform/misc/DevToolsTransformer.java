@@ -15,6 +15,8 @@
  */
 package de.acosix.alfresco.transform.misc;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
@@ -22,6 +24,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Base64.Decoder;
@@ -30,16 +33,31 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import javax.imageio.ImageIO;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.acosix.alfresco.transform.base.Context;
 import de.acosix.alfresco.transform.base.RequestConstants;
+import de.acosix.alfresco.transform.base.StatusException;
 import de.acosix.alfresco.transform.base.TransformationException;
 import de.acosix.alfresco.transform.base.TransformationLog;
 import de.acosix.alfresco.transform.base.TransformationLog.MutableEntry;
@@ -55,12 +73,16 @@ import de.acosix.alfresco.transform.misc.cdt.CreateTargetResponse;
 import de.acosix.alfresco.transform.misc.cdt.DetachFromTargetParameters;
 import de.acosix.alfresco.transform.misc.cdt.DevToolsException;
 import de.acosix.alfresco.transform.misc.cdt.DevToolsWebSocketClient;
+import de.acosix.alfresco.transform.misc.cdt.GetLayoutMetricsResponse;
 import de.acosix.alfresco.transform.misc.cdt.IOCloseParameters;
 import de.acosix.alfresco.transform.misc.cdt.IOReadParameters;
 import de.acosix.alfresco.transform.misc.cdt.IOReadResponse;
+import de.acosix.alfresco.transform.misc.cdt.NavigateParameters;
+import de.acosix.alfresco.transform.misc.cdt.NavigateResponse;
 import de.acosix.alfresco.transform.misc.cdt.PrintToPdfParameters;
 import de.acosix.alfresco.transform.misc.cdt.PrintToPdfParameters.TransferMode;
 import de.acosix.alfresco.transform.misc.cdt.PrintToPdfResponse;
+import de.acosix.alfresco.transform.misc.cdt.SetLifecycleEventsEnabledParameters;
 import de.acosix.alfresco.transform.misc.cdt.Viewport;
 
 /**
@@ -89,14 +111,88 @@ public class DevToolsTransformer extends AbstractTransformer
     private static final Set<String> VALID_TARGET_TYPES = Collections
             .unmodifiableSet(new HashSet<>(Arrays.asList(APPLICATION_PDF, IMAGE_JPEG, IMAGE_PNG)));
 
+    private static final String OPTION_PAGE_READY_STRATEGY = "pageReadyStrategy";
+
+    private static final String OPTION_PAGE_READY_MAX_WAIT = "pageReadyMaxWait";
+
+    private static final String OPTION_SCREENSHOT_FULL_PAGE = "screenshotFullPage";
+
+    // fixed budget for cleanup operations, as these also need to run when the transformation budget has been exhausted
+    private static final long CLEANUP_TIMEOUT = 10000;
+
     private final DevToolsWebSocketClient client;
 
+    private final DevToolsConnectionSupervisor connectionSupervisor;
+
+    private final int batchMaxParallelTargets;
+
+    private final long batchDocumentTimeout;
+
+    private final ExecutorService batchExecutor;
+
+    private final ExecutorService requestExecutor;
+
+    private final DevToolsRequestInterceptor requestInterceptor;
+
+    private final long maxSubresourceWait;
+
+    private final int screenshotTileHeight;
+
+    private final PageReadyStrategy defaultPageReadyStrategy;
+
+    private final long defaultPageReadyMaxWait;
+
     public DevToolsTransformer(final Context context, final TransformationLog transformationLog, final DevToolsWebSocketClient client)
     {
         super("DevTools", context, transformationLog);
 
         Objects.requireNonNull(client, "A web DevTools Protocol web socket client is required");
         this.client = client;
+        this.connectionSupervisor = new DevToolsConnectionSupervisor(context, client);
+
+        this.batchMaxParallelTargets = context.getIntegerProperty("devtools.batch.maxParallelTargets", 2, 1, 64);
+        this.batchDocumentTimeout = context.getLongProperty("devtools.batch.documentTimeout", 60000, 1, Long.MAX_VALUE);
+
+        final String pageReadyStrategy = context.getStringProperty("devtools.pageReady.strategy", PageReadyStrategy.LOAD.optionValue);
+        this.defaultPageReadyStrategy = PageReadyStrategy.fromOptionValue(pageReadyStrategy)
+                .orElseThrow(() -> new IllegalStateException("Unsupported page ready strategy " + pageReadyStrategy));
+        this.defaultPageReadyMaxWait = context.getLongProperty("devtools.pageReady.maxWait", 2000, 0, Long.MAX_VALUE);
+
+        this.maxSubresourceWait = context.getLongProperty("devtools.fetch.maxSubresourceWait", 10000, 0, Long.MAX_VALUE);
+        this.screenshotTileHeight = context.getIntegerProperty("devtools.screenshot.tileHeight", 4096, 0, Integer.MAX_VALUE);
+
+        // separate pools as batch workers block on page loads which may depend on requests being fulfilled by the request pool
+        final int batchParallelism = context.getIntegerProperty("devtools.batch.parallelism", 8, 1, 1024);
+        this.batchExecutor = createExecutor(batchParallelism, "DevToolsBatchWorker-");
+        final int fetchParallelism = context.getIntegerProperty("devtools.fetch.parallelism", 4, 1, 1024);
+        this.requestExecutor = createExecutor(fetchParallelism, "DevToolsRequestWorker-");
+
+        this.requestInterceptor = new DevToolsRequestInterceptor(context, this.requestExecutor);
+    }
+
+    /**
+     * Shuts down the worker threads of this transformer, interrupting any batch transformations still in progress after a grace period.
+     */
+    public void shutdown()
+    {
+        this.batchExecutor.shutdown();
+        this.requestExecutor.shutdown();
+        try
+        {
+            if (!this.batchExecutor.awaitTermination(CLEANUP_TIMEOUT, TimeUnit.MILLISECONDS))
+            {
+                LOGGER.warn("Batch transformations did not complete in time during shutdown");
+            }
+        }
+        catch (final InterruptedException iex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            this.batchExecutor.shutdownNow();
+            this.requestExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -126,53 +222,246 @@ public class DevToolsTransformer extends AbstractTransformer
             throw new TransformationException(500, "Failed to prepare file for transformation", ioex);
         }
 
-        long remainingTimeout = timeout - (System.currentTimeMillis() - start);
-        if (remainingTimeout <= 0)
+        final long deadline = start + timeout;
+        if (deadline <= System.currentTimeMillis())
         {
             throw new TransformationException(408, "Exceeded timed out preparing file for transformation");
         }
 
-        synchronized (this.client)
+        this.connectionSupervisor.awaitConnected(deadline);
+
+        try
         {
-            if (!this.client.isConnected())
+            final List<BatchTarget> targets = Collections.singletonList(new BatchTarget(targetMimetype, options));
+            final RenderTab tab = this.openTab(targets, deadline);
+            try
             {
-                this.client.reconnect();
+                this.render(tab, dataUrl, Collections.singletonList(targetFile), targets, deadline, logEntry);
             }
+            finally
+            {
+                this.closeSessionAndTarget(tab.sessionId, tab.targetId);
+            }
+        }
+        catch (final DevToolsException dtex)
+        {
+            // connection loss is handled by the supervisor, so client can retry once reconnected
+            final int status = this.client.isConnected() ? 500 : 503;
+            throw new TransformationException(status, "Transformation via DevTools Protocol failed", dtex);
+        }
+    }
+
+    /**
+     * Transforms a batch of documents into one or more targets. Each document is only loaded once, with the outputs for all targets
+     * produced from the same loaded page. Instead of setting up and tearing down a browser target for each document, documents are
+     * rendered sequentially within a limited number of warm targets, which are processed in parallel. The page ready handling is
+     * determined by the options of the first target, and the viewport of the browser target by the options of the first screenshot
+     * target (if any).
+     *
+     * @param documents
+     *     the documents to transform, each providing one target file per target
+     * @param targets
+     *     the targets into which each document should be transformed
+     * @param timeout
+     *     the time allowed for the transformation of the entire batch in milliseconds
+     * @param completionCallback
+     *     the callback to inform about each completed (successfully or not) document - may be invoked concurrently from different threads
+     */
+    public void transformBatch(final List<BatchDocument> documents, final List<BatchTarget> targets, final long timeout,
+            final Consumer<BatchDocument> completionCallback)
+    {
+        Objects.requireNonNull(documents, "The documents must be specified");
+        Objects.requireNonNull(targets, "The targets must be specified");
+        Objects.requireNonNull(completionCallback, "The completion callback must be specified");
+
+        if (targets.isEmpty())
+        {
+            throw new TransformationException(400, "At least one target must be specified");
+        }
+        if (documents.stream().anyMatch(d -> d.getTargetFiles().size() != targets.size()))
+        {
+            throw new IllegalArgumentException("Each document must provide exactly one target file per target");
+        }
+        if (targets.stream().map(BatchTarget::getTargetMimetype).anyMatch(m -> !VALID_TARGET_TYPES.contains(m))
+                || documents.stream().map(BatchDocument::getSourceMimetype).anyMatch(m -> !VALID_SOURCE_TYPES.contains(m)))
+        {
+            throw new TransformationException(400, "Transformer only supports transformation from (X)HTML or SVG to PDF, JPEG or PNG");
+        }
+
+        // fail fast on invalid options instead of failing each document individually
+        for (final BatchTarget target : targets)
+        {
+            this.getPageReadyStrategy(target.getOptions());
+            this.getPageReadyMaxWait(target.getOptions());
+            if (APPLICATION_PDF.equals(target.getTargetMimetype()))
+            {
+                this.processPDFOptions(target.getOptions(), new PrintToPdfParameters());
+            }
+            else
+            {
+                this.processScreenshotOptions(target.getOptions(), new CaptureScreenshotParameters());
+            }
+        }
+
+        final long deadline = System.currentTimeMillis() + timeout;
+
+        LOGGER.debug("Transforming batch of {} documents to {} targets", documents.size(), targets.size());
+
+        this.connectionSupervisor.awaitConnected(deadline);
+
+        final Queue<BatchDocument> queue = new ConcurrentLinkedQueue<>(documents);
+        final int parallelTargets = Math.min(this.batchMaxParallelTargets, documents.size());
+
+        final List<CompletableFuture<Void>> workers = new ArrayList<>(parallelTargets);
+        for (int i = 1; i < parallelTargets; i++)
+        {
+            workers.add(CompletableFuture.runAsync(() -> this.renderBatch(queue, targets, deadline, completionCallback),
+                    this.batchExecutor));
         }
+        // request thread participates as a worker as well
+        this.renderBatch(queue, targets, deadline, completionCallback);
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+
+        LOGGER.debug("Completed transforming batch of {} documents to {} targets", documents.size(), targets.size());
+    }
 
+    private void renderBatch(final Queue<BatchDocument> queue, final List<BatchTarget> targets, final long deadline,
+            final Consumer<BatchDocument> completionCallback)
+    {
+        RenderTab tab = null;
         try
         {
-            final String targetId = this.createTarget(dataUrl, targetMimetype, options);
-            try
+            BatchDocument document;
+            while ((document = queue.poll()) != null)
             {
-                final String sessionId = this.createSession(targetId);
                 try
                 {
-                    this.waitForPageLoad(sessionId, remainingTimeout);
-                    remainingTimeout = timeout - (System.currentTimeMillis() - start);
-
-                    if (APPLICATION_PDF.equals(targetMimetype))
-                    {
-                        this.createPdf(sessionId, targetFile, options);
-                    }
-                    else
+                    final long documentDeadline = Math.min(deadline, System.currentTimeMillis() + this.batchDocumentTimeout);
+                    final String dataUrl = this.buildUrl(document.getSourceFile(), document.getSourceMimetype(),
+                            targets.get(0).getOptions().get(RequestConstants.SOURCE_ENCODING));
+                    if (tab == null)
                     {
-                        this.createScreenshot(sessionId, targetFile, targetMimetype, options);
+                        tab = this.openTab(targets, documentDeadline);
                     }
+                    this.render(tab, dataUrl, document.getTargetFiles(), targets, documentDeadline, null);
                 }
-                finally
+                catch (final RuntimeException | IOException ex)
                 {
-                    this.closeSession(sessionId);
+                    // one failed document must not abort the entire batch
+                    final StatusException failure = ex instanceof StatusException ? (StatusException) ex
+                            : new TransformationException(500, "Transformation via DevTools Protocol failed", ex);
+                    document.setFailure(failure);
+                    LOGGER.debug("Failed to transform batch document {}", document.getSourceFile(), ex);
+
+                    // page may be left in an indeterminate state (e.g. load still in progress), so start with a fresh target
+                    if (tab != null)
+                    {
+                        this.closeSessionAndTarget(tab.sessionId, tab.targetId);
+                        tab = null;
+                    }
                 }
+
+                completionCallback.accept(document);
             }
-            finally
+        }
+        finally
+        {
+            if (tab != null)
             {
-                this.closeTarget(targetId);
+                this.closeSessionAndTarget(tab.sessionId, tab.targetId);
             }
         }
-        catch (final DevToolsException dtex)
+    }
+
+    private RenderTab openTab(final List<BatchTarget> targets, final long deadline)
+    {
+        final PageReadyStrategy pageReadyStrategy = this.getPageReadyStrategy(targets.get(0).getOptions());
+
+        // viewport only matters for screenshots - if there are none, any target will do as the viewport is irrelevant for PDFs
+        final BatchTarget viewportTarget = targets.stream().filter(t -> !APPLICATION_PDF.equals(t.getTargetMimetype())).findFirst()
+                .orElse(targets.get(0));
+        final String targetId = this.createTarget(viewportTarget.getTargetMimetype(), viewportTarget.getOptions(), deadline);
+        String sessionId = null;
+        try
+        {
+            sessionId = this.createSession(targetId, deadline);
+
+            final long remaining = remainingTime(deadline, "enabling page events");
+            CompletableFuture<Void> pageEventsEnabled = this.client.sendAsync("Page", "enable", sessionId, remaining);
+            if (pageReadyStrategy.lifecycleEvent != null)
+            {
+                final SetLifecycleEventsEnabledParameters lifecycleEventsRq = new SetLifecycleEventsEnabledParameters();
+                lifecycleEventsRq.setEnabled(true);
+                pageEventsEnabled = pageEventsEnabled
+                        .thenCombine(this.client.sendAsync(sessionId, lifecycleEventsRq, remaining), (a, b) -> (Void) null);
+            }
+            if (this.requestInterceptor.isEnabled())
+            {
+                pageEventsEnabled = pageEventsEnabled.thenCombine(this.requestInterceptor.enable(this.client, sessionId, remaining),
+                        (a, b) -> (Void) null);
+            }
+            await(pageEventsEnabled, deadline, "enabling page events");
+            return new RenderTab(targetId, sessionId);
+        }
+        catch (final RuntimeException ex)
         {
-            throw new TransformationException(500, "Transformation via DevTools Protocol failed", dtex);
+            this.closeSessionAndTarget(sessionId, targetId);
+            throw ex;
+        }
+    }
+
+    private void render(final RenderTab tab, final String dataUrl, final List<Path> targetFiles, final List<BatchTarget> targets,
+            final long deadline, final MutableEntry logEntry)
+    {
+        this.navigateAndWaitForPageReady(tab, dataUrl, targets.get(0).getOptions(), deadline, logEntry);
+
+        // all outputs are produced from the same loaded page, so page load cost is only paid once
+        final long outputStart = System.currentTimeMillis();
+        for (int idx = 0; idx < targets.size(); idx++)
+        {
+            final BatchTarget target = targets.get(idx);
+            if (APPLICATION_PDF.equals(target.getTargetMimetype()))
+            {
+                this.createPdf(tab.sessionId, targetFiles.get(idx), target.getOptions(), deadline);
+            }
+            else
+            {
+                this.createScreenshot(tab.sessionId, targetFiles.get(idx), target.getTargetMimetype(), target.getOptions(), deadline);
+            }
+        }
+        recordMetric(logEntry, "devtools.outputDuration", System.currentTimeMillis() - outputStart);
+    }
+
+    private PageReadyStrategy getPageReadyStrategy(final Map<String, String> options)
+    {
+        final String strategyName = options.get(OPTION_PAGE_READY_STRATEGY);
+        if (strategyName == null || strategyName.isBlank())
+        {
+            return this.defaultPageReadyStrategy;
+        }
+        return PageReadyStrategy.fromOptionValue(strategyName)
+                .orElseThrow(() -> new TransformationException(400, "Unsupported page ready strategy " + strategyName));
+    }
+
+    private long getPageReadyMaxWait(final Map<String, String> options)
+    {
+        final String maxWait = options.get(OPTION_PAGE_READY_MAX_WAIT);
+        if (maxWait == null || maxWait.isBlank())
+        {
+            return this.defaultPageReadyMaxWait;
+        }
+        try
+        {
+            final long maxWaitL = Long.parseLong(maxWait);
+            if (maxWaitL < 0)
+            {
+                throw new TransformationException(400, "Page ready max wait must not be negative");
+            }
+            return maxWaitL;
+        }
+        catch (final NumberFormatException nfe)
+        {
+            throw new TransformationException(400, "Page ready max wait must be a valid number");
         }
     }
 
@@ -276,10 +565,11 @@ public class DevToolsTransformer extends AbstractTransformer
         urlBuilder.append("%0D");
     }
 
-    private String createTarget(final String dataUrl, final String targetMimetype, final Map<String, String> options)
+    private String createTarget(final String targetMimetype, final Map<String, String> options, final long deadline)
     {
+        // always start blank - actual content is loaded via navigation once page events have been enabled
         final CreateTargetParameters createTargetRq = new CreateTargetParameters();
-        createTargetRq.setUrl(dataUrl);
+        createTargetRq.setUrl("about:blank");
 
         if (IMAGE_JPEG.equals(targetMimetype) || IMAGE_PNG.equals(targetMimetype))
         {
@@ -291,7 +581,7 @@ public class DevToolsTransformer extends AbstractTransformer
                 final int width = Integer.parseInt(viewportWidth);
                 final int height = Integer.parseInt(viewportHeight);
 
-                createTargetRq.setHeight(width);
+                createTargetRq.setWidth(width);
                 createTargetRq.setHeight(height);
             }
             catch (final NumberFormatException nfe)
@@ -300,7 +590,9 @@ public class DevToolsTransformer extends AbstractTransformer
             }
         }
 
-        final CreateTargetResponse createTargetRs = this.client.send(createTargetRq, CreateTargetResponse::new);
+        final CreateTargetResponse createTargetRs = await(
+                this.client.sendAsync(null, createTargetRq, CreateTargetResponse::new, remainingTime(deadline, "creating target")),
+                deadline, "creating target");
         final String targetId = createTargetRs.getTargetId();
 
         LOGGER.debug("Created new target {} for transformation", targetId);
@@ -308,13 +600,14 @@ public class DevToolsTransformer extends AbstractTransformer
         return targetId;
     }
 
-    private String createSession(final String targetId)
+    private String createSession(final String targetId, final long deadline)
     {
-
         final AttachToTargetParameters attachTargetRq = new AttachToTargetParameters();
         attachTargetRq.setTargetId(targetId);
         attachTargetRq.setFlatten(Boolean.TRUE);
-        final AttachToTargetResponse attachTargetRs = this.client.send(attachTargetRq, AttachToTargetResponse::new);
+        final AttachToTargetResponse attachTargetRs = await(
+                this.client.sendAsync(null, attachTargetRq, AttachToTargetResponse::new, remainingTime(deadline, "attaching to target")),
+                deadline, "attaching to target");
         final String sessionId = attachTargetRs.getSessionId();
 
         LOGGER.debug("Created new session {} for transformation via target {}", sessionId, targetId);
@@ -322,36 +615,131 @@ public class DevToolsTransformer extends AbstractTransformer
         return sessionId;
     }
 
-    private void waitForPageLoad(final String sessionId, final long timeout)
+    private void navigateAndWaitForPageReady(final RenderTab tab, final String dataUrl, final Map<String, String> options,
+            final long deadline, final MutableEntry logEntry)
     {
-        this.client.send("Page", "enable", sessionId);
-
-        final CountDownLatch pageLoadedLatch = new CountDownLatch(1);
-        this.client.registerListener(sessionId, (domain, command, eventSessionId, payload) -> {
-            boolean keepListening = true;
-            if ("Page".equals(domain) && "loadEventFired".equals(command))
+        final PageReadyStrategy pageReadyStrategy = this.getPageReadyStrategy(options);
+        final long pageReadyMaxWait = this.getPageReadyMaxWait(options);
+
+        // listener registered before navigating so that a fast load cannot be missed
+        final CompletableFuture<Void> domContentLoaded = new CompletableFuture<>();
+        final CompletableFuture<Void> pageLoaded = new CompletableFuture<>();
+        final CompletableFuture<Void> lifecycleReady = new CompletableFuture<>();
+        final AtomicReference<String> currentLoaderId = new AtomicReference<>();
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        this.client.registerListener(tab.sessionId, (domain, command, eventSessionId, payload) -> {
+            if ("Page".equals(domain))
             {
-                pageLoadedLatch.countDown();
-                keepListening = false;
+                if ("domContentEventFired".equals(command))
+                {
+                    domContentLoaded.complete(null);
+                }
+                else if ("loadEventFired".equals(command))
+                {
+                    pageLoaded.complete(null);
+                }
+                // main frame of a page target shares its ID with the target
+                else if (pageReadyStrategy.lifecycleEvent != null && "lifecycleEvent".equals(command)
+                        && tab.targetId.equals(payload.path("frameId").asText()))
+                {
+                    final String name = payload.path("name").asText();
+                    final String loaderId = payload.path("loaderId").asText();
+                    // init marks the start of a new document - any earlier events belong to a previous document
+                    if ("init".equals(name))
+                    {
+                        currentLoaderId.set(loaderId);
+                    }
+                    else if (pageReadyStrategy.lifecycleEvent.equals(name) && loaderId.equals(currentLoaderId.get()))
+                    {
+                        lifecycleReady.complete(null);
+                    }
+                }
             }
-            return keepListening;
+            return !finished.get() && !(pageLoaded.isDone() && (pageReadyStrategy.lifecycleEvent == null || lifecycleReady.isDone()));
         });
 
         try
         {
-            if (!pageLoadedLatch.await(timeout, TimeUnit.MILLISECONDS))
+            final long navigationStart = System.currentTimeMillis();
+            final long remaining = remainingTime(deadline, "waiting for page to load");
+            final NavigateParameters navigateRq = new NavigateParameters();
+            navigateRq.setUrl(dataUrl);
+            final CompletableFuture<NavigateResponse> navigated = this.client.sendAsync(tab.sessionId, navigateRq, NavigateResponse::new,
+                    remaining);
+
+            // slow / unreachable sub-resources should not delay rendering indefinitely once the document itself has been loaded
+            CompletableFuture<Void> loadedOrCapped = pageLoaded;
+            if (this.maxSubresourceWait > 0)
+            {
+                final CompletableFuture<Void> subresourceWaitCapped = domContentLoaded.thenCompose(
+                        v -> new CompletableFuture<Void>().completeOnTimeout(null, this.maxSubresourceWait, TimeUnit.MILLISECONDS));
+                loadedOrCapped = pageLoaded.applyToEither(subresourceWaitCapped, v -> v);
+            }
+            final CompletableFuture<Void> effectiveLoadedOrCapped = loadedOrCapped;
+
+            // a failure to navigate must not go unnoticed while waiting for the load event
+            final CompletableFuture<Void> pageReady = navigated.thenCompose(rs -> {
+                if (rs.getErrorText() != null && !rs.getErrorText().isBlank())
+                {
+                    throw new TransformationException(500, "Failed to load page: " + rs.getErrorText());
+                }
+                return effectiveLoadedOrCapped;
+            }).orTimeout(remaining, TimeUnit.MILLISECONDS);
+            await(pageReady, deadline, "waiting for page to load");
+
+            final long pageLoadEnd = System.currentTimeMillis();
+            recordMetric(logEntry, "devtools.pageLoadDuration", pageLoadEnd - navigationStart);
+
+            if (!pageLoaded.isDone())
+            {
+                LOGGER.debug("Page in session {} did not finish loading sub-resources within {} ms - stopping load", tab.sessionId,
+                        this.maxSubresourceWait);
+                recordMetric(logEntry, "devtools.subresourceWaitCapped", 1);
+                this.client.sendAsync("Page", "stopLoading", tab.sessionId, CLEANUP_TIMEOUT).whenComplete((r, t) -> {
+                    if (t != null)
+                    {
+                        LOGGER.warn("Failed to stop loading page in session {}", tab.sessionId, t);
+                    }
+                });
+            }
+
+            if (pageReadyStrategy.lifecycleEvent != null)
             {
-                throw new TransformationException(408, "Timed out waiting for page to load");
+                // strategy event is only waited on for a bounded time after load - not reaching it should not fail the transformation
+                final long maxWait = Math.min(pageReadyMaxWait, deadline - pageLoadEnd);
+                boolean reached = lifecycleReady.isDone();
+                if (!reached && maxWait > 0)
+                {
+                    try
+                    {
+                        lifecycleReady.get(maxWait, TimeUnit.MILLISECONDS);
+                        reached = true;
+                    }
+                    catch (final TimeoutException | ExecutionException ex)
+                    {
+                        reached = false;
+                    }
+                    catch (final InterruptedException iex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new TransformationException(500, "Interrupted while waiting for page to become ready", iex);
+                    }
+                }
+
+                final long pageReadyWait = System.currentTimeMillis() - pageLoadEnd;
+                LOGGER.debug("Page in session {} {} {} after {} ms of additional waiting", tab.sessionId,
+                        reached ? "reached" : "did not reach", pageReadyStrategy.lifecycleEvent, pageReadyWait);
+                recordMetric(logEntry, "devtools.pageReadyWait", pageReadyWait);
+                recordMetric(logEntry, "devtools.pageReadyReached", reached ? 1 : 0);
             }
         }
-        catch (final InterruptedException iex)
+        finally
         {
-            Thread.currentThread().interrupt();
-            throw new TransformationException(500, "Interrupted while waiting for page to load", iex);
+            finished.set(true);
         }
     }
 
-    private void createPdf(final String sessionId, final Path targetFile, final Map<String, String> options)
+    private void createPdf(final String sessionId, final Path targetFile, final Map<String, String> options, final long deadline)
     {
         final PrintToPdfParameters printToPdfRq = new PrintToPdfParameters();
         try
@@ -363,7 +751,9 @@ public class DevToolsTransformer extends AbstractTransformer
             throw new TransformationException(400, ex.getMessage());
         }
         printToPdfRq.setTransferMode(TransferMode.ReturnAsStream);
-        final PrintToPdfResponse printToPdfRs = this.client.send(sessionId, printToPdfRq, PrintToPdfResponse::new);
+        final PrintToPdfResponse printToPdfRs = await(
+                this.client.sendAsync(sessionId, printToPdfRq, PrintToPdfResponse::new, remainingTime(deadline, "printing PDF")), deadline,
+                "printing PDF");
 
         final IOReadParameters ioReadRq = new IOReadParameters();
         ioReadRq.setHandle(printToPdfRs.getStream());
@@ -377,7 +767,9 @@ public class DevToolsTransformer extends AbstractTransformer
 
             while (!eof)
             {
-                final IOReadResponse ioReadRs = this.client.send(sessionId, ioReadRq, IOReadResponse::new);
+                final IOReadResponse ioReadRs = await(
+                        this.client.sendAsync(sessionId, ioReadRq, IOReadResponse::new, remainingTime(deadline, "reading PDF")), deadline,
+                        "reading PDF");
 
                 final String data = ioReadRs.getData();
                 final boolean isBase64 = Boolean.TRUE.equals(ioReadRs.getBase64Encoded());
@@ -401,21 +793,20 @@ public class DevToolsTransformer extends AbstractTransformer
         }
         finally
         {
-            try
-            {
-                final IOCloseParameters ioCloseRq = new IOCloseParameters();
-                ioCloseRq.setHandle(printToPdfRs.getStream());
-                this.client.send(sessionId, ioCloseRq);
-            }
-            catch (final DevToolsException dte)
-            {
-                LOGGER.warn("Failed to close IO stream in session {}", sessionId, dte);
-            }
+            // no need to wait for the stream to be closed - session is detached / target closed right after anyway
+            final IOCloseParameters ioCloseRq = new IOCloseParameters();
+            ioCloseRq.setHandle(printToPdfRs.getStream());
+            this.client.sendAsync(sessionId, ioCloseRq, CLEANUP_TIMEOUT).whenComplete((r, t) -> {
+                if (t != null)
+                {
+                    LOGGER.warn("Failed to close IO stream in session {}", sessionId, t);
+                }
+            });
         }
     }
 
     private void createScreenshot(final String sessionId, final Path targetFile, final String targetMimetype,
-            final Map<String, String> options)
+            final Map<String, String> options, final long deadline)
     {
         final CaptureScreenshotParameters screenshotRq = new CaptureScreenshotParameters();
         try
@@ -430,7 +821,41 @@ public class DevToolsTransformer extends AbstractTransformer
         {
             screenshotRq.setFormat(Format.jpeg);
         }
-        final CaptureScreenshotResponse screenshotRs = this.client.send(sessionId, screenshotRq, CaptureScreenshotResponse::new);
+
+        Viewport clip = this.getScreenshotClip(options);
+        if (Boolean.parseBoolean(options.get(OPTION_SCREENSHOT_FULL_PAGE)))
+        {
+            final GetLayoutMetricsResponse layoutMetricsRs = await(this.client.sendAsync("Page", "getLayoutMetrics", sessionId, null,
+                    GetLayoutMetricsResponse::new, remainingTime(deadline, "determining page size")), deadline, "determining page size");
+            final int contentHeight = (int) Math.ceil(layoutMetricsRs.getContentHeight());
+            if (clip != null)
+            {
+                clip = new Viewport(clip.getX(), clip.getY(), clip.getWidth(), Math.max(contentHeight - clip.getY(), 1), clip.getScale());
+            }
+            else
+            {
+                // without an explicit viewport, the full page is the entire content area at its natural scale
+                final int contentWidth = (int) Math.ceil(layoutMetricsRs.getContentWidth());
+                clip = new Viewport(0, 0, Math.max(contentWidth, 1), Math.max(contentHeight, 1), 1);
+            }
+            screenshotRq.setClip(clip);
+        }
+
+        // JDK JPEG encoder always requires the full raster, so only PNG benefits from tiling
+        if (IMAGE_PNG.equals(targetMimetype) && clip != null && this.screenshotTileHeight > 0
+                && clip.getHeight() > this.screenshotTileHeight)
+        {
+            final int cssTileHeight = this.determineCssTileHeight(clip.getScale());
+            if (cssTileHeight > 0)
+            {
+                this.createTiledScreenshot(sessionId, targetFile, screenshotRq, clip, cssTileHeight, deadline);
+                return;
+            }
+            LOGGER.debug("Capturing screenshot without tiling as no suitable tile height exists for scale {}", clip.getScale());
+        }
+
+        final CaptureScreenshotResponse screenshotRs = await(this.client.sendAsync(sessionId, screenshotRq, CaptureScreenshotResponse::new,
+                remainingTime(deadline, "capturing screenshot")), deadline, "capturing screenshot");
 
         final Decoder base64Decoder = Base64.getDecoder();
 
@@ -446,35 +871,313 @@ public class DevToolsTransformer extends AbstractTransformer
         }
     }
 
-    private void closeSession(final String sessionId)
+    private int determineCssTileHeight(final double scale)
     {
-        try
+        // tiles must map to an exact number of screenshot pixels (CSS pixels times scale, as no device scale factor is emulated), so
+        // that tiles can be placed without overlap / gaps - fall back to untiled capture if that requires unreasonably small tiles
+        final int minCssTileHeight = Math.max(1, this.screenshotTileHeight / 2);
+        int cssTileHeight = -1;
+        for (int candidate = this.screenshotTileHeight; candidate >= minCssTileHeight && cssTileHeight == -1; candidate--)
+        {
+            final double tileHeight = candidate * scale;
+            if (tileHeight >= 1 && Math.abs(tileHeight - Math.rint(tileHeight)) < 1e-6)
+            {
+                cssTileHeight = candidate;
+            }
+        }
+        return cssTileHeight;
+    }
+
+    private void createTiledScreenshot(final String sessionId, final Path targetFile, final CaptureScreenshotParameters screenshotRq,
+            final Viewport clip, final int cssTileHeight, final long deadline)
+    {
+        final int numTiles = (clip.getHeight() + cssTileHeight - 1) / cssTileHeight;
+        LOGGER.debug("Capturing screenshot with height {} in {} tiles", clip.getHeight(), numTiles);
+
+        // all but the last tile have an exact pixel height - any deviation of actual tiles is rejected by the tiled image
+        final int tileHeight = (int) Math.rint(cssTileHeight * clip.getScale());
+        final int lastCssTileHeight = clip.getHeight() - (numTiles - 1) * cssTileHeight;
+        final int height = (numTiles - 1) * tileHeight + (int) Math.max(1, Math.round(lastCssTileHeight * clip.getScale()));
+
+        final Decoder base64Decoder = Base64.getDecoder();
+        final TiledScreenshotImage image = new TiledScreenshotImage(tileIndex -> {
+            final int tileOffset = tileIndex * cssTileHeight;
+            final Viewport tileClip = new Viewport(clip.getX(), clip.getY() + tileOffset, clip.getWidth(),
+                    Math.min(cssTileHeight, clip.getHeight() - tileOffset), clip.getScale());
+
+            // tiles must be captured with the same format / quality / capture mode as a screenshot in one piece
+            final CaptureScreenshotParameters tileRq = screenshotRq.withClip(tileClip);
+            final CaptureScreenshotResponse tileRs = await(this.client.sendAsync(sessionId, tileRq, CaptureScreenshotResponse::new,
+                    remainingTime(deadline, "capturing screenshot tile")), deadline, "capturing screenshot tile");
+
+            try
+            {
+                final BufferedImage tile = ImageIO.read(new ByteArrayInputStream(base64Decoder.decode(tileRs.getData())));
+                if (tile == null)
+                {
+                    throw new TransformationException(500, "Failed to decode screenshot tile");
+                }
+                return tile;
+            }
+            catch (final IOException ioex)
+            {
+                throw new TransformationException(500, "Failed to decode screenshot tile", ioex);
+            }
+        }, height, tileHeight);
+
+        try (OutputStream os = Files.newOutputStream(targetFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            if (!ImageIO.write(image, "png", os))
+            {
+                throw new TransformationException(500, "No PNG image writer available");
+            }
+        }
+        catch (final IllegalStateException isex)
+        {
+            throw new TransformationException(500, "Failed to compose screenshot from tiles", isex);
+        }
+        catch (final IOException ioex)
+        {
+            throw new TransformationException(500, "Failed to write result image", ioex);
+        }
+    }
+
+    private void closeSessionAndTarget(final String sessionId, final String targetId)
+    {
+        // detach and close are independent of each other, so both are sent before waiting for either
+        CompletableFuture<Void> sessionClosed = CompletableFuture.completedFuture(null);
+        if (sessionId != null)
         {
             final DetachFromTargetParameters detachTargetRq = new DetachFromTargetParameters();
             detachTargetRq.setSessionId(sessionId);
-            this.client.send(detachTargetRq);
+            sessionClosed = this.client.sendAsync(null, detachTargetRq, CLEANUP_TIMEOUT).exceptionally(t -> {
+                LOGGER.warn("Error closing session {}", sessionId, t);
+                return null;
+            });
         }
-        catch (final DevToolsException dte)
+
+        final CloseTargetParameters closeTargetRq = new CloseTargetParameters();
+        closeTargetRq.setTargetId(targetId);
+        final CompletableFuture<Void> targetClosed = this.client.sendAsync(null, closeTargetRq, CLEANUP_TIMEOUT).exceptionally(t -> {
+            LOGGER.warn("Error closing target {}", targetId, t);
+            return null;
+        });
+
+        try
         {
-            LOGGER.warn("Error closing session {}", sessionId, dte);
+            CompletableFuture.allOf(sessionClosed, targetClosed).join();
         }
         finally
         {
-            this.client.discardSessionData(sessionId);
+            if (sessionId != null)
+            {
+                this.client.discardSessionData(sessionId);
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor(final int threads, final String threadNamePrefix)
+    {
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static long remainingTime(final long deadline, final String step)
+    {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0)
+        {
+            throw new TransformationException(408, "Timed out " + step);
         }
+        return remaining;
     }
 
-    private void closeTarget(final String targetId)
+    private static <T> T await(final CompletableFuture<T> future, final long deadline, final String step)
     {
         try
         {
-            final CloseTargetParameters closeTargetRq = new CloseTargetParameters();
-            closeTargetRq.setTargetId(targetId);
-            this.client.send(closeTargetRq);
+            return future.join();
         }
-        catch (final DevToolsException dte)
+        catch (final CompletionException | CancellationException ex)
         {
-            LOGGER.warn("Error closing target {}", targetId, dte);
+            final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof TransformationException)
+            {
+                throw (TransformationException) cause;
+            }
+            if (cause instanceof TimeoutException || System.currentTimeMillis() >= deadline)
+            {
+                throw new TransformationException(408, "Timed out " + step, cause);
+            }
+            if (cause instanceof DevToolsException)
+            {
+                throw (DevToolsException) cause;
+            }
+            throw new DevToolsException("Error " + step, cause);
+        }
+    }
+
+    private static void recordMetric(final MutableEntry logEntry, final String name, final long value)
+    {
+        if (logEntry != null)
+        {
+            logEntry.recordMetric(name, value);
+        }
+    }
+
+    /**
+     * The strategies to determine when a page is ready to be rendered. All strategies require the load event to have fired, with any
+     * lifecycle event only being waited on for a limited time after that.
+     *
+     * @author Axel Faust
+     */
+    private enum PageReadyStrategy
+    {
+        LOAD("load", null),
+        NETWORK_IDLE_0("networkIdle0", "networkIdle"),
+        NETWORK_IDLE_2("networkIdle2", "networkAlmostIdle"),
+        FIRST_MEANINGFUL_PAINT("firstMeaningfulPaint", "firstMeaningfulPaint");
+
+        private final String optionValue;
+
+        private final String lifecycleEvent;
+
+        PageReadyStrategy(final String optionValue, final String lifecycleEvent)
+        {
+            this.optionValue = optionValue;
+            this.lifecycleEvent = lifecycleEvent;
+        }
+
+        private static Optional<PageReadyStrategy> fromOptionValue(final String optionValue)
+        {
+            return Arrays.stream(values()).filter(s -> s.optionValue.equalsIgnoreCase(optionValue.trim())).findFirst();
+        }
+    }
+
+    /**
+     * Instances of this class represent individual documents in a {@link DevToolsTransformer#transformBatch(List, List, long, Consumer)
+     * batch transformation}.
+     *
+     * @author Axel Faust
+     */
+    public static class BatchDocument
+    {
+
+        private final Path sourceFile;
+
+        private final String sourceMimetype;
+
+        private final List<Path> targetFiles;
+
+        private volatile StatusException failure;
+
+        public BatchDocument(final Path sourceFile, final String sourceMimetype, final List<Path> targetFiles)
+        {
+            Objects.requireNonNull(sourceFile, "The source file must be specified");
+            Objects.requireNonNull(sourceMimetype, "The source mimetype must be specified");
+            Objects.requireNonNull(targetFiles, "The target files must be specified");
+            if (targetFiles.isEmpty() || targetFiles.contains(null))
+            {
+                throw new IllegalArgumentException("At least one target file must be specified, and none can be null");
+            }
+
+            this.sourceFile = sourceFile;
+            this.sourceMimetype = sourceMimetype;
+            this.targetFiles = Collections.unmodifiableList(new ArrayList<>(targetFiles));
+        }
+
+        /**
+         * @return the sourceFile
+         */
+        public Path getSourceFile()
+        {
+            return this.sourceFile;
+        }
+
+        /**
+         * @return the sourceMimetype
+         */
+        public String getSourceMimetype()
+        {
+            return this.sourceMimetype;
+        }
+
+        /**
+         * @return the target files, in the order of the targets of the batch
+         */
+        public List<Path> getTargetFiles()
+        {
+            return this.targetFiles;
+        }
+
+        /**
+         * @return the failure which prevented the transformation of this document, or {@code null} if the transformation succeeded
+         */
+        public StatusException getFailure()
+        {
+            return this.failure;
+        }
+
+        private void setFailure(final StatusException failure)
+        {
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Instances of this class represent the individual targets in a {@link DevToolsTransformer#transformBatch(List, List, long, Consumer)
+     * batch transformation}, into which each document of the batch is transformed.
+     *
+     * @author Axel Faust
+     */
+    public static class BatchTarget
+    {
+
+        private final String targetMimetype;
+
+        private final Map<String, String> options;
+
+        public BatchTarget(final String targetMimetype, final Map<String, String> options)
+        {
+            Objects.requireNonNull(targetMimetype, "The target mimetype must be specified");
+            Objects.requireNonNull(options, "The options must be specified");
+
+            this.targetMimetype = targetMimetype;
+            this.options = options;
+        }
+
+        /**
+         * @return the targetMimetype
+         */
+        public String getTargetMimetype()
+        {
+            return this.targetMimetype;
+        }
+
+        /**
+         * @return the options for the transformation into this target
+         */
+        public Map<String, String> getOptions()
+        {
+            return this.options;
+        }
+    }
+
+    private static class RenderTab
+    {
+
+        private final String targetId;
+
+        private final String sessionId;
+
+        private RenderTab(final String targetId, final String sessionId)
+        {
+            this.targetId = targetId;
+            this.sessionId = sessionId;
         }
     }
 
@@ -536,6 +1239,18 @@ public class DevToolsTransformer extends AbstractTransformer
             throw new TransformationException(400, "JPEG quality must be a valid number");
         }
 
+        params.setClip(this.getScreenshotClip(options));
+
+        final String fullPage = options.get(OPTION_SCREENSHOT_FULL_PAGE);
+        if (fullPage != null && !"true".equalsIgnoreCase(fullPage) && !"false".equalsIgnoreCase(fullPage))
+        {
+            throw new TransformationException(400, "Full page flag must be either true or false");
+        }
+    }
+
+    private Viewport getScreenshotClip(final Map<String, String> options)
+    {
+        Viewport clip = null;
         if (options.containsKey("screenshotViewportX") || options.containsKey("screenshotViewportY")
                 || options.containsKey("screenshotViewportWidth") || options.containsKey("screenshotViewportHeight")
                 || options.containsKey("screenshotViewportScale"))
@@ -559,14 +1274,14 @@ public class DevToolsTransformer extends AbstractTransformer
                 final int height = Integer.parseInt(viewportHeight);
                 final double scale = Double.parseDouble(viewportScale);
 
-                final Viewport viewport = new Viewport(x, y, width, height, scale);
-                params.setClip(viewport);
+                clip = new Viewport(x, y, width, height, scale);
             }
             catch (final NumberFormatException nfe)
             {
                 throw new TransformationException(400, "Viewport definition parameters must be valid numbers");
             }
         }
+        return clip;
     }
 
     private void handleFloatingPointParam(final String name, final Map<String, String> params, final boolean mmToIn,
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Instances of this class represent a mail header HTML template which has been pre-split at its field placeholders
+ * ({@code <span class="$fieldName"></span>}), so that rendering the header for a specific mail only consists of appending the static
+ * template segments and the field contents in turn.
+ *
+ * @author Axel Faust
+ */
+public class MailHeaderTemplate
+{
+
+    private static final Pattern PLACEHOLDER_SPAN_PATTERN = Pattern.compile("<span\\s+class=\"([^\"]+)\">");
+
+    private final String[] segments;
+
+    private final String[] fields;
+
+    private final int length;
+
+    /**
+     * Constructs a new template instance by parsing the HTML of the template.
+     *
+     * @param templateHtml
+     *     the HTML of the template
+     */
+    public MailHeaderTemplate(final String templateHtml)
+    {
+        Objects.requireNonNull(templateHtml, "The template HTML must be provided");
+
+        final List<String> segments = new ArrayList<>();
+        final List<String> fields = new ArrayList<>();
+
+        final Matcher matcher = PLACEHOLDER_SPAN_PATTERN.matcher(templateHtml);
+        int segmentStart = 0;
+        while (matcher.find())
+        {
+            // field content is inserted directly after the start tag of the placeholder
+            segments.add(templateHtml.substring(segmentStart, matcher.end()));
+            fields.add(matcher.group(1));
+            segmentStart = matcher.end();
+        }
+        segments.add(templateHtml.substring(segmentStart));
+
+        this.segments = segments.toArray(new String[0]);
+        this.fields = fields.toArray(new String[0]);
+        this.length = templateHtml.length();
+    }
+
+    /**
+     * Renders the mail header for a specific mail.
+     *
+     * @param fieldContents
+     *     the (already HTML-encoded) contents of the mail header fields, keyed by the field name
+     * @param target
+     *     the builder to which to append the rendered mail header
+     */
+    public void render(final Map<String, String> fieldContents, final StringBuilder target)
+    {
+        target.ensureCapacity(target.length() + this.length + fieldContents.values().stream().mapToInt(String::length).sum());
+
+        target.append(this.segments[0]);
+        for (int idx = 0; idx < this.fields.length; idx++)
+        {
+            final String fieldContent = fieldContents.get(this.fields[idx]);
+            if (fieldContent != null)
+            {
+                target.append(fieldContent);
+            }
+            target.append(this.segments[idx + 1]);
+        }
+    }
+}
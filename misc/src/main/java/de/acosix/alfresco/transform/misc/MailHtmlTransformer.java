@@ -13,10 +13,13 @@
  */
 package de.acosix.alfresco.transform.misc;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -25,9 +28,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Base64.Encoder;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -35,8 +40,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.UUID;
+import java.util.function.Function;
 
 import org.owasp.encoder.Encode;
 import org.slf4j.Logger;
@@ -53,9 +58,11 @@ import jakarta.mail.Message.RecipientType;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Multipart;
 import jakarta.mail.Part;
+import jakarta.mail.internet.ContentType;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
 import jakarta.mail.util.SharedFileInputStream;
 
 /**
@@ -76,9 +83,67 @@ public class MailHtmlTransformer extends AbstractTransformer
 
     private static final String APPLICATION_XHTML = "application/xhtml+xml";
 
+    private static final String LOCALISED_RESOURCE_PREFIX = "mailHtml.mailHeaderHtml.localisedResource.";
+
+    // stored parts can only be resolved by the DevTools transformer of this instance, so storing must be requested explicitly
+    private static final String OPTION_EXTERNALIZE_INLINE_PARTS = "externalizeInlineParts";
+
+    private final String defaultTimezone;
+
+    private final String defaultLocale;
+
+    private final long resourceReloadCheckInterval;
+
+    private final CachedResource<String> mailHeaderCssResource;
+
+    private final CachedResource<MailHeaderTemplate> defaultMailHeaderResource;
+
+    private final Map<String, CachedResource<MailHeaderTemplate>> localisedMailHeaderResources;
+
+    private final MailInlinePartStore inlinePartStore;
+
     public MailHtmlTransformer(final Context context, final TransformationLog transformationLog)
     {
         super("MailHtml", context, transformationLog);
+
+        this.defaultTimezone = context.getStringProperty("mailHtml.defaultTimezone", "UTC");
+        this.defaultLocale = context.getStringProperty("mailHtml.defaultLocale", "en_GB");
+        this.resourceReloadCheckInterval = context.getLongProperty("mailHtml.resourceReloadCheckInterval", 0, 0, Long.MAX_VALUE);
+
+        // all resources are loaded and parsed once, instead of for every transformation
+        final String cssResource = context.getStringProperty("mailHtml.mailHeaderCss.resource");
+        if (cssResource == null || cssResource.isBlank())
+        {
+            throw new IllegalStateException("A CSS resource for the mail header was not configured");
+        }
+        this.mailHeaderCssResource = new CachedResource<>(cssResource.trim(), css -> "<style type=\"text/css\">\n" + css + '\n');
+
+        final String defaultHtmlResource = context.getStringProperty("mailHtml.mailHeaderHtml.defaultResource");
+        if (defaultHtmlResource == null || defaultHtmlResource.isBlank())
+        {
+            throw new IllegalStateException("A default HTML template resource for the mail header was not configured");
+        }
+        this.defaultMailHeaderResource = new CachedResource<>(defaultHtmlResource.trim(), MailHeaderTemplate::new);
+
+        final Map<String, CachedResource<MailHeaderTemplate>> resourcesByName = new HashMap<>();
+        resourcesByName.put(this.defaultMailHeaderResource.resourceName, this.defaultMailHeaderResource);
+        final Map<String, CachedResource<MailHeaderTemplate>> localisedMailHeaderResources = new HashMap<>();
+        for (final String propertyName : context.getPropertyNames())
+        {
+            final String htmlResource = context.getStringProperty(propertyName);
+            if (propertyName.startsWith(LOCALISED_RESOURCE_PREFIX) && htmlResource != null && !htmlResource.isBlank())
+            {
+                final String localeKey = propertyName.substring(LOCALISED_RESOURCE_PREFIX.length()).toLowerCase(Locale.ENGLISH);
+                localisedMailHeaderResources.put(localeKey,
+                        resourcesByName.computeIfAbsent(htmlResource.trim(), r -> new CachedResource<>(r, MailHeaderTemplate::new)));
+            }
+        }
+        this.localisedMailHeaderResources = Collections.unmodifiableMap(localisedMailHeaderResources);
+
+        final String inlinePartsLocalResource = context.getStringProperty("mailHtml.inlineParts.localResource");
+        this.inlinePartStore = inlinePartsLocalResource != null && !inlinePartsLocalResource.isBlank()
+                ? new MailInlinePartStore(context, inlinePartsLocalResource.trim())
+                : null;
     }
 
     /**
@@ -97,22 +162,30 @@ public class MailHtmlTransformer extends AbstractTransformer
         try (SharedFileInputStream mis = new SharedFileInputStream(sourceFile.toFile()))
         {
             final MimeMessage mail = new MimeMessage(null, mis);
-            final StringBuilder mailContent = this.resolvePrimaryMailContent(mail);
-            this.injectMailHeader(mail, options, mailContent);
+            // single pass over the MIME structure, never decoding any body that is not needed for the result
+            final MailStructure mailStructure = this.analyseMailStructure(mail);
+            final Part primaryPart = mailStructure.primaryPart;
 
-            final Map<String, MimeBodyPart> inlineParts = this.collectInlineParts(mail);
+            final StringBuilder mailHeaderCss = new StringBuilder(BUFFER_SIZE);
+            final StringBuilder mailHeader = new StringBuilder(2 * BUFFER_SIZE);
+            this.buildMailHeader(mail, mailStructure.attachments, options, mailHeaderCss, mailHeader);
 
-            try (OutputStreamWriter osw = new OutputStreamWriter(
+            // mail content is streamed from the (decoded) primary part to the result file, with header and inline parts injected on the fly
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
                     Files.newOutputStream(targetFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
-                    StandardCharsets.UTF_8))
+                    StandardCharsets.UTF_8), BUFFER_SIZE))
             {
-                if (inlineParts.isEmpty())
+                if (isContentType(primaryPart, TEXT_HTML))
                 {
-                    osw.write(mailContent.toString());
+                    final MailInlinePartStore inlinePartStore = Boolean.parseBoolean(options.get(OPTION_EXTERNALIZE_INLINE_PARTS))
+                            ? this.inlinePartStore
+                            : null;
+                    this.writeHtmlContent(writer, primaryPart, mailHeaderCss.toString(), mailHeader.toString(),
+                            mailStructure.inlineParts, inlinePartStore);
                 }
                 else
                 {
-                    this.writeHtmlWithInlineParts(osw, mailContent, inlineParts);
+                    this.writeTextContent(writer, mail.getSubject(), primaryPart, mailHeaderCss.toString(), mailHeader.toString());
                 }
             }
             catch (final IOException iex)
@@ -126,61 +199,41 @@ public class MailHtmlTransformer extends AbstractTransformer
         }
     }
 
-    private StringBuilder resolvePrimaryMailContent(final MimeMessage mimeMessage)
+    private MailStructure analyseMailStructure(final MimeMessage mimeMessage)
     {
         try
         {
-            final StringBuilder mailContent;
-
-            final String contentType = mimeMessage.getContentType();
-            if (TEXT_HTML.equals(contentType) || contentType.startsWith(TEXT_HTML + ";"))
+            final MailStructure mailStructure = new MailStructure();
+            if (isContentType(mimeMessage, TEXT_HTML) || isContentType(mimeMessage, TEXT_PLAIN))
             {
-                final String content = String.valueOf(mimeMessage.getContent());
-                mailContent = new StringBuilder(content);
+                mailStructure.primaryPart = mimeMessage;
             }
-            else if (TEXT_PLAIN.equals(contentType) || contentType.startsWith(TEXT_PLAIN + ";"))
+            else if (mimeMessage.isMimeType("multipart/*"))
             {
-                mailContent = new StringBuilder(BUFFER_SIZE);
-                mailContent.append("<!DOCTYPE html><html><head><title>").append(Encode.forHtmlContent(mimeMessage.getSubject()))
-                        .append("</title></head><body>");
-
-                String content = String.valueOf(mimeMessage.getContent());
-                content = Encode.forHtmlContent(content);
-                content = content.replaceAll("\\n", "<br />");
-                mailContent.append(content).append("</body></html>");
+                this.analyseMailStructure((Multipart) mimeMessage.getContent(), mailStructure);
             }
-            else
+
+            if (mailStructure.primaryPart == null)
             {
-                final Object content = mimeMessage.getContent();
-                if (content instanceof Multipart)
-                {
-                    mailContent = this.resolvePrimaryMailContent(mimeMessage.getSubject(), (Multipart) content);
-                }
-                else
-                {
-                    throw new TransformationException(400, "Could not find text or HTML primary content in mail");
-                }
+                throw new TransformationException(400, "Could not find text or HTML primary content in mail");
             }
-
-            return mailContent;
+            return mailStructure;
         }
-        catch (IOException | MessagingException ex)
+        catch (final IOException | MessagingException ex)
         {
-            throw new TransformationException(500, "Failed to read primary content of mail", ex);
+            throw new TransformationException(500, "Failed to process structure of mail", ex);
         }
     }
 
-    private StringBuilder resolvePrimaryMailContent(final String subject, final Multipart mailPart) throws MessagingException, IOException
+    private void analyseMailStructure(final Multipart mailPart, final MailStructure mailStructure) throws MessagingException, IOException
     {
-        final StringBuilder mailContent;
-
         final List<Multipart> mpsToProcess = new LinkedList<>();
         mpsToProcess.add(mailPart);
 
         BodyPart htmlPart = null;
         BodyPart textPart = null;
 
-        while (htmlPart == null && !mpsToProcess.isEmpty())
+        while (!mpsToProcess.isEmpty())
         {
             final Multipart mp = mpsToProcess.remove(0);
 
@@ -189,91 +242,150 @@ public class MailHtmlTransformer extends AbstractTransformer
             {
                 final BodyPart part = mp.getBodyPart(i);
 
-                final String contentType = part.getContentType();
-                if (TEXT_HTML.equals(contentType) || contentType.startsWith(TEXT_HTML + ";"))
-                {
-                    htmlPart = part;
-                }
-                else if (TEXT_PLAIN.equals(contentType) || contentType.startsWith(TEXT_PLAIN + ";"))
+                // only multipart containers are ever parsed - getContent() on any other part would decode its entire body
+                if (part.isMimeType("multipart/*"))
                 {
-                    textPart = part;
+                    mpsToProcess.add((Multipart) part.getContent());
                 }
                 else
                 {
-                    final Object partContent = part.getContent();
-                    if (partContent instanceof Multipart)
+                    final String disposition = part.getDisposition();
+                    if (Part.ATTACHMENT.equals(disposition))
                     {
-                        mpsToProcess.add((Multipart) partContent);
+                        mailStructure.attachments.add(part);
+                    }
+                    else
+                    {
+                        if (htmlPart == null && isContentType(part, TEXT_HTML))
+                        {
+                            htmlPart = part;
+                        }
+                        else if (textPart == null && isContentType(part, TEXT_PLAIN))
+                        {
+                            textPart = part;
+                        }
+
+                        if (Part.INLINE.equals(disposition) && part instanceof MimeBodyPart)
+                        {
+                            String contentId = ((MimeBodyPart) part).getContentID();
+                            if (contentId != null && !contentId.isBlank())
+                            {
+                                if (contentId.startsWith("<") && contentId.endsWith(">"))
+                                {
+                                    contentId = contentId.substring(1, contentId.length() - 1);
+                                }
+                                mailStructure.inlineParts.put(contentId, (MimeBodyPart) part);
+                            }
+                        }
                     }
                 }
             }
         }
 
-        if (htmlPart != null)
+        mailStructure.primaryPart = htmlPart != null ? htmlPart : textPart;
+    }
+
+    private void writeHtmlContent(final Writer writer, final Part htmlPart, final String mailHeaderCss, final String mailHeader,
+            final Map<String, MimeBodyPart> inlineParts, final MailInlinePartStore inlinePartStore) throws IOException
+    {
+        // buffers are shared for all inline parts of the mail
+        final MailHtmlWriter.InlinePartWriter inlinePartWriter = inlineParts.isEmpty() ? null : new InlinePartReferenceWriter(inlineParts,
+                inlinePartStore);
+
+        // HTML writer is only finished, not closed, as closing it would close the result file writer which is handled by the caller
+        final MailHtmlWriter htmlWriter = new MailHtmlWriter(writer, mailHeaderCss, mailHeader, inlinePartWriter);
+        try (Reader reader = this.openContentReader(htmlPart))
         {
-            final String partContent = String.valueOf(htmlPart.getContent());
-            mailContent = new StringBuilder(partContent);
+            final char[] buf = new char[BUFFER_SIZE];
+            int read = -1;
+            while ((read = reader.read(buf)) != -1)
+            {
+                htmlWriter.write(buf, 0, read);
+            }
         }
-        else if (textPart != null)
-        {
-            mailContent = new StringBuilder(BUFFER_SIZE);
-            mailContent.append("<!DOCTYPE html><html><head><title>").append(Encode.forHtmlContent(subject)).append("</title></head><body>");
+        htmlWriter.finish();
 
-            String partContent = String.valueOf(textPart.getContent());
-            partContent = Encode.forHtmlContent(partContent);
-            partContent = partContent.replaceAll("\\n", "<br />");
-            mailContent.append(partContent).append("</body></html>");
-        }
-        else
+        if (!htmlWriter.isBodyContentWritten())
         {
-            throw new TransformationException(400, "Could not find text or HTML primary content in mail");
+            throw new TransformationException(500, "Failed to inject mail header as HTML content of mail does not contain a body element");
         }
-        return mailContent;
     }
 
-    private void injectMailHeader(final MimeMessage mimeMessage, final Map<String, String> options, final StringBuilder mailHtml)
-            throws MessagingException
+    private void writeTextContent(final Writer writer, final String subject, final Part textPart, final String mailHeaderCss,
+            final String mailHeader) throws IOException
     {
-        final String htmlResource = this.resolveEffectiveHtmlResource(options);
-        final String cssResource = this.context.getStringProperty("mailHtml.mailHeaderCss.resource");
-
-        if (htmlResource == null)
+        writer.write("<!DOCTYPE html><html><head><title>");
+        Encode.forHtmlContent(writer, subject);
+        writer.write("</title>");
+        writer.write(mailHeaderCss);
+        writer.write("</head><body>");
+        writer.write(mailHeader);
+
+        try (Reader reader = this.openContentReader(textPart))
         {
-            throw new TransformationException(500,
-                    "A HTML template resource for the mail header was not configured / could not be determined");
-        }
-        if (cssResource == null)
-        {
-            throw new TransformationException(500, "A CSS resource for the mail header was not configured");
-        }
+            final char[] buf = new char[BUFFER_SIZE];
+            int offset = 0;
+            int read = -1;
+            while ((read = reader.read(buf, offset, buf.length - offset)) != -1)
+            {
+                int end = offset + read;
+                // never split a surrogate pair across chunks as encoding would treat each half as invalid
+                final boolean trailingHighSurrogate = end > 0 && Character.isHighSurrogate(buf[end - 1]);
+                if (trailingHighSurrogate)
+                {
+                    end--;
+                }
 
-        final StringBuilder dynamicMailHeaderCss = new StringBuilder(1024);
-        final StringBuilder mailHeader = new StringBuilder(this.loadTextResource(htmlResource));
+                int lineStart = 0;
+                for (int idx = 0; idx < end; idx++)
+                {
+                    if (buf[idx] == '\n')
+                    {
+                        Encode.forHtmlContent(writer, new String(buf, lineStart, idx - lineStart));
+                        writer.write("<br />");
+                        lineStart = idx + 1;
+                    }
+                }
+                Encode.forHtmlContent(writer, new String(buf, lineStart, end - lineStart));
 
-        this.prepareMailHeader(mimeMessage, options, mailHeader, dynamicMailHeaderCss);
+                offset = 0;
+                if (trailingHighSurrogate)
+                {
+                    buf[0] = buf[end];
+                    offset = 1;
+                }
+            }
+            if (offset > 0)
+            {
+                Encode.forHtmlContent(writer, new String(buf, 0, offset));
+            }
+        }
 
-        final int headEnd = mailHtml.indexOf("</head>");
-        // insert back-to-front so that we don't have to update / re-determine the offset
-        mailHtml.insert(headEnd, "\n</style>");
-        mailHtml.insert(headEnd, dynamicMailHeaderCss);
-        mailHtml.insert(headEnd, '\n');
-        mailHtml.insert(headEnd, this.loadTextResource(cssResource));
-        mailHtml.insert(headEnd, "<style type=\"text/css\">\n");
+        writer.write("</body></html>");
+    }
 
-        final int bodyStart = mailHtml.indexOf("<body", headEnd);
-        final int bodyStartEnd = mailHtml.indexOf(">", bodyStart);
-        mailHtml.insert(bodyStartEnd + 1, mailHeader);
+    private Reader openContentReader(final Part part) throws IOException
+    {
+        try
+        {
+            // default as used by Jakarta Mail text content handlers
+            String charset = new ContentType(part.getContentType()).getParameter("charset");
+            charset = MimeUtility.javaCharset(charset != null ? charset : "us-ascii");
+            return new InputStreamReader(part.getInputStream(), charset);
+        }
+        catch (final MessagingException mex)
+        {
+            throw new TransformationException(500, "Failed to read primary content of mail", mex);
+        }
     }
 
-    private void prepareMailHeader(final MimeMessage mimeMessage, final Map<String, String> options, final StringBuilder mailHeader,
-            final StringBuilder dynamicMailHeaderCss) throws MessagingException
+    private void buildMailHeader(final MimeMessage mimeMessage, final List<Part> attachments, final Map<String, String> options,
+            final StringBuilder mailHeaderCss, final StringBuilder mailHeader) throws MessagingException
     {
-        final String defaultTz = this.context.getStringProperty("mailHtml.defaultTimezone", "UTC");
-        final String tz = options.getOrDefault("timezone", defaultTz);
+        final String tz = options.getOrDefault("timezone", this.defaultTimezone);
         final TimeZone tzO = TimeZone.getTimeZone(tz);
 
-        final String defaultLocale = this.context.getStringProperty("mailHtml.defaultLocale", "en_GB");
-        final String locale = options.getOrDefault("locale", defaultLocale);
+        final String locale = options.getOrDefault("locale", this.defaultLocale);
         final Locale localeO = Locale.forLanguageTag(locale);
 
         final DateFormat df = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.LONG, localeO);
@@ -282,66 +394,58 @@ public class MailHtmlTransformer extends AbstractTransformer
         final Date sentDate = mimeMessage.getSentDate();
         final String sentDateS = df.format(sentDate);
 
-        this.addFieldToHeader("from", this.addressesToContent(mimeMessage.getFrom()), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("date", Encode.forHtmlContent(sentDateS), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("subject", Encode.forHtmlContent(mimeMessage.getSubject()), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("to", this.addressesToContent(mimeMessage.getRecipients(RecipientType.TO)), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("cc", this.addressesToContent(mimeMessage.getRecipients(RecipientType.CC)), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("bcc", this.addressesToContent(mimeMessage.getRecipients(RecipientType.BCC)), mailHeader,
+        final Map<String, String> fieldContents = new HashMap<>();
+        final StringBuilder dynamicMailHeaderCss = new StringBuilder(1024);
+
+        this.addFieldToHeader("from", this.addressesToContent(mimeMessage.getFrom()), fieldContents, dynamicMailHeaderCss);
+        this.addFieldToHeader("date", Encode.forHtmlContent(sentDateS), fieldContents, dynamicMailHeaderCss);
+        this.addFieldToHeader("subject", Encode.forHtmlContent(mimeMessage.getSubject()), fieldContents, dynamicMailHeaderCss);
+        this.addFieldToHeader("to", this.addressesToContent(mimeMessage.getRecipients(RecipientType.TO)), fieldContents,
                 dynamicMailHeaderCss);
-        this.addFieldToHeader("replyTo", this.addressesToContent(mimeMessage.getReplyTo()), mailHeader, dynamicMailHeaderCss);
-        this.addFieldToHeader("attachments", this.partsToAttachmentsContent(mimeMessage), mailHeader, dynamicMailHeaderCss);
-    }
+        this.addFieldToHeader("cc", this.addressesToContent(mimeMessage.getRecipients(RecipientType.CC)), fieldContents,
+                dynamicMailHeaderCss);
+        this.addFieldToHeader("bcc", this.addressesToContent(mimeMessage.getRecipients(RecipientType.BCC)), fieldContents,
+                dynamicMailHeaderCss);
+        this.addFieldToHeader("replyTo", this.addressesToContent(mimeMessage.getReplyTo()), fieldContents, dynamicMailHeaderCss);
+        this.addFieldToHeader("attachments", this.partsToAttachmentsContent(attachments), fieldContents, dynamicMailHeaderCss);
 
-    private String resolveEffectiveHtmlResource(final Map<String, String> options)
-    {
-        final String defaultLocale = this.context.getStringProperty("mailHtml.defaultLocale", "en");
-        final String locale = options.getOrDefault("locale", defaultLocale);
+        this.resolveEffectiveMailHeaderResource(locale).get().render(fieldContents, mailHeader);
 
-        final StringBuilder keyBuilder = new StringBuilder("mailHtml.mailHeaderHtml.localisedResource.");
-        final int localeStartIdx = keyBuilder.length();
-        keyBuilder.append(locale.toLowerCase(Locale.ENGLISH));
+        mailHeaderCss.append(this.mailHeaderCssResource.get());
+        mailHeaderCss.append(dynamicMailHeaderCss);
+        mailHeaderCss.append("\n</style>");
+    }
 
-        String htmlResource = null;
-        boolean canContinue = true;
-        do
+    private CachedResource<MailHeaderTemplate> resolveEffectiveMailHeaderResource(final String locale)
+    {
+        String localeKey = locale.toLowerCase(Locale.ENGLISH);
+        CachedResource<MailHeaderTemplate> htmlResource = this.localisedMailHeaderResources.get(localeKey);
+        int lastUnderscore = localeKey.lastIndexOf('_');
+        while (htmlResource == null && lastUnderscore > 0)
         {
-            htmlResource = this.context.getStringProperty(keyBuilder.toString());
-
-            final int lastUnderscore = keyBuilder.lastIndexOf("_");
-            canContinue = htmlResource == null && lastUnderscore > localeStartIdx;
-            if (canContinue)
-            {
-                keyBuilder.delete(lastUnderscore, keyBuilder.length());
-            }
+            localeKey = localeKey.substring(0, lastUnderscore);
+            htmlResource = this.localisedMailHeaderResources.get(localeKey);
+            lastUnderscore = localeKey.lastIndexOf('_');
         }
-        while (canContinue);
 
         if (htmlResource == null)
         {
             LOGGER.debug("Unable to find localised mail header HTML resource for locale {}", locale);
-            htmlResource = this.context.getStringProperty("mailHtml.mailHeaderHtml.defaultResource");
+            htmlResource = this.defaultMailHeaderResource;
         }
         else
         {
-            LOGGER.debug("Found localised mail header HTML resource for locale key {} (request locale {})",
-                    keyBuilder.substring(localeStartIdx), locale);
+            LOGGER.debug("Found localised mail header HTML resource for locale key {} (request locale {})", localeKey, locale);
         }
         return htmlResource;
     }
 
-    private void addFieldToHeader(final String field, final String fieldContent, final StringBuilder mailHeader,
+    private void addFieldToHeader(final String field, final String fieldContent, final Map<String, String> fieldContents,
             final StringBuilder dynamicMailHeaderCss)
     {
         if (fieldContent != null && !fieldContent.isBlank())
         {
-            final String placeholderSpanPattern = "<span\\s+class=\"" + field + "\">";
-            final Matcher matcher = Pattern.compile(placeholderSpanPattern).matcher(mailHeader);
-            while (matcher.find())
-            {
-                final int spanContentStart = matcher.end();
-                mailHeader.insert(spanContentStart, fieldContent);
-            }
+            fieldContents.put(field, fieldContent);
         }
         else
         {
@@ -384,280 +488,377 @@ public class MailHtmlTransformer extends AbstractTransformer
         return result;
     }
 
-    private String partsToAttachmentsContent(final MimeMessage mimeMessage)
+    private String partsToAttachmentsContent(final List<Part> attachments) throws MessagingException
     {
-        String result;
-        try
+        final StringBuilder attachmentsContentBuilder = new StringBuilder(BUFFER_SIZE);
+        for (final Part attachment : attachments)
         {
-            final List<Multipart> mpsToProcess = new LinkedList<>();
-            final Object content = mimeMessage.getContent();
-            if (content instanceof Multipart)
-            {
-                final Multipart mp = (Multipart) content;
-                mpsToProcess.add(mp);
-            }
+            // size is derived from the (encoded) raw content without decoding it
+            attachmentsContentBuilder.append("<span>").append(Encode.forHtmlContent(attachment.getFileName())).append(" (")
+                    .append(Encode.forHtmlContent(this.sizeToString(attachment.getSize()))).append(")</span>");
+        }
+        return attachmentsContentBuilder.toString();
+    }
 
-            final StringBuilder attachmentsContentBuilder = new StringBuilder(BUFFER_SIZE);
+    private static String loadTextResource(final String resourceName, final Path file)
+    {
+        String textResource = null;
 
-            while (!mpsToProcess.isEmpty())
+        if (file != null)
+        {
+            try
+            {
+                textResource = Files.readString(file, StandardCharsets.UTF_8);
+            }
+            catch (final IOException ioex)
+            {
+                LOGGER.warn("Failed to read from {} path", file, ioex);
+            }
+        }
+        else
+        {
+            final InputStream resource = MailHtmlTransformer.class.getClassLoader().getResourceAsStream(resourceName);
+            if (resource != null)
             {
-                final Multipart mp = mpsToProcess.remove(0);
-                final int partCount = mp.getCount();
-                for (int i = 0; i < partCount; i++)
+                try (InputStreamReader isr = new InputStreamReader(resource, StandardCharsets.UTF_8))
                 {
-                    final BodyPart part = mp.getBodyPart(i);
-                    final Object partContent = part.getContent();
-                    if (partContent instanceof Multipart)
-                    {
-                        mpsToProcess.add((Multipart) partContent);
-                    }
-                    else
+                    final StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+                    final char[] buf = new char[BUFFER_SIZE];
+                    int read = -1;
+                    while ((read = isr.read(buf)) != -1)
                     {
-                        final String disposition = part.getDisposition();
-                        final String fileName = part.getFileName();
-                        final int size = part.getSize();
-
-                        if (Part.ATTACHMENT.equals(disposition))
-                        {
-                            attachmentsContentBuilder.append("<span>").append(Encode.forHtmlContent(fileName)).append(" (")
-                                    .append(Encode.forHtmlContent(this.sizeToString(size))).append(")</span>");
-                        }
+                        sb.append(buf, 0, read);
                     }
+                    textResource = sb.toString();
+                }
+                catch (final IOException ioex)
+                {
+                    LOGGER.warn("Failed to read from classpath resource {}", resourceName, ioex);
                 }
             }
+        }
 
-            result = attachmentsContentBuilder.toString();
+        return textResource;
+    }
+
+    private static String getBaseContentType(final MimeBodyPart bodyPart) throws IOException
+    {
+        try
+        {
+            String contentType = bodyPart.getContentType();
+            final int contentTypeSepIdx = contentType.indexOf(';');
+            if (contentTypeSepIdx != -1)
+            {
+                contentType = contentType.substring(0, contentTypeSepIdx);
+            }
+            return contentType.trim();
         }
-        catch (final IOException | MessagingException ex)
+        catch (final MessagingException mex)
         {
-            throw new TransformationException(500, "Failed to process mail content for attachment list", ex);
+            throw new TransformationException(500, "Failed to determine content type of inline part", mex);
         }
+    }
+
+    private static boolean isContentType(final Part part, final String mimetype) throws MessagingException
+    {
+        final String contentType = part.getContentType();
+        return contentType != null && (mimetype.equals(contentType) || contentType.startsWith(mimetype + ";"));
+    }
+
+    private String sizeToString(final int size)
+    {
+        final BigDecimal magnitudeCheckBD = BigDecimal.valueOf(10 * 1024);
+        final BigDecimal magnitudeDivisorBD = BigDecimal.valueOf(1024);
+        BigDecimal sizeBD = BigDecimal.valueOf(size);
+        int magnitudes = 0;
 
+        while (sizeBD.compareTo(magnitudeCheckBD) >= 0)
+        {
+            sizeBD = sizeBD.divide(magnitudeDivisorBD, 2, RoundingMode.HALF_UP);
+            magnitudes++;
+        }
+
+        String magnitudeSuffix;
+        switch (magnitudes)
+        {
+            case 0:
+                magnitudeSuffix = "B";
+                break;
+            case 1:
+                magnitudeSuffix = "KiB";
+                break;
+            case 2:
+                magnitudeSuffix = "MiB";
+                break;
+            case 3:
+                magnitudeSuffix = "GiB";
+                break;
+            case 4:
+                magnitudeSuffix = "TiB";
+                break;
+            default:
+                LOGGER.warn("Excessively large attachment with allegedly {} bytes found", size);
+                magnitudeSuffix = "B";
+                sizeBD = BigDecimal.valueOf(size);
+        }
+
+        final String result = sizeBD.toPlainString() + " " + magnitudeSuffix;
         return result;
     }
 
-    private Map<String, MimeBodyPart> collectInlineParts(final MimeMessage mimeMessage)
+    private static class MailStructure
     {
-        final Map<String, MimeBodyPart> inlineParts = new HashMap<>();
 
-        try
+        private Part primaryPart;
+
+        private final List<Part> attachments = new ArrayList<>();
+
+        private final Map<String, MimeBodyPart> inlineParts = new HashMap<>();
+    }
+
+    private class CachedResource<T>
+    {
+
+        private final String resourceName;
+
+        private final Path file;
+
+        private final Function<String, T> parser;
+
+        private volatile T value;
+
+        private volatile FileTime lastModified;
+
+        private volatile long nextReloadCheck;
+
+        private CachedResource(final String resourceName, final Function<String, T> parser)
         {
-            final List<Multipart> mpsToProcess = new LinkedList<>();
-            final Object content = mimeMessage.getContent();
-            if (content instanceof Multipart)
+            this.resourceName = resourceName;
+            this.parser = parser;
+
+            // files in / relative to the working directory take precedence over classpath resources
+            final Path path = Paths.get(resourceName);
+            this.file = Files.isReadable(path) && Files.isRegularFile(path) ? path : null;
+
+            final String textResource = loadTextResource(resourceName, this.file);
+            if (textResource == null)
             {
-                final Multipart mp = (Multipart) content;
-                mpsToProcess.add(mp);
+                throw new IllegalStateException("Failed to load mail header resource " + resourceName);
             }
+            this.lastModified = this.getFileLastModified();
+            this.value = parser.apply(textResource);
+            this.nextReloadCheck = System.currentTimeMillis() + MailHtmlTransformer.this.resourceReloadCheckInterval;
+        }
 
-            while (!mpsToProcess.isEmpty())
+        private T get()
+        {
+            final long reloadCheckInterval = MailHtmlTransformer.this.resourceReloadCheckInterval;
+            if (this.file != null && reloadCheckInterval > 0 && System.currentTimeMillis() >= this.nextReloadCheck)
             {
-                final Multipart mp = mpsToProcess.remove(0);
-                final int partCount = mp.getCount();
-                for (int i = 0; i < partCount; i++)
+                synchronized (this)
                 {
-                    final BodyPart part = mp.getBodyPart(i);
-                    final Object partContent = part.getContent();
-                    if (partContent instanceof Multipart)
+                    final long now = System.currentTimeMillis();
+                    if (now >= this.nextReloadCheck)
                     {
-                        mpsToProcess.add((Multipart) partContent);
-                    }
-                    else if (part instanceof MimeBodyPart)
-                    {
-                        final String disposition = part.getDisposition();
-                        String contentId = ((MimeBodyPart) part).getContentID();
-
-                        if (Part.INLINE.equals(disposition) && contentId != null && !contentId.isBlank())
+                        this.nextReloadCheck = now + reloadCheckInterval;
+                        final FileTime lastModified = this.getFileLastModified();
+                        if (lastModified != null && !lastModified.equals(this.lastModified))
                         {
-                            if (contentId.startsWith("<") && contentId.endsWith(">"))
+                            // keep using the previous state if the file is currently unreadable
+                            final String textResource = loadTextResource(this.resourceName, this.file);
+                            if (textResource != null)
                             {
-                                contentId = contentId.substring(1, contentId.length() - 1);
+                                LOGGER.info("Reloaded changed mail header resource {}", this.file);
+                                this.value = this.parser.apply(textResource);
+                                this.lastModified = lastModified;
                             }
-                            inlineParts.put(contentId, (MimeBodyPart) part);
                         }
                     }
                 }
             }
+            return this.value;
         }
-        catch (final IOException | MessagingException ex)
+
+        private FileTime getFileLastModified()
         {
-            throw new TransformationException(500, "Failed to process mail content for inline content elements", ex);
+            FileTime lastModified = null;
+            if (this.file != null)
+            {
+                try
+                {
+                    lastModified = Files.getLastModifiedTime(this.file);
+                }
+                catch (final IOException ioex)
+                {
+                    LOGGER.debug("Failed to determine last modification time of {}", this.file, ioex);
+                }
+            }
+            return lastModified;
         }
-
-        return inlineParts;
     }
 
-    private void writeHtmlWithInlineParts(final Writer writer, final StringBuilder mailContent, final Map<String, MimeBodyPart> inlineParts)
-            throws IOException
+    private static class InlinePartReferenceWriter implements MailHtmlWriter.InlinePartWriter
     {
-        int offset = 0;
-        int nextCid = mailContent.indexOf("src=\"cid:", offset);
 
-        while (nextCid != -1)
-        {
-            writer.write(mailContent.substring(offset, nextCid));
+        private final Map<String, MimeBodyPart> inlineParts;
 
-            final int cidEnd = mailContent.indexOf("\"", nextCid + 9);
-            final String cid = mailContent.substring(nextCid + 9, cidEnd);
+        private final MailInlinePartStore inlinePartStore;
 
-            if (inlineParts.containsKey(cid))
-            {
-                final MimeBodyPart bodyPart = inlineParts.get(cid);
-                this.writeDataUrlForPart(writer, bodyPart);
-                offset = cidEnd + 1;
-            }
-            else
-            {
-                writer.write(mailContent.substring(nextCid, cidEnd + 1));
-                offset = cidEnd + 1;
-            }
-            nextCid = mailContent.indexOf("src=\"cid:", offset);
-        }
+        private final String mailKey = UUID.randomUUID().toString();
 
-        writer.write(mailContent.substring(offset));
-    }
+        private final Map<String, String> storedPartUrls = new HashMap<>();
 
-    private void writeDataUrlForPart(final Writer writer, final MimeBodyPart bodyPart)
-    {
-        try
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private final char[] charBuffer = new char[BUFFER_SIZE];
+
+        private InlinePartReferenceWriter(final Map<String, MimeBodyPart> inlineParts, final MailInlinePartStore inlinePartStore)
         {
-            String contentType = bodyPart.getContentType();
-            final int contentTypeSepIdx = contentType.indexOf(';');
-            if (contentTypeSepIdx != -1)
-            {
-                contentType = contentType.substring(0, contentTypeSepIdx);
-            }
+            this.inlineParts = inlineParts;
+            this.inlinePartStore = inlinePartStore;
+        }
 
-            writer.write("src=\"data:");
-            writer.write(Encode.forHtmlAttribute(contentType));
-            if (contentType.startsWith("text/"))
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean writeInlinePart(final Writer writer, final String contentId) throws IOException
+        {
+            final MimeBodyPart bodyPart = this.inlineParts.get(contentId);
+            if (bodyPart != null)
             {
-                writer.write(";charset=UTF-8");
+                final String contentType = getBaseContentType(bodyPart);
+                final String storedPartUrl = this.inlinePartStore != null ? this.storeInlinePart(contentId, bodyPart, contentType) : null;
+                if (storedPartUrl != null)
+                {
+                    writer.write("src=\"");
+                    writer.write(Encode.forHtmlAttribute(storedPartUrl));
+                    writer.write('"');
+                }
+                else
+                {
+                    this.writeDataUrlForPart(writer, bodyPart, contentType);
+                }
             }
-            writer.write(";base64,");
+            return bodyPart != null;
+        }
 
-            // can skip decoding + encoding if already in base64
-            final String encoding = bodyPart.getEncoding();
-            final byte[] buf = new byte[BUFFER_SIZE];
-            int read = -1;
-            if ("base64".equalsIgnoreCase(encoding))
+        private String storeInlinePart(final String contentId, final MimeBodyPart bodyPart, final String contentType)
+        {
+            // same part may be referenced multiple times
+            String storedPartUrl = this.storedPartUrls.get(contentId);
+            if (storedPartUrl == null)
             {
-                try (final InputStream is = bodyPart.getRawInputStream())
+                try
                 {
-                    while ((read = is.read(buf)) != -1)
+                    if (this.inlinePartStore.isToBeStored(bodyPart))
                     {
-                        final String readS = new String(buf, 0, read, StandardCharsets.ISO_8859_1);
-                        writer.write(readS);
+                        storedPartUrl = this.inlinePartStore.store(this.mailKey, this.storedPartUrls.size(), bodyPart, contentType);
+                        this.storedPartUrls.put(contentId, storedPartUrl);
                     }
                 }
+                catch (final IOException | MessagingException ex)
+                {
+                    LOGGER.warn("Failed to store inline part {} - falling back to embedding as data URL", contentId, ex);
+                }
             }
-            else
+            return storedPartUrl;
+        }
+
+        private void writeDataUrlForPart(final Writer writer, final MimeBodyPart bodyPart, final String contentType)
+        {
+            try
             {
-                final Encoder base64 = Base64.getEncoder();
-                try (final InputStream is = bodyPart.getInputStream())
+                writer.write("src=\"data:");
+                writer.write(Encode.forHtmlAttribute(contentType));
+                if (contentType.startsWith("text/"))
+                {
+                    writer.write(";charset=UTF-8");
+                }
+                writer.write(";base64,");
+
+                // can skip decoding + encoding if already in base64, only dropping the MIME line breaks
+                final String encoding = bodyPart.getEncoding();
+                final boolean rawBase64 = "base64".equalsIgnoreCase(encoding);
+                try (InputStream is = rawBase64 ? bodyPart.getRawInputStream() : bodyPart.getInputStream();
+                        OutputStream os = rawBase64 ? new WriterOutputStream(writer, this.charBuffer, true)
+                                : Base64.getEncoder().wrap(new WriterOutputStream(writer, this.charBuffer, false)))
                 {
-                    while ((read = is.read(buf)) != -1)
+                    // encoder stream only adds padding at the very end, regardless of how reads happen to be chunked
+                    int read = -1;
+                    while ((read = is.read(this.buffer)) != -1)
                     {
-                        final byte[] realRead = new byte[read];
-                        System.arraycopy(buf, 0, realRead, 0, read);
-                        final byte[] encoded = base64.encode(realRead);
-                        writer.write(new String(encoded, 0, encoded.length, StandardCharsets.ISO_8859_1));
+                        os.write(this.buffer, 0, read);
                     }
                 }
+                writer.write('"');
+            }
+            catch (final MessagingException | IOException ex)
+            {
+                throw new TransformationException(500, "Failed to inject inline attachments into HTML via data URL", ex);
             }
-            writer.write('"');
-        }
-        catch (final MessagingException | IOException ex)
-        {
-            throw new TransformationException(500, "Failed to inject inline attachments into HTML via data URL", ex);
         }
     }
 
-    private String loadTextResource(final String resourceName)
+    private static class WriterOutputStream extends OutputStream
     {
-        String textResource = null;
 
-        final Path path = Paths.get(resourceName);
-        if (Files.isReadable(path) && Files.isRegularFile(path))
+        private final Writer writer;
+
+        private final char[] charBuffer;
+
+        private final boolean skipLineBreaks;
+
+        private WriterOutputStream(final Writer writer, final char[] charBuffer, final boolean skipLineBreaks)
         {
-            try
-            {
-                textResource = Files.readString(path, StandardCharsets.UTF_8);
-            }
-            catch (final IOException ioex)
+            this.writer = writer;
+            this.charBuffer = charBuffer;
+            this.skipLineBreaks = skipLineBreaks;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final int b) throws IOException
+        {
+            if (!this.skipLineBreaks || (b != '\r' && b != '\n'))
             {
-                LOGGER.warn("Failed to read from {} path", path, ioex);
+                this.writer.write(b & 0xff);
             }
         }
 
-        if (textResource == null)
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException
         {
-            final InputStream resource = this.getClass().getClassLoader().getResourceAsStream(resourceName);
-            if (resource != null)
+            // base64 is pure ASCII, so each byte maps to exactly one character
+            int count = 0;
+            for (int idx = off, max = off + len; idx < max; idx++)
             {
-                try (InputStreamReader isr = new InputStreamReader(resource, StandardCharsets.UTF_8))
+                final byte c = b[idx];
+                if (!this.skipLineBreaks || (c != '\r' && c != '\n'))
                 {
-                    final StringBuilder sb = new StringBuilder(BUFFER_SIZE);
-                    final char[] buf = new char[BUFFER_SIZE];
-                    int read = -1;
-                    while ((read = isr.read(buf)) != -1)
+                    this.charBuffer[count++] = (char) (c & 0xff);
+                    if (count == this.charBuffer.length)
                     {
-                        sb.append(buf, 0, read);
+                        this.writer.write(this.charBuffer, 0, count);
+                        count = 0;
                     }
-                    textResource = sb.toString();
-                }
-                catch (final IOException ioex)
-                {
-                    LOGGER.warn("Failed to read from classpath resource {}", resourceName, ioex);
                 }
             }
+            this.writer.write(this.charBuffer, 0, count);
         }
 
-        if (textResource == null)
-        {
-            throw new TransformationException(500, "Failed to load server-side text resource for conversion to HTML");
-        }
-        return textResource;
-    }
-
-    private String sizeToString(final int size)
-    {
-        final BigDecimal magnitudeCheckBD = BigDecimal.valueOf(10 * 1024);
-        final BigDecimal magnitudeDivisorBD = BigDecimal.valueOf(1024);
-        BigDecimal sizeBD = BigDecimal.valueOf(size);
-        int magnitudes = 0;
-
-        while (sizeBD.compareTo(magnitudeCheckBD) >= 0)
-        {
-            sizeBD = sizeBD.divide(magnitudeDivisorBD, 2, RoundingMode.HALF_UP);
-            magnitudes++;
-        }
-
-        String magnitudeSuffix;
-        switch (magnitudes)
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close()
         {
-            case 0:
-                magnitudeSuffix = "B";
-                break;
-            case 1:
-                magnitudeSuffix = "KiB";
-                break;
-            case 2:
-                magnitudeSuffix = "MiB";
-                break;
-            case 3:
-                magnitudeSuffix = "GiB";
-                break;
-            case 4:
-                magnitudeSuffix = "TiB";
-                break;
-            default:
-                LOGGER.warn("Excessively large attachment with allegedly {} bytes found", size);
-                magnitudeSuffix = "B";
-                sizeBD = BigDecimal.valueOf(size);
+            // the writer remains owned by the caller
         }
-
-        final String result = sizeBD.toPlainString() + " " + magnitudeSuffix;
-        return result;
     }
 }
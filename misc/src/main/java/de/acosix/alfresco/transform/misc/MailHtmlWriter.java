@@ -0,0 +1,318 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Instances of this class rewrite the HTML content of a mail while it is being written, injecting the mail header styles and markup as
+ * well as replacing references to inline parts, without ever holding more than a few characters of the content in memory. Matching of
+ * the relevant HTML elements is case-insensitive.
+ *
+ * @author Axel Faust
+ */
+public class MailHtmlWriter extends FilterWriter
+{
+
+    private static final String HEAD_END = "</head>";
+
+    private static final String BODY_START = "<body";
+
+    private static final String CID_SRC = "src=\"cid:";
+
+    // guard against unterminated attribute values in malformed HTML
+    private static final int MAX_CID_LENGTH = 1024;
+
+    private final String headContent;
+
+    private final String bodyContent;
+
+    private final InlinePartWriter inlinePartWriter;
+
+    private final StringBuilder pending = new StringBuilder(16);
+
+    private final StringBuilder cid = new StringBuilder(64);
+
+    private State state = State.TEXT;
+
+    private boolean headContentWritten;
+
+    private boolean bodyContentWritten;
+
+    /**
+     * Constructs a new writer instance.
+     *
+     * @param out
+     *     the writer to which to write the rewritten HTML
+     * @param headContent
+     *     the content to inject at the end of the HTML head
+     * @param bodyContent
+     *     the content to inject at the start of the HTML body
+     * @param inlinePartWriter
+     *     the writer for references to inline parts, or {@code null} if references should not be replaced
+     */
+    public MailHtmlWriter(final Writer out, final String headContent, final String bodyContent, final InlinePartWriter inlinePartWriter)
+    {
+        super(out);
+        this.headContent = Objects.requireNonNull(headContent, "The head content must be specified");
+        this.bodyContent = Objects.requireNonNull(bodyContent, "The body content must be specified");
+        this.inlinePartWriter = inlinePartWriter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int c) throws IOException
+    {
+        this.process((char) c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException
+    {
+        for (int idx = off, max = off + len; idx < max; idx++)
+        {
+            this.process(cbuf[idx]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException
+    {
+        for (int idx = off, max = off + len; idx < max; idx++)
+        {
+            this.process(str.charAt(idx));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            this.finish();
+        }
+        finally
+        {
+            super.close();
+        }
+    }
+
+    /**
+     * Completes the rewriting of the HTML content, writing any characters still held back for matching to the underlying writer without
+     * closing it. No further content may be written after this operation.
+     *
+     * @throws IOException
+     *     if an error occurs writing to the underlying writer
+     */
+    public void finish() throws IOException
+    {
+        // anything still pending can only be an incomplete match, which has to be written as is
+        if (this.state == State.CID)
+        {
+            this.out.write(CID_SRC);
+            this.out.append(this.cid);
+            this.state = State.TEXT;
+        }
+        this.out.append(this.pending);
+        this.pending.setLength(0);
+        this.cid.setLength(0);
+    }
+
+    /**
+     * Checks whether the body content has been injected, which requires the HTML content to contain a body element.
+     *
+     * @return {@code true} if the body content has been written, {@code false} otherwise
+     */
+    public boolean isBodyContentWritten()
+    {
+        return this.bodyContentWritten;
+    }
+
+    private void process(final char c) throws IOException
+    {
+        switch (this.state)
+        {
+            case CID:
+                this.processCid(c);
+                break;
+            case BODY_TAG:
+                this.out.write(c);
+                if (c == '>')
+                {
+                    this.out.write(this.bodyContent);
+                    this.bodyContentWritten = true;
+                    this.state = State.TEXT;
+                }
+                break;
+            default:
+                if (this.pending.length() == 0 && c != '<' && c != 's' && c != 'S')
+                {
+                    // fast path - character cannot start any element / attribute of interest
+                    this.out.write(c);
+                }
+                else
+                {
+                    this.pending.append(c);
+                    this.matchPending();
+                }
+        }
+    }
+
+    private void processCid(final char c) throws IOException
+    {
+        if (c == '"')
+        {
+            final String contentId = this.cid.toString();
+            this.cid.setLength(0);
+            this.state = State.TEXT;
+
+            if (!this.inlinePartWriter.writeInlinePart(this.out, contentId))
+            {
+                this.out.write(CID_SRC);
+                this.out.write(contentId);
+                this.out.write('"');
+            }
+        }
+        else if (this.cid.length() >= MAX_CID_LENGTH)
+        {
+            this.out.write(CID_SRC);
+            this.out.append(this.cid);
+            this.out.write(c);
+            this.cid.setLength(0);
+            this.state = State.TEXT;
+        }
+        else
+        {
+            this.cid.append(c);
+        }
+    }
+
+    private void matchPending() throws IOException
+    {
+        while (this.pending.length() > 0)
+        {
+            boolean prefixMatch = false;
+            if (!this.headContentWritten)
+            {
+                prefixMatch = this.matchesPending(HEAD_END);
+                if (prefixMatch && this.pending.length() == HEAD_END.length())
+                {
+                    this.out.write(this.headContent);
+                    this.headContentWritten = true;
+                    this.flushPending();
+                    return;
+                }
+            }
+            if (!this.bodyContentWritten && this.matchesPending(BODY_START))
+            {
+                prefixMatch = true;
+                if (this.pending.length() == BODY_START.length())
+                {
+                    // HTML without a head element (which would be invalid) still gets the styles
+                    if (!this.headContentWritten)
+                    {
+                        this.out.write(this.headContent);
+                        this.headContentWritten = true;
+                    }
+                    this.flushPending();
+                    this.state = State.BODY_TAG;
+                    return;
+                }
+            }
+            if (this.inlinePartWriter != null && this.matchesPending(CID_SRC))
+            {
+                prefixMatch = true;
+                if (this.pending.length() == CID_SRC.length())
+                {
+                    this.pending.setLength(0);
+                    this.state = State.CID;
+                    return;
+                }
+            }
+
+            if (prefixMatch)
+            {
+                // need more characters to decide
+                return;
+            }
+
+            // no match possible starting at first character, but remaining characters may still start a match
+            this.out.write(this.pending.charAt(0));
+            this.pending.deleteCharAt(0);
+        }
+    }
+
+    private boolean matchesPending(final String token)
+    {
+        final int length = this.pending.length();
+        boolean matches = length <= token.length();
+        for (int idx = 0; matches && idx < length; idx++)
+        {
+            matches = Character.toLowerCase(this.pending.charAt(idx)) == token.charAt(idx);
+        }
+        return matches;
+    }
+
+    private void flushPending() throws IOException
+    {
+        this.out.append(this.pending);
+        this.pending.setLength(0);
+    }
+
+    /**
+     * Instances of this interface write references to inline parts of a mail.
+     *
+     * @author Axel Faust
+     */
+    @FunctionalInterface
+    public interface InlinePartWriter
+    {
+
+        /**
+         * Writes the {@code src} attribute referencing an inline part.
+         *
+         * @param writer
+         *     the writer to which to write the attribute
+         * @param contentId
+         *     the content ID of the inline part
+         * @return {@code true} if the attribute was written, {@code false} if the content ID does not denote a known inline part
+         * @throws IOException
+         *     if an error occurs writing the attribute
+         */
+        boolean writeInlinePart(Writer writer, String contentId) throws IOException;
+    }
+
+    private enum State
+    {
+        TEXT,
+        BODY_TAG,
+        CID;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeBodyPart;
+
+/**
+ * Instances of this class store large inline parts of mails as individual files in the directory of a local resource mapping of the
+ * {@link DevToolsRequestInterceptor DevTools request interceptor}, so that HTML produced from mails can reference these parts by URL
+ * instead of embedding them as data URLs. Stored parts are only retained for a limited time, which must cover the subsequent rendering
+ * of the HTML via the DevTools transformer of the same instance, e.g. as part of a pipeline.
+ *
+ * @author Axel Faust
+ */
+public class MailInlinePartStore
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailInlinePartStore.class);
+
+    private final String urlPrefix;
+
+    private final Path directory;
+
+    private final long minSize;
+
+    private final int downscaleMaxDimension;
+
+    private final long retention;
+
+    private final ScheduledExecutorService scheduler;
+
+    public MailInlinePartStore(final Context context, final String localResourceName)
+    {
+        final String urlPrefix = context.getStringProperty("devtools.fetch.localResource." + localResourceName + ".urlPrefix");
+        final String path = context.getStringProperty("devtools.fetch.localResource." + localResourceName + ".path");
+        if (urlPrefix == null || urlPrefix.isBlank() || path == null || path.isBlank()
+                || !context.getMultiValuedProperty("devtools.fetch.localResources").stream().map(String::trim)
+                        .anyMatch(localResourceName::equals))
+        {
+            throw new IllegalStateException("Local resource " + localResourceName + " for mail inline parts has not been configured");
+        }
+        // relative paths are resolved against the directory by the interceptor, so the prefix needs to include the separator
+        if (!urlPrefix.trim().endsWith("/"))
+        {
+            throw new IllegalStateException("URL prefix of local resource " + localResourceName + " for mail inline parts must end with /");
+        }
+        this.urlPrefix = urlPrefix.trim();
+        this.directory = Paths.get(path.trim()).toAbsolutePath().normalize();
+
+        this.minSize = context.getLongProperty("mailHtml.inlineParts.externalizeMinSize", 102400, 0, Long.MAX_VALUE);
+        this.downscaleMaxDimension = context.getIntegerProperty("mailHtml.inlineParts.downscaleMaxDimension", 0, 0, Integer.MAX_VALUE);
+        this.retention = context.getLongProperty("mailHtml.inlineParts.retention", 900000, 1000, Long.MAX_VALUE);
+
+        try
+        {
+            Files.createDirectories(this.directory);
+        }
+        catch (final IOException ioex)
+        {
+            throw new IllegalStateException("Failed to create directory for mail inline parts " + this.directory, ioex);
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "MailInlinePartStoreCleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long cleanupInterval = Math.min(this.retention, 60000);
+        this.scheduler.scheduleWithFixedDelay(this::discardExpiredParts, cleanupInterval, cleanupInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether a specific inline part should be stored instead of being embedded as a data URL. The threshold is compared against
+     * the size of the part as encoded in the mail (e.g. base64), which is roughly a third larger than the decoded content, so that the
+     * check does not require decoding the part.
+     *
+     * @param bodyPart
+     *     the inline part to check
+     * @return {@code true} if the part should be stored, {@code false} otherwise
+     * @throws MessagingException
+     *     if an error occurs determining the size of the part
+     */
+    public boolean isToBeStored(final MimeBodyPart bodyPart) throws MessagingException
+    {
+        return bodyPart.getSize() >= this.minSize;
+    }
+
+    /**
+     * Stores an inline part of a mail.
+     *
+     * @param mailKey
+     *     the unique key of the mail being transformed, grouping all parts of the mail
+     * @param partIndex
+     *     the index of the part within the mail
+     * @param bodyPart
+     *     the inline part to store
+     * @param contentType
+     *     the content type of the part, without any parameters
+     * @return the URL via which the stored part can be retrieved while rendering HTML via the DevTools transformer
+     * @throws IOException
+     *     if an error occurs storing the part
+     * @throws MessagingException
+     *     if an error occurs reading the part
+     */
+    public String store(final String mailKey, final int partIndex, final MimeBodyPart bodyPart, final String contentType)
+            throws IOException, MessagingException
+    {
+        final String fileName = partIndex + "." + getFileExtension(contentType);
+        final Path mailDirectory = Files.createDirectories(this.directory.resolve(mailKey));
+        final Path file = mailDirectory.resolve(fileName);
+
+        boolean stored = false;
+        if (this.downscaleMaxDimension > 0 && ("image/png".equals(contentType) || "image/jpeg".equals(contentType)))
+        {
+            try (InputStream is = bodyPart.getInputStream())
+            {
+                stored = this.storeDownscaled(is, file, "image/png".equals(contentType) ? "png" : "jpeg");
+            }
+        }
+
+        if (!stored)
+        {
+            try (InputStream is = bodyPart.getInputStream())
+            {
+                Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        return this.urlPrefix + mailKey + "/" + fileName;
+    }
+
+    private boolean storeDownscaled(final InputStream is, final Path file, final String formatName) throws IOException
+    {
+        boolean stored = false;
+        final BufferedImage image = ImageIO.read(is);
+        if (image != null && (image.getWidth() > this.downscaleMaxDimension || image.getHeight() > this.downscaleMaxDimension))
+        {
+            final double scale = Math.min((double) this.downscaleMaxDimension / image.getWidth(),
+                    (double) this.downscaleMaxDimension / image.getHeight());
+            final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+            final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+            // JPEG writer does not support alpha channel
+            final int type = "png".equals(formatName) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            final BufferedImage scaledImage = new BufferedImage(width, height, type);
+            final Graphics2D graphics = scaledImage.createGraphics();
+            try
+            {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            }
+            finally
+            {
+                graphics.dispose();
+            }
+
+            stored = ImageIO.write(scaledImage, formatName, file.toFile());
+            LOGGER.debug("Downscaled inline image from {}x{} to {}x{} for {}", image.getWidth(), image.getHeight(), width, height, file);
+        }
+        // any other image is stored as is
+        return stored;
+    }
+
+    private void discardExpiredParts()
+    {
+        final long expiryThreshold = System.currentTimeMillis() - this.retention;
+        try (DirectoryStream<Path> mailDirectories = Files.newDirectoryStream(this.directory))
+        {
+            for (final Path mailDirectory : mailDirectories)
+            {
+                if (Files.getLastModifiedTime(mailDirectory).toMillis() < expiryThreshold)
+                {
+                    LOGGER.debug("Discarding expired mail inline parts in {}", mailDirectory);
+                    try (Stream<Path> files = Files.walk(mailDirectory))
+                    {
+                        files.sorted(Comparator.reverseOrder()).forEach(f -> {
+                            try
+                            {
+                                Files.deleteIfExists(f);
+                            }
+                            catch (final IOException ioex)
+                            {
+                                LOGGER.warn("Failed to delete expired mail inline part {}", f, ioex);
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+            LOGGER.warn("Failed to discard expired mail inline parts in {}", this.directory, ex);
+        }
+    }
+
+    private static String getFileExtension(final String contentType)
+    {
+        final String extension;
+        switch (contentType.toLowerCase(Locale.ENGLISH))
+        {
+            case "image/png":
+                extension = "png";
+                break;
+            case "image/jpeg":
+                extension = "jpg";
+                break;
+            case "image/gif":
+                extension = "gif";
+                break;
+            case "image/webp":
+                extension = "webp";
+                break;
+            case "image/bmp":
+                extension = "bmp";
+                break;
+            case "image/svg+xml":
+                extension = "svg";
+                break;
+            default:
+                extension = "bin";
+        }
+        return extension;
+    }
+}
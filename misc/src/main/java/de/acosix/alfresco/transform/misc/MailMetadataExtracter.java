@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.MetadataExtracter;
+import de.acosix.alfresco.transform.base.TransformationException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.InternetHeaders;
+import jakarta.mail.internet.MailDateFormat;
+import jakarta.mail.internet.MimeUtility;
+
+/**
+ * Instances of this class extract metadata from mails in RFC 822 format. Only the header block of a mail is ever read, so that the cost
+ * of extraction is independent of the size of the mail body and any attachments.
+ *
+ * @author Axel Faust
+ */
+public class MailMetadataExtracter implements MetadataExtracter
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailMetadataExtracter.class);
+
+    private static final String NAME = "MailMetadata";
+
+    private static final String MESSAGE_RFC_822 = "message/rfc822";
+
+    private static final String MAPPING_PREFIX = "metadataExtracter." + NAME + ".mapping.";
+
+    private static final String NAMESPACE_PREFIX = "metadataExtracter.namespacePrefix.";
+
+    private static final DateTimeFormatter ISO8601_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+            .withZone(ZoneOffset.UTC);
+
+    private final Map<String, List<String>> propertiesByField;
+
+    public MailMetadataExtracter(final Context context)
+    {
+        final Map<String, String> namespaceUriByPrefix = new HashMap<>();
+        for (final String propertyName : context.getPropertyNames())
+        {
+            if (propertyName.startsWith(NAMESPACE_PREFIX))
+            {
+                namespaceUriByPrefix.put(propertyName.substring(NAMESPACE_PREFIX.length()), context.getStringProperty(propertyName).trim());
+            }
+        }
+
+        // resolved once so extraction only needs to map raw values
+        final Map<String, List<String>> propertiesByField = new HashMap<>();
+        for (final String propertyName : context.getPropertyNames())
+        {
+            if (propertyName.startsWith(MAPPING_PREFIX))
+            {
+                final String field = propertyName.substring(MAPPING_PREFIX.length());
+                final List<String> properties = new ArrayList<>();
+                for (final String property : context.getMultiValuedProperty(propertyName))
+                {
+                    properties.add(resolveQualifiedName(property.trim(), namespaceUriByPrefix, propertyName));
+                }
+                if (!properties.isEmpty())
+                {
+                    propertiesByField.put(field, Collections.unmodifiableList(properties));
+                }
+            }
+        }
+        this.propertiesByField = Collections.unmodifiableMap(propertiesByField);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getTransformOptions()
+    {
+        return Collections.emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getSupportedSourceMimetypes()
+    {
+        return Collections.singleton(MESSAGE_RFC_822);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> extractMetadata(final Path sourceFile, final String sourceMimetype, final long timeout,
+            final Map<String, String> options)
+    {
+        if (!MESSAGE_RFC_822.equals(sourceMimetype))
+        {
+            throw new TransformationException(400, "Only extraction from RFC 822 email format is supported");
+        }
+
+        final InternetHeaders headers;
+        // parsing of headers stops at the first empty line, i.e. the mail body is never read
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(sourceFile)))
+        {
+            headers = new InternetHeaders(is);
+        }
+        catch (final IOException | MessagingException ex)
+        {
+            throw new TransformationException(500, "Error reading mail headers for metadata extraction", ex);
+        }
+
+        final Map<String, Object> rawValues = new LinkedHashMap<>();
+        this.putAddresses(rawValues, "messageFrom", headers, "From", true);
+        this.putAddresses(rawValues, "messageTo", headers, "To", false);
+        this.putAddresses(rawValues, "messageCc", headers, "Cc", false);
+        this.putText(rawValues, "messageSubject", headers, "Subject");
+        this.putDate(rawValues, "messageSent", headers.getHeader("Date", null));
+        this.putDate(rawValues, "messageReceived", this.getReceivedDate(headers));
+        this.putText(rawValues, "Thread-Index", headers, "Thread-Index");
+        this.putText(rawValues, "Message-ID", headers, "Message-ID");
+
+        final Map<String, Object> metadata = new LinkedHashMap<>();
+        rawValues.forEach((field, value) -> this.propertiesByField.getOrDefault(field, Collections.emptyList())
+                .forEach(property -> metadata.put(property, value)));
+        return metadata;
+    }
+
+    private void putAddresses(final Map<String, Object> rawValues, final String field, final InternetHeaders headers, final String header,
+            final boolean singleValued)
+    {
+        final String value = headers.getHeader(header, ",");
+        if (value != null)
+        {
+            try
+            {
+                final InternetAddress[] addresses = InternetAddress.parseHeader(value, false);
+                final List<String> addressValues = new ArrayList<>(addresses.length);
+                for (final InternetAddress address : addresses)
+                {
+                    addressValues.add(address.toUnicodeString());
+                }
+
+                if (!addressValues.isEmpty())
+                {
+                    rawValues.put(field, singleValued ? addressValues.get(0) : addressValues);
+                }
+            }
+            catch (final AddressException aex)
+            {
+                LOGGER.debug("Failed to parse {} header value {}", header, value, aex);
+                rawValues.put(field, this.decodeText(value));
+            }
+        }
+    }
+
+    private void putText(final Map<String, Object> rawValues, final String field, final InternetHeaders headers, final String header)
+    {
+        final String value = headers.getHeader(header, null);
+        if (value != null && !value.isBlank())
+        {
+            rawValues.put(field, this.decodeText(value));
+        }
+    }
+
+    private void putDate(final Map<String, Object> rawValues, final String field, final String value)
+    {
+        if (value != null && !value.isBlank())
+        {
+            try
+            {
+                // MailDateFormat is not thread-safe
+                final Date date = new MailDateFormat().parse(MimeUtility.unfold(value).trim());
+                rawValues.put(field, ISO8601_FORMAT.format(date.toInstant()));
+            }
+            catch (final ParseException pex)
+            {
+                LOGGER.debug("Failed to parse {} date value {}", field, value, pex);
+            }
+        }
+    }
+
+    private String getReceivedDate(final InternetHeaders headers)
+    {
+        // topmost Received header was added last, i.e. by the final receiving server
+        final String[] received = headers.getHeader("Received");
+        String date = null;
+        if (received != null && received.length > 0)
+        {
+            final int dateSeparator = received[0].lastIndexOf(';');
+            if (dateSeparator != -1)
+            {
+                date = received[0].substring(dateSeparator + 1);
+            }
+        }
+        return date;
+    }
+
+    private String decodeText(final String value)
+    {
+        String decoded;
+        try
+        {
+            decoded = MimeUtility.decodeText(MimeUtility.unfold(value));
+        }
+        catch (final UnsupportedEncodingException ueex)
+        {
+            LOGGER.debug("Failed to decode header value {}", value, ueex);
+            decoded = MimeUtility.unfold(value);
+        }
+        return decoded.trim();
+    }
+
+    private static String resolveQualifiedName(final String property, final Map<String, String> namespaceUriByPrefix,
+            final String propertyName)
+    {
+        String qualifiedName = property;
+        if (!property.startsWith("{"))
+        {
+            final int prefixSeparator = property.indexOf(':');
+            final String namespaceUri = prefixSeparator != -1 ? namespaceUriByPrefix.get(property.substring(0, prefixSeparator)) : null;
+            if (namespaceUri == null)
+            {
+                throw new IllegalStateException("Property " + property + " in " + propertyName + " uses an unknown namespace prefix");
+            }
+            qualifiedName = "{" + namespaceUri + "}" + property.substring(prefixSeparator + 1);
+        }
+        return qualifiedName;
+    }
+}
@@ -15,6 +15,10 @@
  */
 package de.acosix.alfresco.transform.misc;
 
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.HandlerList;
+import org.eclipse.jetty.util.component.LifeCycle;
+
 import de.acosix.alfresco.transform.base.impl.TransformerApplication;
 import de.acosix.alfresco.transform.misc.cdt.DevToolsWebSocketClient;
 import de.acosix.alfresco.transform.misc.cdt.DevToolsWebSocketClientImpl;
@@ -40,11 +44,15 @@ public class MiscTransformerApplication extends TransformerApplication
 
     private final DevToolsWebSocketClient client;
 
+    private final DevToolsTransformer devToolsTransformer;
+
     public MiscTransformerApplication()
     {
         super();
 
         this.client = this.createDevToolsClient();
+        // created early as the batch endpoint requires direct access
+        this.devToolsTransformer = new DevToolsTransformer(this.context, this.transformationLog, this.client);
     }
 
     protected DevToolsWebSocketClient createDevToolsClient()
@@ -53,7 +61,51 @@ public class MiscTransformerApplication extends TransformerApplication
         final int devToolsPort = this.context.getIntegerProperty("devtools.port", 9022, 1024, 65535);
         final int devToolsConnectTimeout = this.context.getIntegerProperty("devtools.connectTimeout", 5000, 0, Integer.MAX_VALUE);
         final int devToolsConnectionLostTimeout = this.context.getIntegerProperty("devtools.connectLostTimeout", 15, 0, Integer.MAX_VALUE);
-        return DevToolsWebSocketClientImpl.connect(devToolsHost, devToolsPort, devToolsConnectTimeout, devToolsConnectionLostTimeout);
+        final long devToolsCommandTimeout = this.context.getLongProperty("devtools.commandTimeout", 30000, 1, Long.MAX_VALUE);
+        return DevToolsWebSocketClientImpl.connect(devToolsHost, devToolsPort, devToolsConnectTimeout, devToolsConnectionLostTimeout,
+                devToolsCommandTimeout);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected Server setupServer()
+    {
+        final Server server = super.setupServer();
+
+        // server is stopped at JVM shutdown, so worker threads are shut down alongside
+        server.addEventListener(new LifeCycle.Listener()
+        {
+
+            /**
+             *
+             * {@inheritDoc}
+             */
+            @Override
+            public void lifeCycleStopped(final LifeCycle event)
+            {
+                MiscTransformerApplication.this.devToolsTransformer.shutdown();
+            }
+        });
+
+        return server;
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected HandlerList createEndpoints()
+    {
+        final HandlerList handlerList = super.createEndpoints();
+
+        handlerList.addHandler(new DevToolsBatchHandler(this.context, this.registry, this.transformationLog, this.sharedFileAccessor,
+                this.devToolsTransformer));
+
+        return handlerList;
     }
 
     /**
@@ -63,7 +115,8 @@ public class MiscTransformerApplication extends TransformerApplication
     @Override
     protected void setupTransformers()
     {
-        this.registry.registerTransformer(new DevToolsTransformer(this.context, this.transformationLog, this.client));
+        this.registry.registerTransformer(this.devToolsTransformer);
         this.registry.registerTransformer(new MailHtmlTransformer(this.context, this.transformationLog));
+        this.registry.registerMetadataExtracter(new MailMetadataExtracter(this.context));
     }
 }
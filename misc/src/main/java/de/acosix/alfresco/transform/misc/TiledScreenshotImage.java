@@ -0,0 +1,363 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Objects;
+import java.util.Vector;
+
+/**
+ * Instances of this class represent a full-page screenshot composed of horizontal tiles, which are only captured / decoded on demand by
+ * the image encoder. As image encoders (e.g. the default PNG encoder) typically process an image row by row in increasing order, only a
+ * single tile needs to be kept in memory at any time, regardless of the total height of the page.
+ *
+ * @author Axel Faust
+ */
+public class TiledScreenshotImage implements RenderedImage
+{
+
+    private final TileSource tileSource;
+
+    private final int width;
+
+    private final int height;
+
+    private final int tileHeight;
+
+    private final int numTiles;
+
+    private final ColorModel colorModel;
+
+    private final SampleModel sampleModel;
+
+    private final int imageType;
+
+    private int currentTileIndex;
+
+    private Raster currentTile;
+
+    /**
+     * Constructs a new tiled screenshot image.
+     *
+     * @param tileSource
+     *     the source from which to retrieve individual tiles
+     * @param height
+     *     the total height of the image in pixels
+     * @param tileHeight
+     *     the height of each tile (except for the last one) in pixels
+     * @throws IllegalStateException
+     *     if the first tile does not have the expected height
+     */
+    public TiledScreenshotImage(final TileSource tileSource, final int height, final int tileHeight)
+    {
+        Objects.requireNonNull(tileSource, "The tile source must be specified");
+        if (height <= 0 || tileHeight <= 0)
+        {
+            throw new IllegalArgumentException("Height and tile height must be positive");
+        }
+
+        this.tileSource = tileSource;
+        this.height = height;
+        this.tileHeight = tileHeight;
+        this.numTiles = (height + tileHeight - 1) / tileHeight;
+
+        // first tile determines the pixel layout for the entire image
+        final BufferedImage firstTile = tileSource.getTile(0);
+        this.width = firstTile.getWidth();
+        this.checkTileSize(firstTile, 0);
+        this.colorModel = firstTile.getColorModel();
+        this.sampleModel = firstTile.getSampleModel().createCompatibleSampleModel(this.width, tileHeight);
+        this.imageType = firstTile.getType();
+        this.currentTileIndex = 0;
+        this.currentTile = firstTile.getRaster();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector<RenderedImage> getSources()
+    {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getProperty(final String name)
+    {
+        return Image.UndefinedProperty;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getPropertyNames()
+    {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ColorModel getColorModel()
+    {
+        return this.colorModel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SampleModel getSampleModel()
+    {
+        return this.sampleModel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinX()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinY()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumXTiles()
+    {
+        return 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumYTiles()
+    {
+        return this.numTiles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinTileX()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMinTileY()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTileWidth()
+    {
+        return this.width;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTileHeight()
+    {
+        return this.tileHeight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTileGridXOffset()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTileGridYOffset()
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Raster getTile(final int tileX, final int tileY)
+    {
+        if (tileX != 0 || tileY < 0 || tileY >= this.numTiles)
+        {
+            throw new IllegalArgumentException("Invalid tile coordinates " + tileX + ", " + tileY);
+        }
+
+        if (tileY != this.currentTileIndex)
+        {
+            // release the previous tile before retrieving the next one to keep at most one tile in memory
+            this.currentTile = null;
+
+            BufferedImage tile = this.tileSource.getTile(tileY);
+            this.checkTileSize(tile, tileY);
+            if (tile.getType() != this.imageType && this.imageType != BufferedImage.TYPE_CUSTOM)
+            {
+                final BufferedImage convertedTile = new BufferedImage(tile.getWidth(), tile.getHeight(), this.imageType);
+                final Graphics2D graphics = convertedTile.createGraphics();
+                try
+                {
+                    graphics.drawImage(tile, 0, 0, null);
+                }
+                finally
+                {
+                    graphics.dispose();
+                }
+                tile = convertedTile;
+            }
+
+            this.currentTileIndex = tileY;
+            this.currentTile = tile.getRaster().createTranslatedChild(0, tileY * this.tileHeight);
+        }
+        return this.currentTile;
+    }
+
+    private void checkTileSize(final BufferedImage tile, final int tileY)
+    {
+        // tiles are placed at fixed offsets, so any deviation would result in overlapping / missing rows or out-of-bounds raster access
+        final int expectedHeight = tileY == this.numTiles - 1 ? this.height - tileY * this.tileHeight : this.tileHeight;
+        if (tile.getWidth() != this.width || tile.getHeight() != expectedHeight)
+        {
+            throw new IllegalStateException("Tile " + tileY + " has size " + tile.getWidth() + "x" + tile.getHeight() + " instead of "
+                    + this.width + "x" + expectedHeight);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Raster getData()
+    {
+        return this.getData(new Rectangle(0, 0, this.width, this.height));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Raster getData(final Rectangle rect)
+    {
+        final WritableRaster raster = Raster
+                .createWritableRaster(this.sampleModel.createCompatibleSampleModel(rect.width, rect.height), new Point(rect.x, rect.y));
+        return this.copyData(raster);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WritableRaster copyData(final WritableRaster raster)
+    {
+        final WritableRaster targetRaster = raster != null ? raster : Raster.createWritableRaster(
+                this.sampleModel.createCompatibleSampleModel(this.width, this.height), new Point(0, 0));
+
+        final int minY = Math.max(0, targetRaster.getMinY());
+        final int maxY = Math.min(this.height, targetRaster.getMinY() + targetRaster.getHeight()) - 1;
+        for (int tileY = minY / this.tileHeight; tileY <= maxY / this.tileHeight; tileY++)
+        {
+            final Raster tile = this.getTile(0, tileY);
+            final Rectangle intersection = tile.getBounds().intersection(targetRaster.getBounds());
+            if (!intersection.isEmpty())
+            {
+                // location of child raster already defines the target location
+                targetRaster.setDataElements(0, 0, tile.createChild(intersection.x, intersection.y, intersection.width,
+                        intersection.height, intersection.x, intersection.y, null));
+            }
+        }
+        return targetRaster;
+    }
+
+    /**
+     * Instances of this interface provide the individual tiles of a tiled screenshot.
+     *
+     * @author Axel Faust
+     */
+    @FunctionalInterface
+    public interface TileSource
+    {
+
+        /**
+         * Retrieves a specific tile.
+         *
+         * @param tileIndex
+         *     the zero-based index of the tile, counting from the top of the page
+         * @return the image of the tile
+         */
+        BufferedImage getTile(int tileIndex);
+    }
+}
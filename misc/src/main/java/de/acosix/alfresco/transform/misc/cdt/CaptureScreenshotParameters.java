@@ -136,6 +136,24 @@ public class CaptureScreenshotParameters implements JsonSerializableRequestPaylo
         this.captureBeyondViewport = captureBeyondViewport;
     }
 
+    /**
+     * Creates a copy of these parameters for capturing a different area of the page, e.g. for capturing a large area in multiple tiles.
+     *
+     * @param clip
+     *     the clip to set in the copy
+     * @return the copy of these parameters
+     */
+    public CaptureScreenshotParameters withClip(final Viewport clip)
+    {
+        final CaptureScreenshotParameters copy = new CaptureScreenshotParameters();
+        copy.format = this.format;
+        copy.quality = this.quality;
+        copy.clip = clip;
+        copy.fromSurface = this.fromSurface;
+        copy.captureBeyondViewport = this.captureBeyondViewport;
+        return copy;
+    }
+
     public enum Format
     {
         jpeg,
@@ -17,15 +17,20 @@ package de.acosix.alfresco.transform.misc.cdt;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
  * Instances of this interface provide simplified, command-only access to a Chrome or Chromium browser via web sockets and the DevTools
  * protocol.
  *
- * Any instance of this interface is not thread-safe with regards to the {@link #isConnected() connected state},
- * {@link #registerListener(EventListener) listeners}, {@link #discardSessionData(String) session state}, and {@link #reconnect() reconnect}
- * / {@link #shutdown() shutdown} operations.
+ * Commands, {@link #registerListener(EventListener) listeners} and {@link #discardSessionData(String) session state} may be used
+ * concurrently by multiple threads, e.g. for different browser sessions. Any instance of this interface is not thread-safe with regards to
+ * {@link #reconnect() reconnect} / {@link #shutdown() shutdown} operations, which should only ever be performed by a single, supervising
+ * thread. The {@link #isConnected() connected state} may be checked by any thread at any time.
+ *
+ * Blocking {@code send} operations wait for a response up to the command timeout the client has been configured with, while
+ * {@code sendAsync} operations allow callers to limit the wait to their remaining time budget.
  *
  * @author Axel Faust
  */
@@ -227,6 +232,114 @@ public interface DevToolsWebSocketClient
      */
     <R extends JsonSerializableRequestPayload> void send(String domain, String command, String sessionId, R requestPayload);
 
+    /**
+     * Asynchronously sends an unparameterised command to the connected Chrome / Chromium instance.
+     *
+     * @param domain
+     *     the domain of the command
+     * @param command
+     *     the command
+     * @param sessionId
+     *     the ID of the session in which to execute the command, or {@code null} if the command is to be executed in the browser context
+     * @param timeout
+     *     the maximum time in milliseconds to wait for a response before the returned future is completed exceptionally
+     * @return the future to be completed upon receiving the command response, or exceptionally with a {@link DevToolsException} if the
+     * command failed, timed out, or the connection was lost
+     */
+    CompletableFuture<Void> sendAsync(String domain, String command, String sessionId, long timeout);
+
+    /**
+     * Asynchronously sends an parameterised command to the connected Chrome / Chromium instance.
+     *
+     * @param sessionId
+     *     the ID of the session in which to execute the command, or {@code null} if the command is to be executed in the browser context
+     * @param requestPayload
+     *     the command payload
+     * @param timeout
+     *     the maximum time in milliseconds to wait for a response before the returned future is completed exceptionally
+     * @param <R>
+     *     the type of the command payload
+     * @return the future to be completed upon receiving the command response, or exceptionally with a {@link DevToolsException} if the
+     * command failed, timed out, or the connection was lost
+     */
+    default <R extends JsonSerializableRequestPayload & CommandBoundPayload> CompletableFuture<Void> sendAsync(final String sessionId,
+            final R requestPayload, final long timeout)
+    {
+        return this.sendAsync(requestPayload.getDomain(), requestPayload.getCommand(), sessionId, requestPayload, timeout);
+    }
+
+    /**
+     * Asynchronously sends an parameterised command to the connected Chrome / Chromium instance.
+     *
+     * @param domain
+     *     the domain of the command
+     * @param command
+     *     the command
+     * @param sessionId
+     *     the ID of the session in which to execute the command, or {@code null} if the command is to be executed in the browser context
+     * @param requestPayload
+     *     the command payload
+     * @param timeout
+     *     the maximum time in milliseconds to wait for a response before the returned future is completed exceptionally
+     * @param <R>
+     *     the type of the command payload
+     * @return the future to be completed upon receiving the command response, or exceptionally with a {@link DevToolsException} if the
+     * command failed, timed out, or the connection was lost
+     */
+    <R extends JsonSerializableRequestPayload> CompletableFuture<Void> sendAsync(String domain, String command, String sessionId,
+            R requestPayload, long timeout);
+
+    /**
+     * Asynchronously sends an parameterised command to the connected Chrome / Chromium instance.
+     *
+     * @param sessionId
+     *     the ID of the session in which to execute the command, or {@code null} if the command is to be executed in the browser context
+     * @param requestPayload
+     *     the command payload
+     * @param responsePayloadFactory
+     *     the supplier/factory to retrieve or instantiate an instance of the command response payload type
+     * @param timeout
+     *     the maximum time in milliseconds to wait for a response before the returned future is completed exceptionally
+     * @param <R>
+     *     the type of the command payload
+     * @param <T>
+     *     the type of command response payload
+     * @return the future to be completed with the command response payload, or exceptionally with a {@link DevToolsException} if the
+     * command failed, timed out, or the connection was lost
+     */
+    default <R extends JsonSerializableRequestPayload & CommandBoundPayload, T extends JsonDeserializableResponsePayload>
+            CompletableFuture<T> sendAsync(final String sessionId, final R requestPayload, final Supplier<T> responsePayloadFactory,
+                    final long timeout)
+    {
+        return this.sendAsync(requestPayload.getDomain(), requestPayload.getCommand(), sessionId, requestPayload, responsePayloadFactory,
+                timeout);
+    }
+
+    /**
+     * Asynchronously sends an parameterised command to the connected Chrome / Chromium instance.
+     *
+     * @param domain
+     *     the domain of the command
+     * @param command
+     *     the command
+     * @param sessionId
+     *     the ID of the session in which to execute the command, or {@code null} if the command is to be executed in the browser context
+     * @param requestPayload
+     *     the command payload, or {@code null} for an unparameterised command
+     * @param responsePayloadFactory
+     *     the supplier/factory to retrieve or instantiate an instance of the command response payload type
+     * @param timeout
+     *     the maximum time in milliseconds to wait for a response before the returned future is completed exceptionally
+     * @param <R>
+     *     the type of the command payload
+     * @param <T>
+     *     the type of command response payload
+     * @return the future to be completed with the command response payload, or exceptionally with a {@link DevToolsException} if the
+     * command failed, timed out, or the connection was lost
+     */
+    <R extends JsonSerializableRequestPayload, T extends JsonDeserializableResponsePayload> CompletableFuture<T> sendAsync(String domain,
+            String command, String sessionId, R requestPayload, Supplier<T> responsePayloadFactory, long timeout);
+
     /**
      * Registers a global event listener.
      *
@@ -247,6 +360,14 @@ public interface DevToolsWebSocketClient
      */
     void registerListener(String sessionId, EventListener listener);
 
+    /**
+     * Registers a listener to be informed about the loss of the web socket connection.
+     *
+     * @param listener
+     *     the listener to register
+     */
+    void registerConnectionListener(ConnectionListener listener);
+
     /**
      * Checks whether the client is connected.
      *
@@ -256,7 +377,10 @@ public interface DevToolsWebSocketClient
     boolean isConnected();
 
     /**
-     * Attempts a reconnect.
+     * Attempts a reconnect, using the last known debugger URL before looking up the current URL of the remote DevTools debugger.
+     *
+     * @throws DevToolsException
+     *     if the reconnect failed
      */
     void reconnect();
 
@@ -298,4 +422,24 @@ public interface DevToolsWebSocketClient
         boolean eventReceived(String domain, String command, String sessionId, JsonNode payload);
 
     }
+
+    /**
+     * Instances of this interface may be used to listen to the loss of the web socket connection to the DevTools debugger.
+     *
+     * @author Axel Faust
+     */
+    @FunctionalInterface
+    interface ConnectionListener
+    {
+
+        /**
+         * Handles the loss of the web socket connection. This operation is called on the web socket reader thread and must not block or
+         * attempt to {@link DevToolsWebSocketClient#reconnect() reconnect} directly.
+         *
+         * @param remote
+         *     {@code true} if the connection was closed by the remote DevTools debugger, {@code false} otherwise
+         */
+        void connectionClosed(boolean remote);
+
+    }
 }
@@ -22,24 +22,23 @@ import com.fasterxml.jackson.databind.json.JsonMapper;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.ContentResponse;
@@ -61,33 +60,43 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DevToolsWebSocketClientImpl.class);
 
-    private final Map<CommandKey, CommandResponseSync> commandSyncs = new HashMap<>();
-
-    private final ReentrantLock commandSyncLock = new ReentrantLock(true);
+    // command responses are correlated via lock-free map, as request threads and the web socket reader thread access it concurrently
+    private final Map<CommandKey, CompletableFuture<JsonNode>> pendingCommands = new ConcurrentHashMap<>();
 
     private final AtomicInteger idSequence = new AtomicInteger(0);
 
-    private final Map<String, AtomicInteger> idSequenceBySession = new HashMap<>();
+    private final Map<String, AtomicInteger> idSequenceBySession = new ConcurrentHashMap<>();
+
+    // listeners are mutated far less often than iterated for event dispatch on the web socket reader thread
+    private final List<EventListener> globalListeners = new CopyOnWriteArrayList<>();
 
-    private final List<EventListener> globalListeners = new LinkedList<>();
+    private final Map<String, List<EventListener>> sessionListeners = new ConcurrentHashMap<>();
 
-    private final Map<String, List<EventListener>> sessionListeners = new HashMap<>();
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
 
     private final JsonMapper jsonMapper = JsonMapper.builder().build();
 
+    // reused for debugger URL lookups on reconnect instead of setting up a new client each time
+    private final HttpClient httpClient;
+
     private final String host;
 
     private final int port;
 
+    private final long commandTimeout;
+
     private volatile boolean connected;
 
-    private DevToolsWebSocketClientImpl(final URI serverUri, final String host, final int port, final int connectTimeout)
+    private DevToolsWebSocketClientImpl(final URI serverUri, final HttpClient httpClient, final String host, final int port,
+            final int connectTimeout, final long commandTimeout)
     {
         // TODO configurable connect / connection lost timeouts
         super(serverUri, new Draft_6455(new PerMessageDeflateExtension()), Collections.emptyMap(), connectTimeout);
         this.setConnectionLostTimeout(30);
+        this.httpClient = httpClient;
         this.host = host;
         this.port = port;
+        this.commandTimeout = commandTimeout;
 
         // have to fake Host header because of https://chromium-review.googlesource.com/c/chromium/src/+/952522/
         // sad that Chromium team relies on broken clients / invalid requests as a "sort-of security" measure
@@ -105,28 +114,60 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
      *     the connection timeout in milliseconds
      * @param connectionLostTimeout
      *     the interval for checking for lost connection in seconds
+     * @param commandTimeout
+     *     the timeout in milliseconds for awaiting responses to commands sent via the blocking {@code send} operations
      * @return the connected web socket client
      */
     public static DevToolsWebSocketClient connect(final String host, final int port, final int connectTimeout,
-            final int connectionLostTimeout)
+            final int connectionLostTimeout, final long commandTimeout)
     {
-        final String url = findDevToolsDebuggerWebSocketUrl(host, port);
-        final DevToolsWebSocketClientImpl client = new DevToolsWebSocketClientImpl(URI.create(url), host, port, connectTimeout);
-        client.setConnectionLostTimeout(connectTimeout);
+        if (commandTimeout <= 0)
+        {
+            throw new IllegalArgumentException("The command timeout must be a positive value");
+        }
+
+        final HttpClient httpClient = new HttpClient();
+        httpClient.setMaxRedirects(0);
+        httpClient.setConnectTimeout(connectTimeout);
 
+        boolean connected = false;
         try
         {
+            httpClient.start();
+
+            final String url = findDevToolsDebuggerWebSocketUrl(httpClient, host, port);
+            final DevToolsWebSocketClientImpl client = new DevToolsWebSocketClientImpl(URI.create(url), httpClient, host, port,
+                    connectTimeout, commandTimeout);
+            client.setConnectionLostTimeout(connectTimeout);
+
             if (!client.connectBlocking(connectTimeout, TimeUnit.MILLISECONDS))
             {
                 throw new IllegalStateException("Timed out waiting for DevTools web socket connection");
             }
             LOGGER.info("Conected to DevTools debugger via {}", url);
+            connected = true;
+            return client;
         }
         catch (final InterruptedException e)
         {
+            Thread.currentThread().interrupt();
             throw new IllegalStateException("Failed to connect to DevTools", e);
         }
-        return client;
+        catch (final IllegalStateException e)
+        {
+            throw e;
+        }
+        catch (final Exception e)
+        {
+            throw new IllegalStateException("Failed to connect to DevTools", e);
+        }
+        finally
+        {
+            if (!connected)
+            {
+                stopHttpClient(httpClient);
+            }
+        }
     }
 
     /**
@@ -250,6 +291,51 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
         this.sendBlockingImpl(domain, command, sessionId, requestPayload::serialise);
     }
 
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(final String domain, final String command, final String sessionId, final long timeout)
+    {
+        Objects.requireNonNull(domain, "The domain of the command must be specified");
+        Objects.requireNonNull(command, "The command must be specified");
+
+        return this.sendAsyncImpl(domain, command, sessionId, null, timeout, n -> null);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public <R extends JsonSerializableRequestPayload> CompletableFuture<Void> sendAsync(final String domain, final String command,
+            final String sessionId, final R requestPayload, final long timeout)
+    {
+        Objects.requireNonNull(domain, "The domain of the command must be specified");
+        Objects.requireNonNull(command, "The command must be specified");
+        Objects.requireNonNull(requestPayload, "The request payload must be specified");
+
+        return this.sendAsyncImpl(domain, command, sessionId, requestPayload::serialise, timeout, n -> null);
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public <R extends JsonSerializableRequestPayload, T extends JsonDeserializableResponsePayload> CompletableFuture<T> sendAsync(
+            final String domain, final String command, final String sessionId, final R requestPayload,
+            final Supplier<T> responsePayloadFactory, final long timeout)
+    {
+        Objects.requireNonNull(domain, "The domain of the command must be specified");
+        Objects.requireNonNull(command, "The command must be specified");
+        Objects.requireNonNull(responsePayloadFactory, "The response payload factory must be specified");
+
+        return this.sendAsyncImpl(domain, command, sessionId, requestPayload != null ? requestPayload::serialise : null, timeout,
+                n -> toResponsePayload(n, responsePayloadFactory));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -269,7 +355,17 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
         Objects.requireNonNull(sessionId, "The session ID must be specified");
         Objects.requireNonNull(listener, "The listener must be specified");
 
-        this.sessionListeners.computeIfAbsent(sessionId, k -> new ArrayList<>()).add(listener);
+        this.sessionListeners.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerConnectionListener(final ConnectionListener listener)
+    {
+        Objects.requireNonNull(listener, "The listener must be specified");
+        this.connectionListeners.add(listener);
     }
 
     /**
@@ -288,18 +384,25 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
     @Override
     public void reconnect()
     {
-        // remote DevTools instance may have been recreated, resulting in a different debugger URL
-        final String url = findDevToolsDebuggerWebSocketUrl(this.host, this.port);
-        this.uri = URI.create(url);
-        try
+        // cached debugger URL remains valid unless the remote DevTools instance has been recreated
+        if (this.reconnectImpl())
         {
-            super.reconnectBlocking();
+            LOGGER.info("Reconnected to DevTools debugger via {}", this.uri);
+            return;
         }
-        catch (final InterruptedException iex)
+
+        final String url = findDevToolsDebuggerWebSocketUrl(this.httpClient, this.host, this.port);
+        if (!url.equals(this.uri.toString()))
         {
-            Thread.currentThread().interrupt();
-            throw new DevToolsException("Interrupted waiting for reconnect", iex);
+            this.uri = URI.create(url);
+            if (this.reconnectImpl())
+            {
+                LOGGER.info("Reconnected to DevTools debugger via {}", url);
+                return;
+            }
         }
+
+        throw new DevToolsException("Failed to reconnect to DevTools debugger via " + url);
     }
 
     /**
@@ -317,6 +420,10 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
             Thread.currentThread().interrupt();
             throw new DevToolsException("Interrupted waiting for shutdown", iex);
         }
+        finally
+        {
+            stopHttpClient(this.httpClient);
+        }
     }
 
     /**
@@ -389,21 +496,29 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
                 : "Web socket client closed with code {} and reason: {}", code, reason);
         this.connected = false;
 
-        final List<CommandResponseSync> commandSyncs;
-        this.commandSyncLock.lock();
-        try
+        // only fail commands we actually remove, so a concurrent response handling cannot complete the same command twice
+        final Iterator<CommandKey> keys = this.pendingCommands.keySet().iterator();
+        while (keys.hasNext())
         {
-            // a bit convoluted - new ArrayList<>(this.commandSyncs.values()) should have worked too
-            // for some reason though, this has at least once resulted in a NegativeArraySizeException for the internal toArray
-            commandSyncs = this.commandSyncs.values().stream().collect(Collectors.toList());
-            this.commandSyncs.clear();
+            final CompletableFuture<JsonNode> pendingCommand = this.pendingCommands.remove(keys.next());
+            if (pendingCommand != null)
+            {
+                pendingCommand.completeExceptionally(
+                        new DevToolsException(remote ? "Web socket client closed by peer" : "Web socket client closed"));
+            }
         }
-        finally
+
+        for (final ConnectionListener listener : this.connectionListeners)
         {
-            this.commandSyncLock.unlock();
+            try
+            {
+                listener.connectionClosed(remote);
+            }
+            catch (final Exception e)
+            {
+                LOGGER.error("Unhandled exception from connection listener", e);
+            }
         }
-        commandSyncs
-                .forEach(c -> c.complete(new DevToolsException(remote ? "Web socket client closed by peer" : "Web socket client closed")));
     }
 
     /**
@@ -421,21 +536,12 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
         LOGGER.debug("Handling web socket message as command response");
         final int id = messageRoot.get("id").asInt();
         final String sessionId = messageRoot.hasNonNull("sessionId") ? messageRoot.get("sessionId").asText() : null;
-        final CommandResponseSync commandSync;
-        this.commandSyncLock.lock();
-        try
-        {
-            commandSync = this.commandSyncs.remove(new CommandKey(id, sessionId));
-        }
-        finally
-        {
-            this.commandSyncLock.unlock();
-        }
-        if (commandSync != null)
+        final CompletableFuture<JsonNode> pendingCommand = this.pendingCommands.remove(new CommandKey(id, sessionId));
+        if (pendingCommand != null)
         {
             if (messageRoot.hasNonNull("result"))
             {
-                commandSync.complete(messageRoot.get("result"));
+                pendingCommand.complete(messageRoot.get("result"));
             }
             else if (messageRoot.hasNonNull("error"))
             {
@@ -452,11 +558,11 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
                 {
                     ex = new DevToolsException(errorMessage);
                 }
-                commandSync.complete(ex);
+                pendingCommand.completeExceptionally(ex);
             }
             else
             {
-                commandSync.complete();
+                pendingCommand.complete(null);
             }
         }
         else
@@ -490,51 +596,115 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
             return remove;
         };
 
-        final List<EventListener> globalListenersToDiscard = this.globalListeners.stream().filter(listenerHandler)
-                .collect(Collectors.toList());
-        this.globalListeners.removeAll(globalListenersToDiscard);
+        this.globalListeners.removeIf(listenerHandler);
 
-        if (this.sessionListeners.containsKey(sessionId))
+        if (sessionId != null)
         {
             final List<EventListener> sessionListeners = this.sessionListeners.get(sessionId);
-            final List<EventListener> sessionListenersToDiscard = sessionListeners.stream().filter(listenerHandler)
-                    .collect(Collectors.toList());
-            sessionListeners.removeAll(sessionListenersToDiscard);
+            if (sessionListeners != null)
+            {
+                sessionListeners.removeIf(listenerHandler);
+            }
         }
     }
 
+    /**
+     * Retrieves the number of commands currently awaiting a response.
+     *
+     * @return the number of pending commands
+     */
+    int getPendingCommandCount()
+    {
+        return this.pendingCommands.size();
+    }
+
     private void sendBlockingImpl(final String domain, final String command, final String sessionId,
             final CommandParamsFieldsWriter paramsFieldWriter)
     {
-        this.sendBlockingImpl(domain, command, sessionId, paramsFieldWriter, n -> {
-            // NO-OP
-        });
+        this.sendAndAwait(domain, command, sessionId, paramsFieldWriter, n -> null);
     }
 
     private <T extends JsonDeserializableResponsePayload> T sendBlockingImpl(final String domain, final String command,
             final String sessionId, final CommandParamsFieldsWriter paramsFieldWriter, final Supplier<T> responsePayloadFactory)
     {
-        final AtomicReference<T> response = new AtomicReference<>();
+        final T response = this.sendAndAwait(domain, command, sessionId, paramsFieldWriter,
+                n -> toResponsePayload(n, responsePayloadFactory));
+        return response;
+    }
+
+    private <T> CompletableFuture<T> sendAsyncImpl(final String domain, final String command, final String sessionId,
+            final CommandParamsFieldsWriter paramsFieldWriter, final long timeout, final Function<JsonNode, T> responseHandler)
+    {
+        if (timeout <= 0)
+        {
+            throw new IllegalArgumentException("The timeout must be a positive value");
+        }
+
+        final CompletableFuture<JsonNode> pendingCommand;
+        try
+        {
+            pendingCommand = this.sendImpl(domain, command, sessionId, paramsFieldWriter);
+        }
+        catch (final RuntimeException ex)
+        {
+            return CompletableFuture.failedFuture(toDevToolsException(ex));
+        }
 
-        this.sendBlockingImpl(domain, command, sessionId, paramsFieldWriter, n -> {
-            final T t = responsePayloadFactory.get();
-            t.deserialise(n);
-            response.set(t);
+        // orTimeout completes the pending command itself, so the correlation entry is discarded on timeout as well
+        return pendingCommand.orTimeout(timeout, TimeUnit.MILLISECONDS).handle((n, t) -> {
+            if (t != null)
+            {
+                throw new CompletionException(toDevToolsException(t));
+            }
+            return responseHandler.apply(n);
         });
+    }
 
-        if (response.get() == null)
+    private static <T extends JsonDeserializableResponsePayload> T toResponsePayload(final JsonNode response,
+            final Supplier<T> responsePayloadFactory)
+    {
+        if (response == null)
         {
             throw new DevToolsException("No command response payload received");
         }
+        final T t = responsePayloadFactory.get();
+        t.deserialise(response);
+        return t;
+    }
 
-        return response.get();
+    private static DevToolsException toDevToolsException(final Throwable t)
+    {
+        final Throwable effective = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+
+        final DevToolsException ex;
+        if (effective instanceof DevToolsException)
+        {
+            ex = (DevToolsException) effective;
+        }
+        else if (effective instanceof TimeoutException)
+        {
+            ex = new DevToolsException("Timed out while waiting for response to web socket command");
+        }
+        else
+        {
+            ex = new DevToolsException("Error during handling of web socket command", effective);
+        }
+        return ex;
     }
 
-    private void sendBlockingImpl(final String domain, final String command, final String sessionId,
-            final CommandParamsFieldsWriter paramsFieldWriter, final Consumer<JsonNode> responseCallback)
+    private <T> T sendAndAwait(final String domain, final String command, final String sessionId,
+            final CommandParamsFieldsWriter paramsFieldWriter, final Function<JsonNode, T> responseHandler)
     {
-        Objects.requireNonNull(responseCallback, "The response callback must be specified");
+        Objects.requireNonNull(responseHandler, "The response handler must be specified");
+
+        final CompletableFuture<JsonNode> pendingCommand = this.sendImpl(domain, command, sessionId, paramsFieldWriter);
+        final JsonNode response = awaitResponse(pendingCommand, this.commandTimeout);
+        return responseHandler.apply(response);
+    }
 
+    private CompletableFuture<JsonNode> sendImpl(final String domain, final String command, final String sessionId,
+            final CommandParamsFieldsWriter paramsFieldWriter)
+    {
         final int id;
 
         final ByteArrayOutputStream bos = new ByteArrayOutputStream(512);
@@ -566,99 +736,113 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
         }
 
         final CommandKey commandKey = new CommandKey(id, sessionId);
-        final CommandResponseSync commandSync = new CommandResponseSync();
-
-        this.commandSyncLock.lock();
+        final CompletableFuture<JsonNode> pendingCommand = new CompletableFuture<>();
+        // any completion (response, close, timeout of caller) discards the correlation entry
+        pendingCommand.whenComplete((r, t) -> this.pendingCommands.remove(commandKey, pendingCommand));
+        // register before sending - response may be received on reader thread before send() even returns
+        this.pendingCommands.put(commandKey, pendingCommand);
         try
         {
-            this.commandSyncs.put(commandKey, commandSync);
+            this.send(new String(bos.toByteArray(), StandardCharsets.UTF_8));
         }
-        finally
+        catch (final RuntimeException ex)
         {
-            this.commandSyncLock.unlock();
+            this.pendingCommands.remove(commandKey);
+            throw ex;
         }
+        return pendingCommand;
+    }
+
+    private static JsonNode awaitResponse(final CompletableFuture<JsonNode> pendingCommand, final long timeout)
+    {
         try
         {
-            this.send(new String(bos.toByteArray()));
+            return pendingCommand.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (final TimeoutException tex)
+        {
+            final DevToolsException ex = new DevToolsException("Timed out while waiting for response to web socket command");
+            pendingCommand.completeExceptionally(ex);
+            throw ex;
+        }
+        catch (final InterruptedException iex)
+        {
+            pendingCommand.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new DevToolsException("Interrupted while waiting for response to web socket command", iex);
+        }
+        catch (final ExecutionException eex)
+        {
+            // always rethrow as wrapped exception due to difference in stacktraces
+            final Throwable cause = eex.getCause();
+            throw new DevToolsException(
+                    cause instanceof DevToolsException ? cause.getMessage() : "Error during handling of web socket command", cause);
+        }
+    }
 
-            // TODO configurable timeout
-            final Optional<JsonNode> response = commandSync.waitForResponse(30000);
-            response.ifPresent(responseCallback);
+    private boolean reconnectImpl()
+    {
+        try
+        {
+            return super.reconnectBlocking();
         }
-        finally
+        catch (final InterruptedException iex)
         {
-            this.commandSyncLock.lock();
-            try
-            {
-                this.commandSyncs.remove(commandKey);
-            }
-            finally
-            {
-                this.commandSyncLock.unlock();
-            }
+            Thread.currentThread().interrupt();
+            throw new DevToolsException("Interrupted waiting for reconnect", iex);
         }
     }
 
-    private static String findDevToolsDebuggerWebSocketUrl(final String host, final int port)
+    private static String findDevToolsDebuggerWebSocketUrl(final HttpClient httpClient, final String host, final int port)
     {
         LOGGER.debug("Attempting to determine DevTools debugger web socket URL on host {} and port {}", host, port);
         try
         {
-            final HttpClient httpClient = new HttpClient();
-            httpClient.setMaxRedirects(0);
-            httpClient.start();
-            try
-            {
-                final String devToolsDebugerListUrl = buildDevToolsDebuggerListUrl(host, port);
-                final ContentResponse response = httpClient.newRequest(devToolsDebugerListUrl).method(HttpMethod.GET)
-                        // have to fake Host header because of https://chromium-review.googlesource.com/c/chromium/src/+/952522/
-                        // sad that Chromium team relies on broken clients / invalid requests as a "sort-of security" measure
-                        .headers(m -> m.add(HttpHeader.HOST, "localhost:" + port)).send();
+            final String devToolsDebugerListUrl = buildDevToolsDebuggerListUrl(host, port);
+            final ContentResponse response = httpClient.newRequest(devToolsDebugerListUrl).method(HttpMethod.GET)
+                    // have to fake Host header because of https://chromium-review.googlesource.com/c/chromium/src/+/952522/
+                    // sad that Chromium team relies on broken clients / invalid requests as a "sort-of security" measure
+                    .headers(m -> m.add(HttpHeader.HOST, "localhost:" + port)).send();
 
-                if (response.getStatus() == HttpStatus.OK_200)
+            if (response.getStatus() == HttpStatus.OK_200)
+            {
+                final JsonMapper jsonMapper = JsonMapper.builder().build();
+                final JsonNode responseRoot = jsonMapper.readTree(response.getContentAsString());
+                if (responseRoot.isArray())
                 {
-                    final JsonMapper jsonMapper = JsonMapper.builder().build();
-                    final JsonNode responseRoot = jsonMapper.readTree(response.getContentAsString());
-                    if (responseRoot.isArray())
+                    final Iterator<JsonNode> it = responseRoot.elements();
+                    while (it.hasNext())
                     {
-                        final Iterator<JsonNode> it = responseRoot.elements();
-                        while (it.hasNext())
-                        {
-                            final JsonNode el = it.next();
+                        final JsonNode el = it.next();
 
-                            if (el.isObject())
+                        if (el.isObject())
+                        {
+                            final String type = el.hasNonNull("type") ? el.get("type").asText() : null;
+                            final String title = el.hasNonNull("title") ? el.get("title").asText() : null;
+                            final String url = el.hasNonNull("url") ? el.get("url").asText() : null;
+                            String webSocketDebuggerUrl = el.hasNonNull("webSocketDebuggerUrl")
+                                    ? el.get("webSocketDebuggerUrl").asText()
+                                    : null;
+
+                            if (webSocketDebuggerUrl != null && ("page".equals(type)
+                                    && ("none".equals(title) || "about:blank".equals(title) || "chrome://newtab/".equals(url))))
                             {
-                                final String type = el.hasNonNull("type") ? el.get("type").asText() : null;
-                                final String title = el.hasNonNull("title") ? el.get("title").asText() : null;
-                                final String url = el.hasNonNull("url") ? el.get("url").asText() : null;
-                                String webSocketDebuggerUrl = el.hasNonNull("webSocketDebuggerUrl")
-                                        ? el.get("webSocketDebuggerUrl").asText()
-                                        : null;
-
-                                if (webSocketDebuggerUrl != null && ("page".equals(type)
-                                        && ("none".equals(title) || "about:blank".equals(title) || "chrome://newtab/".equals(url))))
-                                {
-                                    // due to host header workaround, we need to replace the wrong host name in found debugger URL
-                                    webSocketDebuggerUrl = webSocketDebuggerUrl.replaceFirst("localhost", host);
-                                    LOGGER.debug("Located idle / empty page instance with DevTools debugger web socket url {}",
-                                            webSocketDebuggerUrl);
-                                    return webSocketDebuggerUrl;
-                                }
+                                // due to host header workaround, we need to replace the wrong host name in found debugger URL
+                                webSocketDebuggerUrl = webSocketDebuggerUrl.replaceFirst("localhost", host);
+                                LOGGER.debug("Located idle / empty page instance with DevTools debugger web socket url {}",
+                                        webSocketDebuggerUrl);
+                                return webSocketDebuggerUrl;
                             }
                         }
                     }
                 }
-                else
-                {
-                    LOGGER.warn("Request on {} yielded response status {}", devToolsDebugerListUrl, response.getStatus());
-                }
-
-                throw new IllegalStateException("Failed to locate DevTools web socket");
             }
-            finally
+            else
             {
-                httpClient.stop();
+                LOGGER.warn("Request on {} yielded response status {}", devToolsDebugerListUrl, response.getStatus());
             }
+
+            throw new IllegalStateException("Failed to locate DevTools web socket");
         }
         catch (final InterruptedException e)
         {
@@ -671,6 +855,18 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
         }
     }
 
+    private static void stopHttpClient(final HttpClient httpClient)
+    {
+        try
+        {
+            httpClient.stop();
+        }
+        catch (final Exception e)
+        {
+            LOGGER.warn("Failed to stop HTTP client", e);
+        }
+    }
+
     private static String buildDevToolsDebuggerListUrl(final String host, final int port)
     {
         final StringBuilder urlBuilder = new StringBuilder();
@@ -765,56 +961,4 @@ public class DevToolsWebSocketClientImpl extends WebSocketClient implements DevT
             return true;
         }
     }
-
-    private static class CommandResponseSync
-    {
-
-        private JsonNode response;
-
-        private Exception exception;
-
-        private final CountDownLatch latch = new CountDownLatch(1);
-
-        protected Optional<JsonNode> waitForResponse(final long timeout)
-        {
-            try
-            {
-                if (!this.latch.await(timeout, TimeUnit.MILLISECONDS))
-                {
-                    throw new DevToolsException("Timed out while waiting for response to web socket command");
-                }
-            }
-            catch (final InterruptedException iex)
-            {
-                Thread.currentThread().interrupt();
-                throw new DevToolsException("Interrupted while waiting for response to web socket command", iex);
-            }
-
-            // always rethrow as wrapped exception due to difference in stacktraces
-            if (this.exception != null)
-            {
-                throw new DevToolsException(this.exception instanceof DevToolsException ? this.exception.getMessage()
-                        : "Error during handling of web socket command", this.exception);
-            }
-
-            return Optional.ofNullable(this.response);
-        }
-
-        protected void complete()
-        {
-            this.latch.countDown();
-        }
-
-        protected void complete(final JsonNode response)
-        {
-            this.response = response;
-            this.latch.countDown();
-        }
-
-        protected void complete(final Exception exception)
-        {
-            this.exception = exception;
-            this.latch.countDown();
-        }
-    }
 }
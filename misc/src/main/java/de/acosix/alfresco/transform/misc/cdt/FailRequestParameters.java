@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Encapsulates the parameters of a {@code Fetch.failRequest} command.
+ *
+ * @author Axel Faust
+ */
+public class FailRequestParameters implements JsonSerializableRequestPayload, CommandBoundPayload
+{
+
+    private String requestId;
+
+    private ErrorReason errorReason;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDomain()
+    {
+        return "Fetch";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCommand()
+    {
+        return "failRequest";
+    }
+
+    /**
+     * @param requestId
+     *     the requestId to set
+     */
+    public void setRequestId(final String requestId)
+    {
+        this.requestId = requestId;
+    }
+
+    /**
+     * @param errorReason
+     *     the errorReason to set
+     */
+    public void setErrorReason(final ErrorReason errorReason)
+    {
+        this.errorReason = errorReason;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialise(final JsonGenerator jsonGenerator) throws IOException
+    {
+        Objects.requireNonNull(this.requestId, "this.requestId must have been set");
+        Objects.requireNonNull(this.errorReason, "this.errorReason must have been set");
+
+        jsonGenerator.writeStringField("requestId", this.requestId);
+        jsonGenerator.writeStringField("errorReason", this.errorReason.name());
+    }
+
+    public enum ErrorReason
+    {
+        Failed,
+        Aborted,
+        TimedOut,
+        AccessDenied,
+        ConnectionClosed,
+        ConnectionReset,
+        ConnectionRefused,
+        ConnectionAborted,
+        ConnectionFailed,
+        NameNotResolved,
+        InternetDisconnected,
+        AddressUnreachable,
+        BlockedByClient,
+        BlockedByResponse;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encapsulates the parameters of a {@code Fetch.enable} command.
+ *
+ * @author Axel Faust
+ */
+public class FetchEnableParameters implements JsonSerializableRequestPayload, CommandBoundPayload
+{
+
+    private final List<String> urlPatterns = new ArrayList<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDomain()
+    {
+        return "Fetch";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCommand()
+    {
+        return "enable";
+    }
+
+    /**
+     * Adds a URL pattern for requests to intercept in the request stage.
+     *
+     * @param urlPattern
+     *     the wildcard pattern of URLs to intercept ({@code *} for any number of characters, {@code ?} for a single character)
+     */
+    public void addUrlPattern(final String urlPattern)
+    {
+        Objects.requireNonNull(urlPattern, "urlPattern must not be null");
+        this.urlPatterns.add(urlPattern);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialise(final JsonGenerator jsonGenerator) throws IOException
+    {
+        if (!this.urlPatterns.isEmpty())
+        {
+            jsonGenerator.writeArrayFieldStart("patterns");
+            for (final String urlPattern : this.urlPatterns)
+            {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeStringField("urlPattern", urlPattern);
+                jsonGenerator.writeStringField("requestStage", "Request");
+                jsonGenerator.writeEndObject();
+            }
+            jsonGenerator.writeEndArray();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Encapsulates the parameters of a {@code Fetch.fulfillRequest} command.
+ *
+ * @author Axel Faust
+ */
+public class FulfillRequestParameters implements JsonSerializableRequestPayload, CommandBoundPayload
+{
+
+    private String requestId;
+
+    private int responseCode = 200;
+
+    private final Map<String, String> responseHeaders = new LinkedHashMap<>();
+
+    private String body;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDomain()
+    {
+        return "Fetch";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCommand()
+    {
+        return "fulfillRequest";
+    }
+
+    /**
+     * @param requestId
+     *     the requestId to set
+     */
+    public void setRequestId(final String requestId)
+    {
+        this.requestId = requestId;
+    }
+
+    /**
+     * @param responseCode
+     *     the responseCode to set
+     */
+    public void setResponseCode(final int responseCode)
+    {
+        this.responseCode = responseCode;
+    }
+
+    /**
+     * Adds a response header.
+     *
+     * @param name
+     *     the name of the header
+     * @param value
+     *     the value of the header
+     */
+    public void addResponseHeader(final String name, final String value)
+    {
+        this.responseHeaders.put(name, value);
+    }
+
+    /**
+     * @param body
+     *     the base64-encoded response body to set
+     */
+    public void setBody(final String body)
+    {
+        this.body = body;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialise(final JsonGenerator jsonGenerator) throws IOException
+    {
+        Objects.requireNonNull(this.requestId, "this.requestId must have been set");
+
+        jsonGenerator.writeStringField("requestId", this.requestId);
+        jsonGenerator.writeNumberField("responseCode", this.responseCode);
+        if (!this.responseHeaders.isEmpty())
+        {
+            jsonGenerator.writeArrayFieldStart("responseHeaders");
+            for (final Map.Entry<String, String> header : this.responseHeaders.entrySet())
+            {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeStringField("name", header.getKey());
+                jsonGenerator.writeStringField("value", header.getValue());
+                jsonGenerator.writeEndObject();
+            }
+            jsonGenerator.writeEndArray();
+        }
+        if (this.body != null)
+        {
+            jsonGenerator.writeStringField("body", this.body);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Encapsulates the response payload of a {@code Page.getLayoutMetrics} command.
+ *
+ * @author Axel Faust
+ */
+public class GetLayoutMetricsResponse implements JsonDeserializableResponsePayload
+{
+
+    private double contentWidth;
+
+    private double contentHeight;
+
+    /**
+     * @return the width of the page content in CSS pixels
+     */
+    public double getContentWidth()
+    {
+        return this.contentWidth;
+    }
+
+    /**
+     * @return the height of the page content in CSS pixels
+     */
+    public double getContentHeight()
+    {
+        return this.contentHeight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deserialise(final JsonNode payload)
+    {
+        // contentSize is deprecated in favour of cssContentSize, but only the former is provided by older Chrome / Chromium versions
+        final JsonNode contentSize = payload.hasNonNull("cssContentSize") ? payload.get("cssContentSize") : payload.get("contentSize");
+        if (contentSize != null && contentSize.hasNonNull("width") && contentSize.hasNonNull("height"))
+        {
+            this.contentWidth = contentSize.get("width").asDouble();
+            this.contentHeight = contentSize.get("height").asDouble();
+        }
+        else
+        {
+            throw new DevToolsException("Page.getLayoutMetrics response payload does not contain the content size");
+        }
+    }
+
+}
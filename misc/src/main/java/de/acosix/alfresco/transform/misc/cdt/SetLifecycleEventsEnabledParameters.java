@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Encapsulates the parameters of a {@code Page.setLifecycleEventsEnabled} command.
+ *
+ * @author Axel Faust
+ */
+public class SetLifecycleEventsEnabledParameters implements JsonSerializableRequestPayload, CommandBoundPayload
+{
+
+    private boolean enabled;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDomain()
+    {
+        return "Page";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCommand()
+    {
+        return "setLifecycleEventsEnabled";
+    }
+
+    /**
+     * @param enabled
+     *     the enabled to set
+     */
+    public void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialise(final JsonGenerator jsonGenerator) throws IOException
+    {
+        jsonGenerator.writeBooleanField("enabled", this.enabled);
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Exercises the command correlation of {@link DevToolsWebSocketClientImpl} with hundreds of sessions concurrently sending commands
+ * against a {@link FakeDevToolsServer simulated DevTools endpoint} that answers out of order, with errors, or not in time.
+ *
+ * @author Axel Faust
+ */
+public class DevToolsWebSocketClientImplStressTest
+{
+
+    private static final int SESSIONS = 300;
+
+    private static final int COMMANDS_PER_SESSION = 20;
+
+    // generous to avoid spurious timeouts of answered commands on slow machines
+    private static final long COMMAND_TIMEOUT = 20000;
+
+    // only used for commands which are answered too late by design
+    private static final long DROPPED_COMMAND_TIMEOUT = 500;
+
+    private static final long COMPLETION_BOUND = 60000;
+
+    private FakeDevToolsServer server;
+
+    private DevToolsWebSocketClientImpl client;
+
+    private ExecutorService sessionExecutor;
+
+    /**
+     * Starts the simulated endpoint and connects the client to it.
+     *
+     * @throws Exception
+     *     if the endpoint cannot be started
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        this.server = new FakeDevToolsServer();
+        this.server.start();
+        this.client = (DevToolsWebSocketClientImpl) DevToolsWebSocketClientImpl.connect(this.server.getHost(), this.server.getPort(),
+                10000, 60, 10000);
+        this.sessionExecutor = Executors.newFixedThreadPool(32);
+    }
+
+    /**
+     * Disconnects the client and stops the simulated endpoint.
+     *
+     * @throws Exception
+     *     if the endpoint cannot be stopped
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        if (this.sessionExecutor != null)
+        {
+            this.sessionExecutor.shutdownNow();
+        }
+        if (this.client != null)
+        {
+            this.client.shutdown();
+        }
+        if (this.server != null)
+        {
+            this.server.stop();
+        }
+    }
+
+    /**
+     * Verifies that every command sent concurrently by many sessions is completed with its own response, its own error or a timeout, and
+     * that no correlation entries remain afterwards.
+     *
+     * @throws Exception
+     *     if the test fails unexpectedly
+     */
+    @Test
+    public void concurrentSessionsCompleteOrTimeOut() throws Exception
+    {
+        final List<Future<List<SentCommand>>> sessionResults = new ArrayList<>(SESSIONS);
+        for (int session = 0; session < SESSIONS; session++)
+        {
+            // first session uses browser-level commands without a session ID
+            final String sessionId = session == 0 ? null : ("session-" + session);
+            sessionResults.add(this.sessionExecutor.submit(() -> this.sendCommands(sessionId)));
+        }
+
+        final List<SentCommand> commands = new ArrayList<>(SESSIONS * COMMANDS_PER_SESSION);
+        for (final Future<List<SentCommand>> sessionResult : sessionResults)
+        {
+            commands.addAll(sessionResult.get(COMPLETION_BOUND, TimeUnit.MILLISECONDS));
+        }
+
+        final long deadline = System.currentTimeMillis() + COMPLETION_BOUND;
+        int echoed = 0;
+        int failed = 0;
+        int timedOut = 0;
+        for (final SentCommand command : commands)
+        {
+            final long remaining = Math.max(1, deadline - System.currentTimeMillis());
+            try
+            {
+                final EchoResult result = command.response.get(remaining, TimeUnit.MILLISECONDS);
+                Assert.assertEquals("Response should only be received for echo commands", "echo", command.command);
+                Assert.assertEquals("Response was correlated with the wrong command", command.value, result.getValue());
+                echoed++;
+            }
+            catch (final ExecutionException ex)
+            {
+                Assert.assertTrue("Command should fail with a DevTools exception", ex.getCause() instanceof DevToolsException);
+                final String message = ex.getCause().getMessage();
+                if ("fail".equals(command.command))
+                {
+                    Assert.assertEquals("Error was correlated with the wrong command", "Failed command - " + command.value, message);
+                    failed++;
+                }
+                else
+                {
+                    Assert.assertEquals("Command should only fail for timing out", "drop", command.command);
+                    Assert.assertEquals("Timed out while waiting for response to web socket command", message);
+                    timedOut++;
+                }
+            }
+            catch (final TimeoutException ex)
+            {
+                Assert.fail("Command " + command.value + " neither completed nor timed out");
+            }
+        }
+
+        Assert.assertEquals(SESSIONS * COMMANDS_PER_SESSION, echoed + failed + timedOut);
+        Assert.assertTrue("Commands should have been answered", echoed > 0);
+        Assert.assertTrue("Commands should have failed", failed > 0);
+        Assert.assertTrue("Commands should have timed out", timedOut > 0);
+
+        Assert.assertEquals("No commands should be pending after all commands completed", 0, this.client.getPendingCommandCount());
+
+        // late responses for timed out commands must neither fail nor leak anything
+        Thread.sleep(FakeDevToolsServer.LATE_RESPONSE_DELAY + DROPPED_COMMAND_TIMEOUT);
+        Assert.assertTrue("Client should still be connected", this.client.isConnected());
+        Assert.assertEquals("No commands should be pending after late responses", 0, this.client.getPendingCommandCount());
+    }
+
+    private List<SentCommand> sendCommands(final String sessionId)
+    {
+        final List<SentCommand> commands = new ArrayList<>(COMMANDS_PER_SESSION);
+        for (int i = 0; i < COMMANDS_PER_SESSION; i++)
+        {
+            final String command;
+            switch (i % 10)
+            {
+                case 3:
+                    command = "fail";
+                    break;
+                case 7:
+                    command = "drop";
+                    break;
+                default:
+                    command = "echo";
+            }
+            final String value = sessionId + "/" + i;
+            final CompletableFuture<EchoResult> response = this.client.sendAsync("Test", command, sessionId, new EchoParameters(value),
+                    EchoResult::new, "drop".equals(command) ? DROPPED_COMMAND_TIMEOUT : COMMAND_TIMEOUT);
+            commands.add(new SentCommand(command, value, response));
+        }
+        return commands;
+    }
+
+    /**
+     *
+     * @author Axel Faust
+     */
+    private static class SentCommand
+    {
+
+        private final String command;
+
+        private final String value;
+
+        private final CompletableFuture<EchoResult> response;
+
+        private SentCommand(final String command, final String value, final CompletableFuture<EchoResult> response)
+        {
+            this.command = command;
+            this.value = value;
+            this.response = response;
+        }
+    }
+
+    /**
+     *
+     * @author Axel Faust
+     */
+    private static class EchoParameters implements JsonSerializableRequestPayload
+    {
+
+        private final String value;
+
+        private EchoParameters(final String value)
+        {
+            this.value = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialise(final JsonGenerator jsonGenerator) throws IOException
+        {
+            jsonGenerator.writeStringField("value", this.value);
+        }
+    }
+
+    /**
+     *
+     * @author Axel Faust
+     */
+    private static class EchoResult implements JsonDeserializableResponsePayload
+    {
+
+        private String value;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void deserialise(final JsonNode payload)
+        {
+            this.value = payload.get("value").asText();
+        }
+
+        private String getValue()
+        {
+            return this.value;
+        }
+    }
+}
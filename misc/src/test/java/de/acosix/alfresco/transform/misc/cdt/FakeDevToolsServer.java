@@ -0,0 +1,262 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.misc.cdt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+/**
+ * Instances of this class simulate a DevTools debugger endpoint, consisting of the HTTP target listing and a web socket endpoint that
+ * answers commands out of order and after random delays. Commands are handled based on their name:
+ * <ul>
+ * <li>{@code Test.echo} - responds with a result echoing the {@code value} parameter</li>
+ * <li>{@code Test.fail} - responds with an error containing the {@code value} parameter</li>
+ * <li>{@code Test.drop} - responds only after {@link #LATE_RESPONSE_DELAY late}, i.e. after any reasonable client timeout</li>
+ * </ul>
+ * Any command may additionally be preceded by an unrelated event message for the same session.
+ *
+ * @author Axel Faust
+ */
+public class FakeDevToolsServer
+{
+
+    /**
+     * The delay in milliseconds after which responses to {@code Test.drop} commands are sent.
+     */
+    public static final long LATE_RESPONSE_DELAY = 2000;
+
+    private static final int MAX_RESPONSE_DELAY = 25;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private final ScheduledExecutorService responseScheduler = Executors.newScheduledThreadPool(4, r -> {
+        final Thread thread = new Thread(r, "FakeDevToolsServer-Responder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CountDownLatch webSocketStarted = new CountDownLatch(1);
+
+    private final InetAddress address = InetAddress.getLoopbackAddress();
+
+    private final WebSocketServer webSocketServer;
+
+    private HttpServer httpServer;
+
+    /**
+     * Constructs a new instance of this class.
+     */
+    public FakeDevToolsServer()
+    {
+        this.webSocketServer = new WebSocketServer(new InetSocketAddress(this.address, 0),
+                Collections.singletonList(new Draft_6455(new PerMessageDeflateExtension())))
+        {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void onOpen(final WebSocket conn, final ClientHandshake handshake)
+            {
+                // NO-OP
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void onClose(final WebSocket conn, final int code, final String reason, final boolean remote)
+            {
+                // NO-OP
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void onMessage(final WebSocket conn, final String message)
+            {
+                FakeDevToolsServer.this.onCommand(conn, message);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void onError(final WebSocket conn, final Exception ex)
+            {
+                // NO-OP - client disconnects are expected during shutdown
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void onStart()
+            {
+                FakeDevToolsServer.this.webSocketStarted.countDown();
+            }
+        };
+        this.webSocketServer.setReuseAddr(true);
+    }
+
+    /**
+     * Starts the simulated endpoint.
+     *
+     * @throws IOException
+     *     if the HTTP target listing cannot be started
+     * @throws InterruptedException
+     *     if interrupted while waiting for the web socket endpoint to start
+     */
+    public void start() throws IOException, InterruptedException
+    {
+        this.webSocketServer.start();
+        if (!this.webSocketStarted.await(10, TimeUnit.SECONDS))
+        {
+            throw new IllegalStateException("Web socket endpoint failed to start");
+        }
+
+        this.httpServer = HttpServer.create(new InetSocketAddress(this.address, 0), 0);
+        this.httpServer.createContext("/json/list", exchange -> {
+            final String listing = "[{\"type\":\"page\",\"title\":\"about:blank\",\"url\":\"about:blank\","
+                    + "\"webSocketDebuggerUrl\":\"ws://localhost:" + this.webSocketServer.getPort() + "/devtools/page/fake\"}]";
+            final byte[] body = listing.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream os = exchange.getResponseBody())
+            {
+                os.write(body);
+            }
+        });
+        this.httpServer.start();
+    }
+
+    /**
+     * Stops the simulated endpoint.
+     *
+     * @throws InterruptedException
+     *     if interrupted while waiting for the web socket endpoint to stop
+     */
+    public void stop() throws InterruptedException
+    {
+        this.responseScheduler.shutdownNow();
+        if (this.httpServer != null)
+        {
+            this.httpServer.stop(0);
+        }
+        this.webSocketServer.stop(1000);
+    }
+
+    /**
+     * @return the host to use for connecting to the simulated endpoint
+     */
+    public String getHost()
+    {
+        return this.address.getHostAddress();
+    }
+
+    /**
+     * @return the port of the HTTP target listing of the simulated endpoint
+     */
+    public int getPort()
+    {
+        return this.httpServer.getAddress().getPort();
+    }
+
+    private void onCommand(final WebSocket conn, final String message)
+    {
+        try
+        {
+            final JsonNode command = this.jsonMapper.readTree(message);
+            final int id = command.get("id").asInt();
+            final String sessionId = command.hasNonNull("sessionId") ? command.get("sessionId").asText() : null;
+            final String method = command.get("method").asText();
+            final String value = command.path("params").path("value").asText();
+
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextInt(4) == 0)
+            {
+                final ObjectNode event = this.jsonMapper.createObjectNode();
+                event.put("method", "Test.somethingHappened");
+                event.put("sessionId", sessionId);
+                event.putObject("params").put("value", value);
+                this.respond(conn, event, random.nextInt(MAX_RESPONSE_DELAY));
+            }
+
+            final ObjectNode response = this.jsonMapper.createObjectNode();
+            response.put("id", id);
+            response.put("sessionId", sessionId);
+            switch (method)
+            {
+                case "Test.echo":
+                    response.putObject("result").put("value", value);
+                    this.respond(conn, response, random.nextInt(MAX_RESPONSE_DELAY));
+                    break;
+                case "Test.fail":
+                    final ObjectNode error = response.putObject("error");
+                    error.put("code", -32000);
+                    error.put("message", "Failed command");
+                    error.put("data", value);
+                    this.respond(conn, response, random.nextInt(MAX_RESPONSE_DELAY));
+                    break;
+                case "Test.drop":
+                    response.putObject("result").put("value", value);
+                    this.respond(conn, response, LATE_RESPONSE_DELAY);
+                    break;
+                default:
+                    final ObjectNode unknown = response.putObject("error");
+                    unknown.put("code", -32601);
+                    unknown.put("message", "'" + method + "' wasn't found");
+                    this.respond(conn, response, 0);
+            }
+        }
+        catch (final IOException ioex)
+        {
+            throw new IllegalStateException("Received invalid command", ioex);
+        }
+    }
+
+    private void respond(final WebSocket conn, final ObjectNode message, final long delay)
+    {
+        final String text = message.toString();
+        this.responseScheduler.schedule(() -> {
+            if (conn.isOpen())
+            {
+                conn.send(text);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.onlyoffice;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.SharedFileAccessException;
+import de.acosix.alfresco.transform.base.SharedFileAccessor;
+import de.acosix.alfresco.transform.base.impl.RemoteSharedFileAccessorImpl;
+
+/**
+ * Instances of this class manage the source files which OnlyOffice retrieves via the {@link SourceFileAccessHandler callback handler}.
+ * By default, source files are served directly from their local path by keeping an in-process mapping of file references to paths. Only
+ * if callbacks may be received by a different instance of the transformer application (multi-instance mode, by default enabled if a
+ * remote Shared File Store is used), source files are stored in the Shared File Store instead.
+ *
+ * @author Axel Faust
+ */
+public class CallbackFileRegistry
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallbackFileRegistry.class);
+
+    private final SharedFileAccessor sharedFileAccessor;
+
+    private final boolean useSharedFileStore;
+
+    private final Map<String, LocalFile> localFiles = new ConcurrentHashMap<>();
+
+    public CallbackFileRegistry(final Context context, final SharedFileAccessor sharedFileAccessor)
+    {
+        this.sharedFileAccessor = sharedFileAccessor;
+        this.useSharedFileStore = context.getBooleanProperty("onlyoffice.callback.useSharedFileStore",
+                sharedFileAccessor instanceof RemoteSharedFileAccessorImpl);
+    }
+
+    /**
+     * Checks whether source files are stored in the Shared File Store for retrieval via callbacks.
+     *
+     * @return {@code true} if source files are stored in the Shared File Store, {@code false} if they are only served locally
+     */
+    public boolean isUsingSharedFileStore()
+    {
+        return this.useSharedFileStore;
+    }
+
+    /**
+     * Registers a source file for retrieval via a callback. The file must remain present until it has been {@link #unregister(String)
+     * unregistered}.
+     *
+     * @param sourceFile
+     *            the path to the source file
+     * @param contentType
+     *            the content type of the source file
+     * @return the reference to use in the callback URL
+     */
+    public String register(final Path sourceFile, final String contentType)
+    {
+        final String fileReference;
+        if (this.useSharedFileStore)
+        {
+            fileReference = this.sharedFileAccessor.saveFile(sourceFile, contentType);
+            LOGGER.debug("Saved source file in shared file store with reference {}", fileReference);
+        }
+        else
+        {
+            fileReference = UUID.randomUUID().toString();
+            this.localFiles.put(fileReference, new LocalFile(sourceFile, contentType));
+            LOGGER.debug("Registered local source file {} with reference {}", sourceFile, fileReference);
+        }
+        return fileReference;
+    }
+
+    /**
+     * Retrieves a locally registered source file for a callback. Source files may be retrieved any number of times until they have been
+     * {@link #unregister(String) unregistered}, as OnlyOffice may retry or repeat the retrieval.
+     *
+     * @param fileReference
+     *            the reference to the source file
+     * @return the locally registered source file, or {@code null} if no source file is (still) registered for the reference
+     */
+    public LocalFile getLocalFile(final String fileReference)
+    {
+        return this.localFiles.get(fileReference);
+    }
+
+    /**
+     * Unregisters a source file once it is no longer needed for retrieval via a callback.
+     *
+     * @param fileReference
+     *            the reference to the source file
+     */
+    public void unregister(final String fileReference)
+    {
+        if (this.localFiles.remove(fileReference) == null && this.useSharedFileStore)
+        {
+            try
+            {
+                this.sharedFileAccessor.deleteFile(fileReference);
+            }
+            catch (final SharedFileAccessException e)
+            {
+                if (e.getStatus() != HttpStatus.NOT_FOUND_404)
+                {
+                    LOGGER.error("Failed to delete OnlyOffice callback file after transformation", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Instances of this class represent a locally registered source file.
+     *
+     * @author Axel Faust
+     */
+    public static class LocalFile
+    {
+
+        private final Path path;
+
+        private final String contentType;
+
+        private LocalFile(final Path path, final String contentType)
+        {
+            this.path = path;
+            this.contentType = contentType;
+        }
+
+        /**
+         * @return the path
+         */
+        public Path getPath()
+        {
+            return this.path;
+        }
+
+        /**
+         * @return the contentType
+         */
+        public String getContentType()
+        {
+            return this.contentType;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.onlyoffice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.TransformationException;
+
+/**
+ * Instances of this class manage the set of OnlyOffice Conversion API endpoints (Document Server nodes) to use, routing each conversion
+ * to the available endpoint with the least outstanding conversions. Endpoints are passively tracked for failures, and temporarily excluded
+ * from routing (circuit breaker) after a number of consecutive failures, with a single trial conversion allowed once the exclusion period
+ * has elapsed.
+ *
+ * @author Axel Faust
+ */
+public class ConversionEndpoints
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionEndpoints.class);
+
+    private final List<ConversionEndpoint> endpoints;
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    private int nextStartIndex;
+
+    public ConversionEndpoints(final Context context)
+    {
+        final List<ConversionEndpoint> endpoints = new ArrayList<>();
+        for (final String url : context.getMultiValuedProperty("onlyoffice.conversionUrl"))
+        {
+            endpoints.add(new ConversionEndpoint(url.trim()));
+        }
+        if (endpoints.isEmpty())
+        {
+            throw new IllegalStateException("A Conversion API URL for OnlyOffice must be configured");
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+
+        this.failureThreshold = context.getIntegerProperty("onlyoffice.endpoint.failureThreshold", 3, 1, Integer.MAX_VALUE);
+        this.openDuration = context.getLongProperty("onlyoffice.endpoint.openDuration", 30000, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Checks whether any of the endpoints requires SSL.
+     *
+     * @return {@code true} if at least one endpoint uses an HTTPS URL, {@code false} otherwise
+     */
+    public boolean requiresSsl()
+    {
+        return this.endpoints.stream().anyMatch(e -> e.url.toLowerCase(Locale.ENGLISH).startsWith("https://"));
+    }
+
+    /**
+     * Selects and acquires the endpoint to use for a conversion. Every acquired endpoint must be {@link #release(ConversionEndpoint,
+     * boolean) released} once the conversion has completed or failed.
+     *
+     * @return the endpoint to use
+     * @throws TransformationException
+     *            if no endpoint is currently available
+     */
+    public synchronized ConversionEndpoint acquire()
+    {
+        final long now = System.currentTimeMillis();
+        final int count = this.endpoints.size();
+
+        // rotating start index distributes conversions evenly between endpoints with the same number of outstanding conversions
+        ConversionEndpoint selected = null;
+        for (int offset = 0; offset < count; offset++)
+        {
+            final ConversionEndpoint endpoint = this.endpoints.get((this.nextStartIndex + offset) % count);
+            final boolean open = endpoint.openUntil > now || (endpoint.openUntil != 0 && endpoint.trialInProgress);
+            if (!open && (selected == null || endpoint.outstanding < selected.outstanding))
+            {
+                selected = endpoint;
+            }
+        }
+        this.nextStartIndex = (this.nextStartIndex + 1) % count;
+
+        if (selected == null)
+        {
+            throw new TransformationException(HttpStatus.SERVICE_UNAVAILABLE_503,
+                    "No OnlyOffice conversion endpoint is currently available");
+        }
+
+        if (selected.openUntil != 0)
+        {
+            LOGGER.info("Routing trial conversion to OnlyOffice endpoint {} after failures", selected.url);
+            selected.trialInProgress = true;
+        }
+        selected.outstanding++;
+        return selected;
+    }
+
+    /**
+     * Releases an endpoint after a conversion has completed or failed.
+     *
+     * @param endpoint
+     *            the endpoint to release
+     * @param healthy
+     *            {@code true} if the endpoint handled the conversion without any issue attributable to the endpoint itself (e.g.
+     *            timeouts or connection errors), {@code false} otherwise
+     */
+    public synchronized void release(final ConversionEndpoint endpoint, final boolean healthy)
+    {
+        endpoint.outstanding--;
+        if (healthy)
+        {
+            if (endpoint.openUntil != 0)
+            {
+                LOGGER.info("OnlyOffice endpoint {} has recovered", endpoint.url);
+            }
+            endpoint.consecutiveFailures = 0;
+            endpoint.openUntil = 0;
+            endpoint.trialInProgress = false;
+        }
+        else
+        {
+            endpoint.consecutiveFailures++;
+            if (endpoint.trialInProgress || endpoint.consecutiveFailures >= this.failureThreshold)
+            {
+                LOGGER.warn("Excluding OnlyOffice endpoint {} for {} ms after {} consecutive failures", endpoint.url, this.openDuration,
+                        endpoint.consecutiveFailures);
+                // never 0 as that denotes the closed state
+                endpoint.openUntil = Math.max(1, System.currentTimeMillis() + this.openDuration);
+                endpoint.trialInProgress = false;
+            }
+        }
+    }
+
+    /**
+     * Releases an endpoint after a conversion has been aborted for reasons not attributable to the endpoint, e.g. because the time budget
+     * of the transformation request has been exhausted. The failure tracking state of the endpoint remains unaffected, except that a new
+     * trial conversion may be routed to it if it is currently excluded.
+     *
+     * @param endpoint
+     *            the endpoint to release
+     */
+    public synchronized void releaseInconclusive(final ConversionEndpoint endpoint)
+    {
+        endpoint.outstanding--;
+        endpoint.trialInProgress = false;
+    }
+
+    /**
+     * Instances of this class represent an individual OnlyOffice Conversion API endpoint. All state is guarded by the owning
+     * {@link ConversionEndpoints} instance.
+     *
+     * @author Axel Faust
+     */
+    public static class ConversionEndpoint
+    {
+
+        private final String url;
+
+        private int outstanding;
+
+        private int consecutiveFailures;
+
+        private long openUntil;
+
+        private boolean trialInProgress;
+
+        private ConversionEndpoint(final String url)
+        {
+            this.url = url;
+        }
+
+        /**
+         * @return the URL of the Conversion API
+         */
+        public String getUrl()
+        {
+            return this.url;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.onlyoffice;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.acosix.alfresco.transform.base.Context;
+
+/**
+ * Instances of this class keep rolling statistics on the durations of OnlyOffice conversions, grouped by source mimetype, target
+ * mimetype and source size bucket (powers of two), in order to estimate the duration of future conversions with similar
+ * characteristics. Samples older than a configurable age are disregarded, so that estimates adapt to changes in the load / capacity of
+ * the OnlyOffice servers and never permanently prevent conversions from being attempted.
+ *
+ * @author Axel Faust
+ */
+public class ConversionStatistics
+{
+
+    private static final int LOWER_PERCENTILE = 10;
+
+    private static final int UPPER_PERCENTILE = 90;
+
+    private final int windowSize;
+
+    private final int minSamples;
+
+    private final long maxSampleAge;
+
+    private final Map<String, DurationWindow> windows = new ConcurrentHashMap<>();
+
+    public ConversionStatistics(final Context context)
+    {
+        this.windowSize = context.getIntegerProperty("onlyoffice.statistics.windowSize", 50, 1, 10000);
+        this.minSamples = context.getIntegerProperty("onlyoffice.statistics.minSamples", 5, 1, this.windowSize);
+        this.maxSampleAge = context.getLongProperty("onlyoffice.statistics.maxSampleAge", 3600000, 1000, Long.MAX_VALUE);
+    }
+
+    /**
+     * Records the duration of a conversion.
+     *
+     * @param sourceMimetype
+     *            the mimetype of the source file
+     * @param targetMimetype
+     *            the mimetype of the result
+     * @param sourceSize
+     *            the size of the source file in bytes
+     * @param duration
+     *            the duration of the conversion in milliseconds - for conversions which did not complete in time, this is the time
+     *            waited until the conversion was aborted
+     */
+    public void recordDuration(final String sourceMimetype, final String targetMimetype, final long sourceSize, final long duration)
+    {
+        if (duration >= 0)
+        {
+            this.windows.computeIfAbsent(buildKey(sourceMimetype, targetMimetype, sourceSize), k -> new DurationWindow(this.windowSize))
+                    .add(duration, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Retrieves the estimated duration of a conversion.
+     *
+     * @param sourceMimetype
+     *            the mimetype of the source file
+     * @param targetMimetype
+     *            the mimetype of the result
+     * @param sourceSize
+     *            the size of the source file in bytes
+     * @return the estimate, or {@code null} if not enough recent samples of similar conversions are available
+     */
+    public Estimate getEstimate(final String sourceMimetype, final String targetMimetype, final long sourceSize)
+    {
+        final DurationWindow window = this.windows.get(buildKey(sourceMimetype, targetMimetype, sourceSize));
+        return window != null ? window.estimate(System.currentTimeMillis() - this.maxSampleAge, this.minSamples) : null;
+    }
+
+    private static String buildKey(final String sourceMimetype, final String targetMimetype, final long sourceSize)
+    {
+        final int sizeBucket = sourceSize > 0 ? 64 - Long.numberOfLeadingZeros(sourceSize) : 0;
+        return sourceMimetype + '|' + targetMimetype + '|' + sizeBucket;
+    }
+
+    /**
+     * Instances of this class represent the estimated duration of a conversion.
+     *
+     * @author Axel Faust
+     */
+    public static class Estimate
+    {
+
+        private final long lowerDuration;
+
+        private final long upperDuration;
+
+        private final int samples;
+
+        private Estimate(final long lowerDuration, final long upperDuration, final int samples)
+        {
+            this.lowerDuration = lowerDuration;
+            this.upperDuration = upperDuration;
+            this.samples = samples;
+        }
+
+        /**
+         * @return the duration in milliseconds which the vast majority of similar conversions took at least
+         */
+        public long getLowerDuration()
+        {
+            return this.lowerDuration;
+        }
+
+        /**
+         * @return the duration in milliseconds within which the vast majority of similar conversions completed
+         */
+        public long getUpperDuration()
+        {
+            return this.upperDuration;
+        }
+
+        /**
+         * @return the number of samples on which the estimate is based
+         */
+        public int getSamples()
+        {
+            return this.samples;
+        }
+    }
+
+    /**
+     * Instances of this class hold the most recent durations of a specific group of conversions in a ring buffer.
+     *
+     * @author Axel Faust
+     */
+    private static class DurationWindow
+    {
+
+        private final long[] durations;
+
+        private final long[] timestamps;
+
+        private int next;
+
+        private int count;
+
+        private DurationWindow(final int size)
+        {
+            this.durations = new long[size];
+            this.timestamps = new long[size];
+        }
+
+        private synchronized void add(final long duration, final long timestamp)
+        {
+            this.durations[this.next] = duration;
+            this.timestamps[this.next] = timestamp;
+            this.next = (this.next + 1) % this.durations.length;
+            this.count = Math.min(this.count + 1, this.durations.length);
+        }
+
+        private synchronized Estimate estimate(final long minTimestamp, final int minSamples)
+        {
+            final long[] recentDurations = new long[this.count];
+            int recentCount = 0;
+            for (int idx = 0; idx < this.count; idx++)
+            {
+                if (this.timestamps[idx] >= minTimestamp)
+                {
+                    recentDurations[recentCount++] = this.durations[idx];
+                }
+            }
+
+            Estimate estimate = null;
+            if (recentCount >= minSamples)
+            {
+                Arrays.sort(recentDurations, 0, recentCount);
+                final long lowerDuration = recentDurations[(recentCount - 1) * LOWER_PERCENTILE / 100];
+                final long upperDuration = recentDurations[(recentCount - 1) * UPPER_PERCENTILE / 100];
+                estimate = new Estimate(lowerDuration, upperDuration, recentCount);
+            }
+            return estimate;
+        }
+    }
+}
@@ -25,23 +25,26 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.client.util.InputStreamResponseListener;
 import org.eclipse.jetty.client.util.StringRequestContent;
-import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
@@ -52,13 +55,13 @@ import org.slf4j.LoggerFactory;
 
 import de.acosix.alfresco.transform.base.Context;
 import de.acosix.alfresco.transform.base.RequestConstants;
-import de.acosix.alfresco.transform.base.SharedFileAccessException;
-import de.acosix.alfresco.transform.base.SharedFileAccessor;
 import de.acosix.alfresco.transform.base.StatusException;
 import de.acosix.alfresco.transform.base.TransformationException;
 import de.acosix.alfresco.transform.base.TransformationLog;
 import de.acosix.alfresco.transform.base.TransformationLog.MutableEntry;
 import de.acosix.alfresco.transform.base.impl.AbstractTransformer;
+import de.acosix.alfresco.transform.onlyoffice.ConversionEndpoints.ConversionEndpoint;
+import de.acosix.alfresco.transform.onlyoffice.ConversionStatistics.Estimate;
 
 /**
  * @author Axel Faust
@@ -189,7 +192,7 @@ public class OnlyOfficeTransformer extends AbstractTransformer
         ENCODING_MAPPINGS = Collections.unmodifiableMap(encodingMappings);
     }
 
-    private final SharedFileAccessor sharedFileAccessor;
+    private final CallbackFileRegistry callbackFileRegistry;
 
     private final boolean publicSsl;
 
@@ -199,7 +202,7 @@ public class OnlyOfficeTransformer extends AbstractTransformer
 
     private final String publicContext;
 
-    private final String onlyOfficeConversionUrl;
+    private final ConversionEndpoints conversionEndpoints;
 
     private final String tokenHeaderName;
 
@@ -207,26 +210,70 @@ public class OnlyOfficeTransformer extends AbstractTransformer
 
     private final HttpClient httpClient;
 
+    private final ResultFileFetcher resultFileFetcher;
+
+    private final ConversionStatistics conversionStatistics;
+
+    private final int adaptiveTimeoutFactor;
+
+    private final long adaptiveTimeoutMin;
+
+    private final boolean rejectPredictedTimeouts;
+
+    private final boolean asyncConversion;
+
+    private final long asyncPollInterval;
+
+    private final long asyncRequestTimeout;
+
+    private final int asyncMaxPollFailures;
+
+    private final ScheduledExecutorService asyncPollScheduler;
+
     private TokenManager tokenManager;
 
     private final JsonMapper jsonMapper = JsonMapper.builder().build();
 
     protected OnlyOfficeTransformer(final String name, final Context context, final TransformationLog transformationLog,
-            final SharedFileAccessor sharedFileAccessor, final HttpClient onlyOfficeClient)
+            final CallbackFileRegistry callbackFileRegistry, final ConversionEndpoints conversionEndpoints,
+            final HttpClient onlyOfficeClient, final ResultFileFetcher resultFileFetcher, final ConversionStatistics conversionStatistics)
     {
         super(name, context, transformationLog);
 
-        this.sharedFileAccessor = sharedFileAccessor;
+        this.callbackFileRegistry = callbackFileRegistry;
         this.publicSsl = context.getBooleanProperty("onlyoffice.callback.publicSsl", false);
         this.publicHost = context.getStringProperty("onlyoffice.callback.publicHost");
         this.publicPort = context.getIntegerProperty("onlyoffice.callback.publicPort", this.publicSsl ? 8443 : 8080, 1, 65535);
         this.publicContext = context.getStringProperty("onlyoffice.callback.publicContext");
 
-        this.onlyOfficeConversionUrl = context.getStringProperty("onlyoffice.conversionUrl");
+        this.conversionEndpoints = conversionEndpoints;
         this.tokenHeaderName = context.getStringProperty("onlyoffice.tokenHeaderName");
         this.defaultConversionTimeout = context.getIntegerProperty("onlyoffice.defaultTimeout", 900000, 1, Integer.MAX_VALUE);
 
         this.httpClient = onlyOfficeClient;
+        this.resultFileFetcher = resultFileFetcher;
+
+        this.conversionStatistics = conversionStatistics;
+        this.adaptiveTimeoutFactor = context.getIntegerProperty("onlyoffice.adaptiveTimeout.factor", 0, 0, Integer.MAX_VALUE);
+        this.adaptiveTimeoutMin = context.getLongProperty("onlyoffice.adaptiveTimeout.min", 60000, 1, Long.MAX_VALUE);
+        this.rejectPredictedTimeouts = context.getBooleanProperty("onlyoffice.rejectPredictedTimeouts", true);
+
+        this.asyncConversion = context.getBooleanProperty("onlyoffice.async.enabled", false);
+        this.asyncPollInterval = context.getLongProperty("onlyoffice.async.pollInterval", 1000, 100, Long.MAX_VALUE);
+        this.asyncRequestTimeout = context.getLongProperty("onlyoffice.async.requestTimeout", 30000, 1000, Long.MAX_VALUE);
+        this.asyncMaxPollFailures = context.getIntegerProperty("onlyoffice.async.maxPollFailures", 5, 0, Integer.MAX_VALUE);
+        if (this.asyncConversion)
+        {
+            this.asyncPollScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, name + "-AsyncPoll");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else
+        {
+            this.asyncPollScheduler = null;
+        }
     }
 
     /**
@@ -249,29 +296,33 @@ public class OnlyOfficeTransformer extends AbstractTransformer
         LOGGER.debug("Starting transformation of {} from {} to {} in {} with timeout of {} ms and options {}", sourceFile, sourceMimetype,
                 targetMimetype, targetFile, timeout, options);
 
-        // need to save the source file so it can be externally referenced
-        // this also allows us to seamlessly switch from single instance to multi instance mode depending on shared file accessor
-        final String fileReference = this.sharedFileAccessor.saveFile(sourceFile, sourceMimetype);
-        LOGGER.debug("Saved source file in shared file store with reference {}", fileReference);
+        final long sourceSize = determineSourceSize(sourceFile);
+        // may reject the transformation before any work is done
+        final long effectiveTimeout = this.determineEffectiveTimeout(logEntry, sourceMimetype, targetMimetype, sourceSize,
+                timeout > 0 ? timeout : this.defaultConversionTimeout);
+
+        // need to register the source file so it can be externally referenced
+        // this also allows us to seamlessly switch from single instance to multi instance mode depending on callback file registry
+        final String fileReference = this.callbackFileRegistry.register(sourceFile, sourceMimetype);
         try
         {
-            final Request request = this.buildConversionRequest(sourceMimetype, targetMimetype, fileReference, options);
-
-            final InputStreamResponseListener listener = new InputStreamResponseListener();
+            final String payload = this.generateRegularRequestPayload(sourceMimetype, targetMimetype, fileReference, options);
+            LOGGER.debug("Mapped transformation to base request payload {}", payload);
 
             logEntry.markStartOfTransformation();
-            request.send(listener);
-            final Response response = listener.get(timeout > 0 ? timeout : this.defaultConversionTimeout, TimeUnit.MILLISECONDS);
+            final String fileUrl = this.requestConversion(sourceMimetype, targetMimetype, payload, effectiveTimeout);
             logEntry.markEndOfTransformation();
+            this.conversionStatistics.recordDuration(sourceMimetype, targetMimetype, sourceSize, logEntry.getTransformationDuration());
 
-            final String fileUrl = this.processResponseAndExtractResultFileUrl(sourceMimetype, targetMimetype, response, listener);
-            this.downloadFile(fileUrl, targetFile);
+            this.resultFileFetcher.fetch(fileUrl, targetFile);
 
             LOGGER.debug("Completed transformation from {} to {}", sourceMimetype, targetMimetype);
         }
         catch (final TimeoutException e)
         {
             LOGGER.info("Timed out waiting for response from OnlyOffice from {} to {}", sourceMimetype, targetMimetype);
+            // lower bound of the actual duration, but still relevant so that estimates / adaptive timeouts grow accordingly
+            this.conversionStatistics.recordDuration(sourceMimetype, targetMimetype, sourceSize, effectiveTimeout);
             throw new TransformationException(HttpStatus.REQUEST_TIMEOUT_408, "Transformation did not complete within the allowed timeout");
         }
         catch (final InterruptedException e)
@@ -287,27 +338,234 @@ public class OnlyOfficeTransformer extends AbstractTransformer
         }
         finally
         {
-            try
+            this.callbackFileRegistry.unregister(fileReference);
+        }
+    }
+
+    private long determineEffectiveTimeout(final MutableEntry logEntry, final String sourceMimetype, final String targetMimetype,
+            final long sourceSize, final long requestedTimeout)
+    {
+        long effectiveTimeout = requestedTimeout;
+
+        final Estimate estimate = this.conversionStatistics.getEstimate(sourceMimetype, targetMimetype, sourceSize);
+        if (estimate != null)
+        {
+            LOGGER.debug("Estimated duration of transformation from {} to {} for {} bytes is {} - {} ms based on {} samples",
+                    sourceMimetype, targetMimetype, sourceSize, estimate.getLowerDuration(), estimate.getUpperDuration(),
+                    estimate.getSamples());
+            logEntry.recordMetric("onlyoffice.estimatedMinDuration", estimate.getLowerDuration());
+            logEntry.recordMetric("onlyoffice.estimatedMaxDuration", estimate.getUpperDuration());
+
+            if (this.rejectPredictedTimeouts && estimate.getLowerDuration() > requestedTimeout)
+            {
+                LOGGER.info("Rejecting transformation from {} to {} for {} bytes as it is predicted to take at least {} ms", sourceMimetype,
+                        targetMimetype, sourceSize, estimate.getLowerDuration());
+                throw new TransformationException(HttpStatus.REQUEST_TIMEOUT_408,
+                        "Transformation is predicted not to complete within the allowed timeout");
+            }
+
+            if (this.adaptiveTimeoutFactor > 0)
+            {
+                final long adaptiveTimeout = Math.max(this.adaptiveTimeoutMin, estimate.getUpperDuration() * this.adaptiveTimeoutFactor);
+                effectiveTimeout = Math.min(requestedTimeout, adaptiveTimeout);
+            }
+        }
+
+        logEntry.recordMetric("onlyoffice.effectiveTimeout", effectiveTimeout);
+        return effectiveTimeout;
+    }
+
+    private String requestConversion(final String sourceMimetype, final String targetMimetype, final String payload, final long timeout)
+            throws InterruptedException, ExecutionException, TimeoutException
+    {
+        // endpoint is used for the entire conversion as asynchronous conversion state is only known to the specific OnlyOffice node
+        final ConversionEndpoint endpoint = this.conversionEndpoints.acquire();
+        boolean endpointHealthy = false;
+        boolean conclusive = true;
+        try
+        {
+            final String fileUrl;
+            if (this.asyncConversion)
+            {
+                fileUrl = this.convertAsync(endpoint, sourceMimetype, targetMimetype, payload, timeout);
+            }
+            else
+            {
+                final Request request = this.buildConversionRequest(endpoint, payload);
+                final InputStreamResponseListener listener = new InputStreamResponseListener();
+                request.send(listener);
+                final Response response = listener.get(timeout, TimeUnit.MILLISECONDS);
+                fileUrl = this.processResponseAndExtractResultFileUrl(sourceMimetype, targetMimetype, response, listener);
+            }
+            endpointHealthy = true;
+            return fileUrl;
+        }
+        catch (final EndpointFailureException e)
+        {
+            throw e;
+        }
+        catch (final StatusException e)
+        {
+            // any other error reported by OnlyOffice relates to the specific document / request, not the health of the endpoint
+            endpointHealthy = true;
+            throw e;
+        }
+        catch (final TimeoutException | InterruptedException e)
+        {
+            // time budget of the request exhausted / request aborted - says nothing about the health of the endpoint
+            conclusive = false;
+            throw e;
+        }
+        finally
+        {
+            if (conclusive)
+            {
+                this.conversionEndpoints.release(endpoint, endpointHealthy);
+            }
+            else
             {
-                this.sharedFileAccessor.deleteFile(fileReference);
+                this.conversionEndpoints.releaseInconclusive(endpoint);
             }
-            catch (final SharedFileAccessException e)
+        }
+    }
+
+    /**
+     * Performs a conversion using the asynchronous mode of the OnlyOffice conversion API. Only the HTTP connections to OnlyOffice are
+     * handled asynchronously, with no connection held open between polls. The calling thread, i.e. the Jetty worker thread handling the
+     * transformation request, still blocks until the conversion result is available or the timeout has elapsed, and is not released for
+     * other requests in the meantime.
+     *
+     * @param endpoint
+     *            the endpoint to use for all requests of the conversion
+     * @param sourceMimetype
+     *            the mimetype of the source file
+     * @param targetMimetype
+     *            the mimetype of the target file
+     * @param payload
+     *            the conversion request payload
+     * @param timeout
+     *            the time allowed for the conversion to complete in milliseconds
+     * @return the URL of the conversion result file
+     * @throws InterruptedException
+     *            if the calling thread is interrupted while waiting for the conversion result
+     * @throws ExecutionException
+     *            if the conversion failed
+     * @throws TimeoutException
+     *            if the conversion did not complete within the timeout
+     */
+    private String convertAsync(final ConversionEndpoint endpoint, final String sourceMimetype, final String targetMimetype,
+            final String payload, final long timeout) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        // conversion state is held by OnlyOffice (keyed by file reference), so polling just re-sends the same request
+        final CompletableFuture<String> fileUrl = new CompletableFuture<>();
+        final long deadline = System.currentTimeMillis() + timeout;
+        this.pollAsyncConversion(endpoint, sourceMimetype, targetMimetype, payload, deadline, fileUrl, 0);
+
+        try
+        {
+            return fileUrl.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (final ExecutionException e)
+        {
+            if (e.getCause() instanceof StatusException)
             {
-                if (e.getStatus() != HttpStatus.NOT_FOUND_404)
+                throw (StatusException) e.getCause();
+            }
+            throw e;
+        }
+        finally
+        {
+            // stops any further polling
+            fileUrl.cancel(false);
+        }
+    }
+
+    private void pollAsyncConversion(final ConversionEndpoint endpoint, final String sourceMimetype, final String targetMimetype,
+            final String payload, final long deadline, final CompletableFuture<String> fileUrl, final int failedPolls)
+    {
+        final long requestTimeout = Math.min(this.asyncRequestTimeout, deadline - System.currentTimeMillis());
+        if (fileUrl.isDone() || requestTimeout <= 0)
+        {
+            return;
+        }
+
+        final Request request = this.buildConversionRequest(endpoint, payload).timeout(requestTimeout, TimeUnit.MILLISECONDS);
+        request.send(new BufferingResponseListener()
+        {
+
+            /**
+             *
+             * {@inheritDoc}
+             */
+            @Override
+            public void onComplete(final Result result)
+            {
+                int nextFailedPolls = 0;
+                try
                 {
-                    LOGGER.error("Failed to delete OnlyOffice callback file after transformation", e);
+                    if (result.isFailed() && System.currentTimeMillis() >= deadline)
+                    {
+                        // poll request limited by exhausted time budget - not a failure of the endpoint, caller times out anyway
+                        LOGGER.debug("Stopped polling OnlyOffice conversion from {} to {} at deadline", sourceMimetype, targetMimetype);
+                        return;
+                    }
+
+                    if (result.isFailed() || result.getResponse().getStatus() != HttpStatus.OK_200)
+                    {
+                        // transient failures (e.g. connection drops) must not discard conversion progress in OnlyOffice
+                        LOGGER.debug("Failed to poll OnlyOffice conversion from {} to {}: {}", sourceMimetype, targetMimetype,
+                                result.isFailed() ? result.getFailure().getMessage() : result.getResponse().getStatus());
+                        nextFailedPolls = failedPolls + 1;
+                        if (nextFailedPolls > OnlyOfficeTransformer.this.asyncMaxPollFailures)
+                        {
+                            throw new EndpointFailureException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                                    "Polling of OnlyOffice conversion failed repeatedly", result.getFailure());
+                        }
+                    }
+                    else
+                    {
+                        final JsonNode rootNode = OnlyOfficeTransformer.this.jsonMapper.readTree(this.getContent());
+                        final String resultFileUrl = OnlyOfficeTransformer.this.extractResultFileUrl(sourceMimetype, targetMimetype,
+                                rootNode, true);
+                        if (resultFileUrl != null)
+                        {
+                            fileUrl.complete(resultFileUrl);
+                        }
+                        else
+                        {
+                            LOGGER.trace("OnlyOffice conversion from {} to {} in progress ({} %)", sourceMimetype, targetMimetype,
+                                    rootNode.path("percent").asInt());
+                        }
+                    }
+
+                    if (!fileUrl.isDone())
+                    {
+                        final int failedPollsForNext = nextFailedPolls;
+                        OnlyOfficeTransformer.this.asyncPollScheduler.schedule(
+                                () -> OnlyOfficeTransformer.this.pollAsyncConversion(endpoint, sourceMimetype, targetMimetype, payload,
+                                        deadline, fileUrl, failedPollsForNext),
+                                OnlyOfficeTransformer.this.asyncPollInterval, TimeUnit.MILLISECONDS);
+                    }
+                }
+                catch (final IOException e)
+                {
+                    LOGGER.error("Error processing OnlyOffice transformation response JSON");
+                    fileUrl.completeExceptionally(new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                            "Error handling OnlyOffice transformation response", e));
+                }
+                catch (final RuntimeException e)
+                {
+                    fileUrl.completeExceptionally(e);
                 }
             }
-        }
+        });
     }
 
-    private Request buildConversionRequest(final String sourceMimetype, final String targetMimetype, final String fileReference,
-            final Map<String, String> options)
+    private Request buildConversionRequest(final ConversionEndpoint endpoint, final String regularPayload)
     {
-        String payload = this.generateRegularRequestPayload(sourceMimetype, targetMimetype, fileReference, options);
-        LOGGER.debug("Mapped transformation to base request payload {}", payload);
+        String payload = regularPayload;
 
-        final Request request = this.httpClient.newRequest(this.onlyOfficeConversionUrl).method(HttpMethod.POST);
+        final Request request = this.httpClient.newRequest(endpoint.getUrl()).method(HttpMethod.POST);
         request.headers(h -> h.add(HttpHeader.ACCEPT, MimeTypes.Type.APPLICATION_JSON.asString()));
 
         if (this.tokenManager != null)
@@ -367,6 +625,10 @@ public class OnlyOfficeTransformer extends AbstractTransformer
             generator.writeStringField("key", fileReference);
             generator.writeStringField("filetype", sourceFileType);
             generator.writeStringField("outputtype", targetFileType);
+            if (this.asyncConversion)
+            {
+                generator.writeBooleanField("async", true);
+            }
 
             // supposedly set - not found any reasonable examples for this
             final String encoding = options.get(RequestConstants.SOURCE_ENCODING);
@@ -542,51 +804,7 @@ public class OnlyOfficeTransformer extends AbstractTransformer
             try (final InputStream is = listener.getInputStream())
             {
                 final JsonNode rootNode = this.jsonMapper.readTree(is);
-                final JsonNode errorNode = rootNode.get("error");
-
-                if (errorNode != null)
-                {
-                    final int error = errorNode.asInt();
-                    switch (error)
-                    {
-                        case -2:
-                            LOGGER.info("Timed out in OnlyOffice transforming from {} to {}", sourceMimetype, targetMimetype);
-                            throw new TransformationException(HttpStatus.REQUEST_TIMEOUT_408, "Transformation timed out in OnlyOffice");
-                        case -4:
-                            LOGGER.error("OnlyOffice failed to retrieve source file - check public callback and/or proxy configuration");
-                            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
-                                    "Transformation in OnlyOffice failed due content callback error");
-                        case -8:
-                            LOGGER.error("Invalid token reported by OnlyOffice - check JWT configuration");
-                            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
-                                    "Transformation in OnlyOffice failed due to invalid token");
-                        default:
-                            LOGGER.info("Transformation in OnlyOffice from {} to {} failed with error code {}", sourceMimetype,
-                                    targetMimetype, error);
-                            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
-                                    "Transformation failed in OnlyOffice with error code " + error);
-                    }
-                }
-
-                final JsonNode endConvertNode = rootNode.get("endConvert");
-                if (endConvertNode == null || !endConvertNode.asBoolean())
-                {
-                    LOGGER.error("OnlyOffice response to synchronous transformation request does not indicate conversion completed");
-                    throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
-                            "Transformation in OnlyOffice did not complete as expected");
-                }
-
-                final JsonNode fileUrlNode = rootNode.get("fileUrl");
-                if (fileUrlNode == null)
-                {
-                    LOGGER.error("OnlyOffice response to synchronous transformation request does not contain a URL for the result file");
-                    throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
-                            "Transformation in OnlyOffice completed but response does not provide a URL for result");
-                }
-                final String fileUrl = fileUrlNode.asText();
-                LOGGER.debug("Extracted result file URL {} from response to transformation request from {} to {}", fileUrl, sourceMimetype,
-                        targetMimetype);
-                return fileUrl;
+                return this.extractResultFileUrl(sourceMimetype, targetMimetype, rootNode, false);
             }
             catch (final IOException e)
             {
@@ -598,74 +816,78 @@ public class OnlyOfficeTransformer extends AbstractTransformer
         else
         {
             discardResponse(listener);
-            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+            throw new EndpointFailureException(HttpStatus.INTERNAL_SERVER_ERROR_500,
                     "Transformation request to OnlyOffice failed with status " + response.getStatus() + " - " + response.getReason());
         }
     }
 
-    private void downloadFile(final String fileUrl, final Path targetFile)
+    private String extractResultFileUrl(final String sourceMimetype, final String targetMimetype, final JsonNode rootNode,
+            final boolean async)
     {
-        final InputStreamResponseListener listener = new InputStreamResponseListener();
-        this.httpClient.newRequest(fileUrl).method(HttpMethod.GET).send(listener);
-        try
-        {
-            final Response response = listener.get(2, TimeUnit.SECONDS);
+        final JsonNode errorNode = rootNode.get("error");
 
-            if (response.getStatus() == HttpStatus.OK_200)
-            {
-                this.processFileResponse(targetFile, listener, response);
-            }
-            else
+        if (errorNode != null)
+        {
+            final int error = errorNode.asInt();
+            switch (error)
             {
-                discardResponse(listener);
-                LOGGER.error("Failed to retrieve file from {} with HTTP status {} - {}", fileUrl, response.getStatus(),
-                        response.getReason());
-                throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file");
+                case -2:
+                    LOGGER.info("Timed out in OnlyOffice transforming from {} to {}", sourceMimetype, targetMimetype);
+                    throw new EndpointFailureException(HttpStatus.REQUEST_TIMEOUT_408, "Transformation timed out in OnlyOffice");
+                case -4:
+                    LOGGER.error("OnlyOffice failed to retrieve source file - check public callback and/or proxy configuration");
+                    throw new EndpointFailureException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                            "Transformation in OnlyOffice failed due content callback error");
+                case -8:
+                    LOGGER.error("Invalid token reported by OnlyOffice - check JWT configuration");
+                    throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                            "Transformation in OnlyOffice failed due to invalid token");
+                default:
+                    LOGGER.info("Transformation in OnlyOffice from {} to {} failed with error code {}", sourceMimetype,
+                            targetMimetype, error);
+                    throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                            "Transformation failed in OnlyOffice with error code " + error);
             }
         }
-        catch (final StatusException stex)
-        {
-            throw stex;
-        }
-        catch (final InterruptedException e)
+
+        final JsonNode endConvertNode = rootNode.get("endConvert");
+        if (endConvertNode == null || !endConvertNode.asBoolean())
         {
-            LOGGER.error("Thread was interrupted waiting to download result file from {}", fileUrl);
-            Thread.currentThread().interrupt();
-            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file", e);
+            if (async)
+            {
+                // conversion still in progress
+                return null;
+            }
+            LOGGER.error("OnlyOffice response to transformation request does not indicate conversion completed");
+            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                    "Transformation in OnlyOffice did not complete as expected");
         }
-        catch (final ExecutionException | TimeoutException | IOException e)
+
+        final JsonNode fileUrlNode = rootNode.get("fileUrl");
+        if (fileUrlNode == null)
         {
-            LOGGER.error("Failed to retrieve result file from {}", fileUrl);
-            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file", e);
+            LOGGER.error("OnlyOffice response to transformation request does not contain a URL for the result file");
+            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                    "Transformation in OnlyOffice completed but response does not provide a URL for result");
         }
+        final String fileUrl = fileUrlNode.asText();
+        LOGGER.debug("Extracted result file URL {} from response to transformation request from {} to {}", fileUrl, sourceMimetype,
+                targetMimetype);
+        return fileUrl;
     }
 
-    private void processFileResponse(final Path targetFile, final InputStreamResponseListener listener, final Response response)
-            throws IOException
+    private static long determineSourceSize(final Path sourceFile)
     {
-        final HttpFields headers = response.getHeaders();
-
-        final String contentType = headers.get(HttpHeader.CONTENT_TYPE);
-        final long size = headers.getLongField(HttpHeader.CONTENT_LENGTH);
-
-        try (final InputStream is = listener.getInputStream())
+        long sourceSize = -1;
+        try
         {
-            Files.copy(is, targetFile, StandardCopyOption.REPLACE_EXISTING);
+            sourceSize = Files.size(sourceFile);
         }
         catch (final IOException ioex)
         {
-            // Alfresco transformer apps just generically state insufficient storage at this point
-            final long usableSpace = targetFile.toFile().getUsableSpace();
-            if (usableSpace <= size)
-            {
-                LOGGER.error("Not enough space available to store {} bytes in {}", size, targetFile);
-                throw new SharedFileAccessException(HttpStatus.INSUFFICIENT_STORAGE_507,
-                        "Insufficient space to store the OnlyOffice result file", ioex);
-            }
-            throw ioex;
+            LOGGER.warn("Unable to determine size of source file {}", sourceFile, ioex);
         }
-
-        LOGGER.debug("Read OnlyOffice result file to {} with {} bytes and {} as content type", targetFile, size, contentType);
+        return sourceSize;
     }
 
     private static void processStringOption(final JsonGenerator generator, final String optionName, final String fieldName,
@@ -743,4 +965,26 @@ public class OnlyOfficeTransformer extends AbstractTransformer
             // ignore - close input stream primarily as indicator to Jetty client components to discard any further received data
         }
     }
+
+    /**
+     * Instances of this exception class denote failures of a conversion which are attributed to the OnlyOffice endpoint instead of the
+     * document / request, and count towards the endpoint being excluded from routing.
+     *
+     * @author Axel Faust
+     */
+    private static class EndpointFailureException extends TransformationException
+    {
+
+        private static final long serialVersionUID = -3185629477251983014L;
+
+        private EndpointFailureException(final int status, final String message)
+        {
+            super(status, message);
+        }
+
+        private EndpointFailureException(final int status, final String message, final Throwable cause)
+        {
+            super(status, message, cause);
+        }
+    }
 }
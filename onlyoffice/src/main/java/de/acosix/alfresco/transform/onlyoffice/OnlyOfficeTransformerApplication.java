@@ -15,8 +15,6 @@
  */
 package de.acosix.alfresco.transform.onlyoffice;
 
-import java.util.Locale;
-
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.dynamic.HttpClientTransportDynamic;
 import org.eclipse.jetty.io.ClientConnector;
@@ -50,8 +48,16 @@ public class OnlyOfficeTransformerApplication extends TransformerApplication
         application.run();
     }
 
+    private final CallbackFileRegistry callbackFileRegistry;
+
+    private final ConversionEndpoints conversionEndpoints;
+
     private final HttpClient onlyOfficeClient;
 
+    private final ResultFileFetcher resultFileFetcher;
+
+    private final ConversionStatistics conversionStatistics;
+
     private final TokenManager tokenManager;
 
     public OnlyOfficeTransformerApplication()
@@ -64,12 +70,16 @@ public class OnlyOfficeTransformerApplication extends TransformerApplication
             throw new IllegalStateException("A public host / DNS name via which OnlyOffice can issue callbacks must be configured");
         }
 
+        this.callbackFileRegistry = new CallbackFileRegistry(this.context, this.sharedFileAccessor);
+        this.conversionEndpoints = new ConversionEndpoints(this.context);
         this.onlyOfficeClient = this.createOnlyOfficeClient();
+        this.resultFileFetcher = new ResultFileFetcher(this.context, this.onlyOfficeClient);
+        this.conversionStatistics = new ConversionStatistics(this.context);
 
         final String jwtSecret = this.context.getStringProperty("onlyoffice.jwtSecret");
         if (jwtSecret != null && !jwtSecret.isBlank())
         {
-            this.tokenManager = new TokenManager(jwtSecret);
+            this.tokenManager = new TokenManager(this.context, jwtSecret);
         }
         else
         {
@@ -79,14 +89,8 @@ public class OnlyOfficeTransformerApplication extends TransformerApplication
 
     protected HttpClient createOnlyOfficeClient()
     {
-        final String onlyOfficeConversionUrl = this.context.getStringProperty("onlyoffice.conversionUrl");
-        if (onlyOfficeConversionUrl == null || onlyOfficeConversionUrl.isBlank())
-        {
-            throw new IllegalStateException("A Conversion API URL for OnlyOffice must be configured");
-        }
-
         HttpClient onlyOfficeClient;
-        if (onlyOfficeConversionUrl.toLowerCase(Locale.ENGLISH).startsWith("https://"))
+        if (this.conversionEndpoints.requiresSsl())
         {
             LOGGER.info("Starting OnlyOffice client with SSL support");
             final Client sslContextFactory = this.context.getSslContextFactory("onlyoffice.ssl", SslContextFactory.Client::new);
@@ -122,7 +126,8 @@ public class OnlyOfficeTransformerApplication extends TransformerApplication
     {
         final HandlerList handlerList = super.createEndpoints();
 
-        final SourceFileAccessHandler sourceFileAccessHandler = new SourceFileAccessHandler(this.context, this.sharedFileAccessor);
+        final SourceFileAccessHandler sourceFileAccessHandler = new SourceFileAccessHandler(this.context, this.sharedFileAccessor,
+                this.callbackFileRegistry);
         sourceFileAccessHandler.setTokenManager(this.tokenManager);
         handlerList.addHandler(sourceFileAccessHandler);
 
@@ -146,7 +151,8 @@ public class OnlyOfficeTransformerApplication extends TransformerApplication
     private Transformer createTransformer(final String name)
     {
         final OnlyOfficeTransformer transformer = new OnlyOfficeTransformer(name, this.context, this.transformationLog,
-                this.sharedFileAccessor, this.onlyOfficeClient);
+                this.callbackFileRegistry, this.conversionEndpoints, this.onlyOfficeClient, this.resultFileFetcher,
+                this.conversionStatistics);
         transformer.setTokenManager(this.tokenManager);
         return transformer;
     }
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2021 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.transform.onlyoffice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.acosix.alfresco.transform.base.Context;
+import de.acosix.alfresco.transform.base.SharedFileAccessException;
+import de.acosix.alfresco.transform.base.StatusException;
+import de.acosix.alfresco.transform.base.TransformationException;
+
+/**
+ * Instances of this class download the result files of OnlyOffice conversions. Downloads are streamed directly into the target file,
+ * use separate timeouts for awaiting the response headers and for inactivity while receiving content, and are retried on transient
+ * failures without having to repeat the conversion itself. Large result files may optionally be downloaded as multiple byte ranges in
+ * parallel if the OnlyOffice server supports range requests.
+ *
+ * @author Axel Faust
+ */
+public class ResultFileFetcher
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultFileFetcher.class);
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final HttpClient httpClient;
+
+    private final long headerTimeout;
+
+    private final long idleTimeout;
+
+    private final int maxRetries;
+
+    private final long retryDelay;
+
+    private final int parallelRanges;
+
+    private final long parallelMinSize;
+
+    private final ExecutorService rangeExecutor;
+
+    public ResultFileFetcher(final Context context, final HttpClient httpClient)
+    {
+        this.httpClient = httpClient;
+
+        this.headerTimeout = context.getLongProperty("onlyoffice.download.headerTimeout", 30000, 1, Long.MAX_VALUE);
+        this.idleTimeout = context.getLongProperty("onlyoffice.download.idleTimeout", 60000, 1, Long.MAX_VALUE);
+        this.maxRetries = context.getIntegerProperty("onlyoffice.download.maxRetries", 2, 0, Integer.MAX_VALUE);
+        this.retryDelay = context.getLongProperty("onlyoffice.download.retryDelay", 1000, 0, Long.MAX_VALUE);
+        this.parallelRanges = context.getIntegerProperty("onlyoffice.download.parallelRanges", 1, 1, 64);
+        this.parallelMinSize = context.getLongProperty("onlyoffice.download.parallelMinSize", 16777216, 1, Long.MAX_VALUE);
+
+        if (this.parallelRanges > 1)
+        {
+            // shared by all concurrent downloads - calling thread always handles one range itself, so downloads progress even if all busy
+            final int rangeThreads = context.getIntegerProperty("onlyoffice.download.rangeThreads", 8, 1, 1024);
+            final AtomicInteger threadCount = new AtomicInteger(0);
+            this.rangeExecutor = Executors.newFixedThreadPool(rangeThreads, r -> {
+                final Thread thread = new Thread(r, "OnlyOfficeResultFetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else
+        {
+            this.rangeExecutor = null;
+        }
+    }
+
+    /**
+     * Downloads the result file of a conversion.
+     *
+     * @param fileUrl
+     *            the URL of the result file as provided by OnlyOffice
+     * @param targetFile
+     *            the path to the file in which to store the result
+     */
+    public void fetch(final String fileUrl, final Path targetFile)
+    {
+        int attempt = 0;
+        while (true)
+        {
+            try
+            {
+                this.fetchOnce(fileUrl, targetFile);
+                return;
+            }
+            catch (final InterruptedException e)
+            {
+                LOGGER.error("Thread was interrupted waiting to download result file from {}", fileUrl);
+                Thread.currentThread().interrupt();
+                throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file", e);
+            }
+            catch (final ExecutionException | TimeoutException | IOException e)
+            {
+                if (attempt >= this.maxRetries)
+                {
+                    LOGGER.error("Failed to retrieve result file from {}", fileUrl);
+                    throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file", e);
+                }
+                attempt++;
+                LOGGER.info("Failed to retrieve result file from {} - retrying (attempt {} of {}): {}", fileUrl, attempt, this.maxRetries,
+                        e.getMessage());
+            }
+
+            try
+            {
+                Thread.sleep(this.retryDelay);
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file", e);
+            }
+        }
+    }
+
+    private void fetchOnce(final String fileUrl, final Path targetFile)
+            throws InterruptedException, ExecutionException, TimeoutException, IOException
+    {
+        long size = -1;
+        if (this.rangeExecutor != null)
+        {
+            size = this.determineRangeSupportingSize(fileUrl);
+        }
+
+        if (size >= this.parallelMinSize)
+        {
+            this.fetchRanges(fileUrl, targetFile, size);
+        }
+        else
+        {
+            this.fetchSingle(fileUrl, targetFile);
+        }
+    }
+
+    private long determineRangeSupportingSize(final String fileUrl) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        final ContentResponse response = this.newRequest(fileUrl, HttpMethod.HEAD).timeout(this.headerTimeout, TimeUnit.MILLISECONDS)
+                .send();
+
+        long size = -1;
+        final String acceptRanges = response.getHeaders().get(HttpHeader.ACCEPT_RANGES);
+        if (response.getStatus() == HttpStatus.OK_200 && acceptRanges != null
+                && acceptRanges.toLowerCase(Locale.ENGLISH).contains("bytes"))
+        {
+            size = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH);
+        }
+        LOGGER.debug("Determined size {} for range requests of result file {}", size, fileUrl);
+        return size;
+    }
+
+    private void fetchSingle(final String fileUrl, final Path targetFile)
+            throws InterruptedException, ExecutionException, TimeoutException, IOException
+    {
+        final InputStreamResponseListener listener = new InputStreamResponseListener();
+        final Request request = this.newRequest(fileUrl, HttpMethod.GET);
+        request.send(listener);
+        final Response response = this.awaitResponse(request, listener);
+        checkResponseStatus(fileUrl, response, listener, HttpStatus.OK_200);
+
+        final long size = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH);
+        try (FileChannel channel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING); InputStream is = listener.getInputStream())
+        {
+            final long written = transfer(is, channel, 0, targetFile, size);
+            LOGGER.debug("Read OnlyOffice result file to {} with {} bytes and {} as content type", targetFile, written,
+                    response.getHeaders().get(HttpHeader.CONTENT_TYPE));
+        }
+    }
+
+    private void fetchRanges(final String fileUrl, final Path targetFile, final long size)
+            throws InterruptedException, ExecutionException, TimeoutException, IOException
+    {
+        final long rangeSize = (size + this.parallelRanges - 1) / this.parallelRanges;
+        LOGGER.debug("Retrieving result file {} with {} bytes in ranges of {} bytes", fileUrl, size, rangeSize);
+
+        try (FileChannel channel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            final List<Future<Void>> rangeFutures = new ArrayList<>(this.parallelRanges - 1);
+            try
+            {
+                for (long rangeStart = rangeSize; rangeStart < size; rangeStart += rangeSize)
+                {
+                    final long start = rangeStart;
+                    final long end = Math.min(size, rangeStart + rangeSize) - 1;
+                    rangeFutures.add(this.rangeExecutor.submit(() -> {
+                        this.fetchRange(fileUrl, targetFile, channel, start, end);
+                        return null;
+                    }));
+                }
+
+                // first range is handled by the calling thread
+                this.fetchRange(fileUrl, targetFile, channel, 0, Math.min(size, rangeSize) - 1);
+
+                for (final Future<Void> rangeFuture : rangeFutures)
+                {
+                    try
+                    {
+                        rangeFuture.get();
+                    }
+                    catch (final ExecutionException e)
+                    {
+                        if (e.getCause() instanceof StatusException)
+                        {
+                            throw (StatusException) e.getCause();
+                        }
+                        throw e;
+                    }
+                }
+            }
+            finally
+            {
+                // aborts any still running range requests in case of failure
+                rangeFutures.forEach(f -> f.cancel(true));
+            }
+        }
+
+        LOGGER.debug("Read OnlyOffice result file to {} with {} bytes", targetFile, size);
+    }
+
+    private void fetchRange(final String fileUrl, final Path targetFile, final FileChannel channel, final long start, final long end)
+            throws InterruptedException, ExecutionException, TimeoutException, IOException
+    {
+        final InputStreamResponseListener listener = new InputStreamResponseListener();
+        final Request request = this.newRequest(fileUrl, HttpMethod.GET)
+                .headers(h -> h.put(HttpHeader.RANGE, "bytes=" + start + "-" + end));
+        request.send(listener);
+        final Response response = this.awaitResponse(request, listener);
+        checkResponseStatus(fileUrl, response, listener, HttpStatus.PARTIAL_CONTENT_206);
+
+        try (InputStream is = listener.getInputStream())
+        {
+            final long written = transfer(is, channel, start, targetFile, end - start + 1);
+            if (written != end - start + 1)
+            {
+                throw new IOException("Received " + written + " bytes for range " + start + "-" + end + " of " + fileUrl);
+            }
+        }
+    }
+
+    private Response awaitResponse(final Request request, final InputStreamResponseListener listener)
+            throws InterruptedException, ExecutionException, TimeoutException
+    {
+        try
+        {
+            return listener.get(this.headerTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch (final InterruptedException | ExecutionException | TimeoutException e)
+        {
+            // an abandoned exchange would otherwise hold on to its connection and any buffered content until it completes on its own
+            request.abort(e);
+            throw e;
+        }
+    }
+
+    private Request newRequest(final String fileUrl, final HttpMethod method)
+    {
+        return this.httpClient.newRequest(fileUrl).method(method).idleTimeout(this.idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static long transfer(final InputStream is, final FileChannel channel, final long startPosition, final Path targetFile,
+            final long expectedSize) throws IOException
+    {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long position = startPosition;
+        try
+        {
+            int read;
+            while ((read = is.read(buffer)) != -1)
+            {
+                byteBuffer.clear().limit(read);
+                while (byteBuffer.hasRemaining())
+                {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        }
+        catch (final IOException ioex)
+        {
+            // Alfresco transformer apps just generically state insufficient storage at this point
+            final long usableSpace = targetFile.toFile().getUsableSpace();
+            if (expectedSize > 0 && usableSpace <= expectedSize)
+            {
+                LOGGER.error("Not enough space available to store {} bytes in {}", expectedSize, targetFile);
+                throw new SharedFileAccessException(HttpStatus.INSUFFICIENT_STORAGE_507,
+                        "Insufficient space to store the OnlyOffice result file", ioex);
+            }
+            throw ioex;
+        }
+        return position - startPosition;
+    }
+
+    private static void checkResponseStatus(final String fileUrl, final Response response, final InputStreamResponseListener listener,
+            final int expectedStatus) throws IOException
+    {
+        final int status = response.getStatus();
+        if (status != expectedStatus)
+        {
+            discardResponse(listener);
+            LOGGER.error("Failed to retrieve file from {} with HTTP status {} - {}", fileUrl, status, response.getReason());
+
+            // only server-side / transient errors may be resolved by retrying
+            if (status >= HttpStatus.INTERNAL_SERVER_ERROR_500 || status == HttpStatus.REQUEST_TIMEOUT_408
+                    || status == HttpStatus.TOO_MANY_REQUESTS_429 || status == HttpStatus.OK_200)
+            {
+                throw new IOException("Unexpected HTTP status " + status + " retrieving " + fileUrl);
+            }
+            throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to retrieve OnlyOffice result file");
+        }
+    }
+
+    private static void discardResponse(final InputStreamResponseListener listener)
+    {
+        try (final InputStream is = listener.getInputStream())
+        {
+            // NO-OP
+        }
+        catch (final IOException ignore)
+        {
+            // ignore - close input stream primarily as indicator to Jetty client components to discard any further received data
+        }
+    }
+}
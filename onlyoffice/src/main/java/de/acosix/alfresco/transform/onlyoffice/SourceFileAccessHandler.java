@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import de.acosix.alfresco.transform.base.Context;
 import de.acosix.alfresco.transform.base.SharedFileAccessException;
 import de.acosix.alfresco.transform.base.SharedFileAccessor;
+import de.acosix.alfresco.transform.onlyoffice.CallbackFileRegistry.LocalFile;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -52,14 +53,18 @@ public class SourceFileAccessHandler extends AbstractHandler
 
     private final SharedFileAccessor sharedFileAccessor;
 
+    private final CallbackFileRegistry callbackFileRegistry;
+
     private final String tokenHeaderName;
 
     private TokenManager tokenManager;
 
-    public SourceFileAccessHandler(final Context context, final SharedFileAccessor sharedFileAccessor)
+    public SourceFileAccessHandler(final Context context, final SharedFileAccessor sharedFileAccessor,
+            final CallbackFileRegistry callbackFileRegistry)
     {
         this.context = context;
         this.sharedFileAccessor = sharedFileAccessor;
+        this.callbackFileRegistry = callbackFileRegistry;
 
         this.tokenHeaderName = context.getStringProperty("onlyoffice.tokenHeaderName");
     }
@@ -143,20 +148,32 @@ public class SourceFileAccessHandler extends AbstractHandler
     {
         LOGGER.debug("Processing OnlyOffce transformation source file retrieval for file reference {}", reference);
 
+        // local file is served directly from the source file of the transformation request, avoiding any copies
+        final LocalFile localFile = this.callbackFileRegistry.getLocalFile(reference);
+        if (localFile != null)
+        {
+            response.addHeader(HttpHeader.CONTENT_TYPE.asString(), localFile.getContentType());
+            this.streamFile(response, localFile.getPath(), reference);
+        }
+        else if (this.callbackFileRegistry.isUsingSharedFileStore())
+        {
+            this.retrieveAndStreamSharedFile(response, reference);
+        }
+        else
+        {
+            LOGGER.debug("No local source file registered for file reference {}", reference);
+            response.setStatus(HttpStatus.NOT_FOUND_404);
+            response.flushBuffer();
+        }
+    }
+
+    private void retrieveAndStreamSharedFile(final HttpServletResponse response, final String reference) throws IOException
+    {
         final Path requestedSourceFile = this.sharedFileAccessor.retrieveAsTemporyFile(reference,
                 contentType -> response.addHeader(HttpHeader.CONTENT_TYPE.asString(), contentType));
         try
         {
-            final long size = Files.size(requestedSourceFile);
-            response.addHeader(HttpHeader.CONTENT_LENGTH.asString(), String.valueOf(size));
-
-            try (final OutputStream os = response.getOutputStream())
-            {
-                Files.copy(requestedSourceFile, os);
-            }
-
-            LOGGER.debug("Completed streaming {} bytes of {} from reference file {}", size,
-                    response.getHeader(HttpHeader.CONTENT_TYPE.asString()), reference);
+            this.streamFile(response, requestedSourceFile, reference);
         }
         finally
         {
@@ -178,4 +195,18 @@ public class SourceFileAccessHandler extends AbstractHandler
         }
     }
 
+    private void streamFile(final HttpServletResponse response, final Path file, final String reference) throws IOException
+    {
+        final long size = Files.size(file);
+        response.addHeader(HttpHeader.CONTENT_LENGTH.asString(), String.valueOf(size));
+
+        try (final OutputStream os = response.getOutputStream())
+        {
+            Files.copy(file, os);
+        }
+
+        LOGGER.debug("Completed streaming {} bytes of {} from reference file {}", size,
+                response.getHeader(HttpHeader.CONTENT_TYPE.asString()), reference);
+    }
+
 }
@@ -15,18 +15,25 @@
  */
 package de.acosix.alfresco.transform.onlyoffice;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.Base64.Decoder;
 import java.util.Base64.Encoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.eclipse.jetty.http.HttpStatus;
 
+import de.acosix.alfresco.transform.base.Context;
 import de.acosix.alfresco.transform.base.TransformationException;
 
 /**
@@ -38,27 +45,48 @@ public class TokenManager
 
     private static final String COMMON_HEADER = "{\"alg\":\"HS256\", \"typ\": \"JWT\"}";
 
-    private final String secret;
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final String ENCODED_HEADER = ENCODER.encodeToString(COMMON_HEADER.getBytes(StandardCharsets.UTF_8));
+
+    private static final int MAX_VALIDATED_TOKENS = 1000;
+
+    private final SecretKeySpec secretKey;
+
+    // Mac instances are not thread-safe, but expensive enough to look up and initialise to warrant reuse
+    private final ThreadLocal<Mac> mac;
 
-    public TokenManager(final String secret)
+    private final long validatedTokenTtl;
+
+    private final Map<String, Long> validatedTokenExpiries = new ConcurrentHashMap<>();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    public TokenManager(final Context context, final String secret)
     {
-        this.secret = secret;
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
+        this.mac = ThreadLocal.withInitial(this::createMac);
+        // fail early on any issue with the algorithm / key
+        this.createMac();
+
+        this.validatedTokenTtl = context.getLongProperty("onlyoffice.tokenValidationCacheTtl", 300000, 0, Long.MAX_VALUE);
     }
 
     public String createToken(final String payload)
     {
         try
         {
-            final Encoder enc = Base64.getUrlEncoder();
-
-            final String encodedHeader = enc.encodeToString(COMMON_HEADER.getBytes(StandardCharsets.UTF_8)).replace("=", "");
-            final String encodedPayload = enc.encodeToString(payload.getBytes(StandardCharsets.UTF_8)).replace("=", "");
+            final String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
 
-            final String hash = this.hash(encodedHeader, encodedPayload);
-            final String token = encodedHeader + '.' + encodedPayload + '.' + hash;
+            final String hash = this.hash(ENCODED_HEADER, encodedPayload);
+            final String token = ENCODED_HEADER + '.' + encodedPayload + '.' + hash;
             return token;
         }
-        catch (final GeneralSecurityException e)
+        catch (final IllegalStateException e)
         {
             throw new TransformationException(HttpStatus.INTERNAL_SERVER_ERROR_500, "Failed to generate token for request to OnlyOffice");
         }
@@ -66,6 +94,13 @@ public class TokenManager
 
     public boolean isValidToken(final String token)
     {
+        final long now = System.currentTimeMillis();
+        final Long cachedExpiry = this.validatedTokenExpiries.get(token);
+        if (cachedExpiry != null && cachedExpiry.longValue() > now)
+        {
+            return true;
+        }
+
         boolean validToken;
         final String[] fragments = token.split("\\.");
 
@@ -75,9 +110,11 @@ public class TokenManager
             try
             {
                 final String checkedHash = this.hash(fragments[0], fragments[1]);
-                validToken = checkedHash.equals(providedHash);
+                // constant-time comparison to not leak information about the expected hash
+                validToken = MessageDigest.isEqual(checkedHash.getBytes(StandardCharsets.UTF_8),
+                        providedHash.getBytes(StandardCharsets.UTF_8));
             }
-            catch (final GeneralSecurityException e)
+            catch (final IllegalStateException e)
             {
                 validToken = false;
             }
@@ -87,17 +124,79 @@ public class TokenManager
             validToken = false;
         }
 
+        if (validToken && this.validatedTokenTtl > 0)
+        {
+            this.cacheValidatedToken(token, fragments[1], now);
+        }
+
         return validToken;
     }
 
-    private String hash(final String encodedHeader, final String encodedPayload) throws NoSuchAlgorithmException, InvalidKeyException
+    private void cacheValidatedToken(final String token, final String encodedPayload, final long now)
+    {
+        // a token must never be treated as validated beyond its own expiration
+        long expiry = now + this.validatedTokenTtl;
+        final Long tokenExpiry = this.getTokenExpiry(encodedPayload);
+        if (tokenExpiry != null)
+        {
+            expiry = Math.min(expiry, tokenExpiry.longValue());
+        }
+        if (expiry <= now)
+        {
+            return;
+        }
+
+        if (this.validatedTokenExpiries.size() >= MAX_VALIDATED_TOKENS)
+        {
+            this.validatedTokenExpiries.values().removeIf(e -> e.longValue() <= now);
+        }
+        // only invalid tokens could flood the cache, so simply not caching any more tokens until some expire is sufficient
+        if (this.validatedTokenExpiries.size() < MAX_VALIDATED_TOKENS)
+        {
+            this.validatedTokenExpiries.put(token, expiry);
+        }
+    }
+
+    private Long getTokenExpiry(final String encodedPayload)
+    {
+        Long expiry = null;
+        try
+        {
+            final JsonNode payload = this.jsonMapper.readTree(DECODER.decode(encodedPayload));
+            final JsonNode exp = payload != null ? payload.get("exp") : null;
+            if (exp != null && exp.isNumber())
+            {
+                // JWT expiration is specified in seconds since epoch
+                expiry = Long.valueOf(exp.asLong() * 1000);
+            }
+        }
+        catch (final IllegalArgumentException | IOException e)
+        {
+            // payload without a parseable expiration - only the configured TTL applies
+        }
+        return expiry;
+    }
+
+    private String hash(final String encodedHeader, final String encodedPayload)
     {
-        final Encoder enc = Base64.getUrlEncoder();
         final String headerAndPayload = encodedHeader + '.' + encodedPayload;
-        final Mac sha256 = Mac.getInstance("HmacSHA256");
-        sha256.init(new SecretKeySpec(this.secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        final Mac sha256 = this.mac.get();
 
-        final String hash = enc.encodeToString(sha256.doFinal(headerAndPayload.getBytes(StandardCharsets.UTF_8))).replace("=", "");
+        final String hash = ENCODER.encodeToString(sha256.doFinal(headerAndPayload.getBytes(StandardCharsets.UTF_8)));
         return hash;
     }
+
+    private Mac createMac()
+    {
+        try
+        {
+            final Mac sha256 = Mac.getInstance(HMAC_SHA256);
+            sha256.init(this.secretKey);
+            return sha256;
+        }
+        catch (final GeneralSecurityException e)
+        {
+            throw new IllegalStateException("Failed to initialise " + HMAC_SHA256 + " for OnlyOffice tokens", e);
+        }
+    }
 }